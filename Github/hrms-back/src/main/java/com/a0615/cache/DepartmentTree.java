@@ -0,0 +1,308 @@
+package com.a0615.cache;
+
+import com.a0615.cache.LatestSalaryIndex.LatestSalary;
+import com.a0615.entity.Department;
+import com.a0615.entity.DepartmentClosure;
+import com.a0615.entity.Employee;
+import com.a0615.mapper.DepartmentMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 部门树及各部门子树汇总的内存副本。
+ * 部门和闭包表定时全量加载；每个部门预先计算本部门和整个子树的人数、在职人数和在职员工最新薪资合计，
+ * 查询任意层级的汇总都是一次 Map 查找。
+ * 员工变化（来自 {@link EmployeeDirectory}）和最新薪资变化（来自 {@link LatestSalaryIndex}）只更新
+ * 所在部门及其祖先（闭包表中的祖先列表）的汇总，代价与树高成正比；部门结构变化后全量重算。
+ * 部门树和汇总放在一个不可变快照中，写入方复制、修改后整体替换，读取方不会看到清空到一半或只加了一半的汇总。
+ */
+@Component
+public class DepartmentTree implements EmployeeDirectory.ChangeListener, LatestSalaryIndex.ChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DepartmentTree.class);
+
+    /**
+     * 汇总值，不可变；更新时整体替换
+     * @param headcount 员工人数
+     * @param activeHeadcount 在职人数
+     * @param salariedCount 有薪资记录的在职人数
+     * @param payrollCents 在职员工最新薪资合计（分）
+     */
+    public record Rollup(int headcount, int activeHeadcount, int salariedCount, long payrollCents) {
+
+        static final Rollup ZERO = new Rollup(0, 0, 0, 0);
+
+        Rollup plus(Rollup other, int sign) {
+            return new Rollup(headcount + sign * other.headcount, activeHeadcount + sign * other.activeHeadcount,
+                salariedCount + sign * other.salariedCount, payrollCents + sign * other.payrollCents);
+        }
+
+        public BigDecimal payroll() {
+            return BigDecimal.valueOf(payrollCents, 2);
+        }
+
+        public BigDecimal averageSalary() {
+            return salariedCount == 0 ? BigDecimal.ZERO
+                : BigDecimal.valueOf(payrollCents, 2).divide(BigDecimal.valueOf(salariedCount), 2, RoundingMode.HALF_UP);
+        }
+    }
+
+    /**
+     * 部门节点
+     * @param ancestors 祖先部门ID（含自身），来自闭包表
+     * @param level 层级，顶级部门为 0
+     */
+    public record Node(Department department, int[] ancestors, int level, List<Integer> children) {
+    }
+
+    /**
+     * 员工对汇总的贡献只取决于部门、是否在职和最新薪资
+     */
+    private record Member(String dept, boolean active) {
+    }
+
+    /**
+     * 部门树和汇总的不可变快照；own / subtree 为部门ID -> 本部门汇总 / 子树汇总
+     */
+    private record Snapshot(Map<Integer, Node> nodes, Map<String, Integer> idByName,
+                            Map<Integer, Rollup> own, Map<Integer, Rollup> subtree) {
+
+        /**
+         * 在快照的副本上累加变化，build 后才对读取方可见。
+         * 单个员工的变化要复制两个汇总 Map，代价与部门数成正比，部门数远小于员工数
+         */
+        private static final class Builder {
+
+            private final Map<Integer, Node> nodes;
+            private final Map<String, Integer> idByName;
+            private final Map<Integer, Rollup> own;
+            private final Map<Integer, Rollup> subtree;
+
+            Builder(Snapshot base) {
+                this(base.nodes(), base.idByName(), new HashMap<>(base.own()), new HashMap<>(base.subtree()));
+            }
+
+            Builder(Map<Integer, Node> nodes, Map<String, Integer> idByName, Map<Integer, Rollup> own, Map<Integer, Rollup> subtree) {
+                this.nodes = nodes;
+                this.idByName = idByName;
+                this.own = own;
+                this.subtree = subtree;
+            }
+
+            /**
+             * 把一名员工的贡献加到（sign 为 -1 时减去）所在部门及其全部祖先
+             */
+            void apply(Member member, Rollup contribution, int sign) {
+                Integer id = member.dept() != null ? idByName.get(member.dept()) : null;
+                if (id == null) {
+                    return; // 部门未登记到部门树中，不参与汇总
+                }
+                Rollup delta = Rollup.ZERO.plus(contribution, sign);
+                own.merge(id, delta, (existing, change) -> existing.plus(change, 1));
+                for (int ancestor : nodes.get(id).ancestors()) {
+                    subtree.merge(ancestor, delta, (existing, change) -> existing.plus(change, 1));
+                }
+            }
+
+            Snapshot build() {
+                return new Snapshot(nodes, idByName, Collections.unmodifiableMap(own), Collections.unmodifiableMap(subtree));
+            }
+        }
+    }
+
+    @Autowired
+    private DepartmentMapper departmentMapper;
+
+    // 部门树未加载时为 null；只在本对象监视器内替换
+    private volatile Snapshot snapshot;
+    private volatile boolean employeesLoaded = false;
+
+    // 以下仅在本对象监视器内访问
+    private final Map<String, Member> members = new HashMap<>();
+    private final Map<String, Long> latestCents = new HashMap<>();
+
+    /**
+     * 定时全量加载部门和闭包表，并按内存中的员工和薪资重算汇总
+     */
+    @Scheduled(fixedDelayString = "${department.tree.refresh-ms:300000}")
+    public void reload() {
+        try {
+            long start = System.currentTimeMillis();
+            List<Department> departments = departmentMapper.selectList(null);
+            List<DepartmentClosure> closures = departmentMapper.selectAllClosures();
+            rebuild(departments, closures);
+            logger.info("DepartmentTree: loaded {} departments in {} ms", departments.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.warn("DepartmentTree: load failed, department roll-ups will fall back to scanning employees: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 部门树和员工都已加载
+     */
+    public boolean isReady() {
+        return snapshot != null && employeesLoaded;
+    }
+
+    /**
+     * 全部部门，按层级和名称排序；部门树未加载时返回 null
+     */
+    public List<Node> nodes() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        List<Node> result = new ArrayList<>(current.nodes().values());
+        result.sort(Comparator.comparingInt(Node::level).thenComparing(node -> node.department().getName()));
+        return result;
+    }
+
+    /**
+     * 部门树未加载或部门不存在时返回 null
+     */
+    public Node node(Integer id) {
+        Snapshot current = snapshot;
+        return current != null ? current.nodes().get(id) : null;
+    }
+
+    /**
+     * 本部门（不含下级）的汇总。调用前应先确认 {@link #isReady()}
+     */
+    public Rollup ownRollup(Integer id) {
+        Snapshot current = snapshot;
+        return current != null ? current.own().getOrDefault(id, Rollup.ZERO) : Rollup.ZERO;
+    }
+
+    /**
+     * 整个子树（含本部门）的汇总。调用前应先确认 {@link #isReady()}
+     */
+    public Rollup subtreeRollup(Integer id) {
+        Snapshot current = snapshot;
+        return current != null ? current.subtree().getOrDefault(id, Rollup.ZERO) : Rollup.ZERO;
+    }
+
+    @Override
+    public synchronized void onReload(List<Employee> employees) {
+        members.clear();
+        for (Employee employee : employees) {
+            members.put(employee.getEmpId(), toMember(employee));
+        }
+        employeesLoaded = true;
+        publish(recompute(snapshot));
+    }
+
+    @Override
+    public synchronized void onChanged(Employee before, Employee after) {
+        Snapshot current = snapshot;
+        Snapshot.Builder next = current != null ? new Snapshot.Builder(current) : null;
+        if (before != null) {
+            Member member = members.remove(before.getEmpId());
+            if (member != null && next != null) {
+                next.apply(member, contribution(member, latestCents.get(before.getEmpId())), -1);
+            }
+        }
+        if (after != null) {
+            Member member = toMember(after);
+            members.put(after.getEmpId(), member);
+            if (next != null) {
+                next.apply(member, contribution(member, latestCents.get(after.getEmpId())), 1);
+            }
+        }
+        if (next != null) {
+            publish(next.build());
+        }
+    }
+
+    @Override
+    public synchronized void onReload(Map<String, LatestSalary> latestByEmpId) {
+        latestCents.clear();
+        latestByEmpId.forEach((empId, latest) -> latestCents.put(empId, latest.totalCents()));
+        publish(recompute(snapshot));
+    }
+
+    @Override
+    public synchronized void onChanged(String empId, LatestSalary latest) {
+        Long before = latestCents.get(empId);
+        Long after = latest != null ? latest.totalCents() : null;
+        if (after != null) {
+            latestCents.put(empId, after);
+        } else {
+            latestCents.remove(empId);
+        }
+        Member member = members.get(empId);
+        Snapshot current = snapshot;
+        if (member != null && current != null) {
+            Snapshot.Builder next = new Snapshot.Builder(current);
+            next.apply(member, contribution(member, before), -1);
+            next.apply(member, contribution(member, after), 1);
+            publish(next.build());
+        }
+    }
+
+    private synchronized void rebuild(List<Department> departments, List<DepartmentClosure> closures) {
+        Map<Integer, List<int[]>> ancestorsById = new HashMap<>(); // descendant -> [ancestor, depth]
+        for (DepartmentClosure closure : closures) {
+            ancestorsById.computeIfAbsent(closure.getDescendantId(), key -> new ArrayList<>())
+                .add(new int[] {closure.getAncestorId(), closure.getDepth()});
+        }
+        Map<Integer, List<Integer>> childrenById = new HashMap<>();
+        for (Department department : departments) {
+            if (department.getParentId() != null) {
+                childrenById.computeIfAbsent(department.getParentId(), key -> new ArrayList<>()).add(department.getId());
+            }
+        }
+
+        Map<Integer, Node> nextNodes = new HashMap<>(departments.size() * 2);
+        Map<String, Integer> nextIdByName = new HashMap<>(departments.size() * 2);
+        for (Department department : departments) {
+            List<int[]> rows = ancestorsById.computeIfAbsent(department.getId(),
+                key -> new ArrayList<>(List.<int[]>of(new int[] {key, 0})));
+            rows.sort(Comparator.comparingInt(row -> row[1]));
+            int[] ancestors = rows.stream().mapToInt(row -> row[0]).toArray();
+            nextNodes.put(department.getId(), new Node(department, ancestors, rows.get(rows.size() - 1)[1],
+                Collections.unmodifiableList(childrenById.getOrDefault(department.getId(), List.of()))));
+            nextIdByName.put(department.getName(), department.getId());
+        }
+        publish(recompute(new Snapshot(Collections.unmodifiableMap(nextNodes), Collections.unmodifiableMap(nextIdByName),
+            Map.of(), Map.of())));
+    }
+
+    /**
+     * 按给定的部门树和当前的员工、薪资全量重算汇总，生成新的快照；部门树未加载时返回 null
+     */
+    private Snapshot recompute(Snapshot tree) {
+        if (tree == null) {
+            return null;
+        }
+        Snapshot.Builder next = new Snapshot.Builder(tree.nodes(), tree.idByName(), new HashMap<>(), new HashMap<>());
+        members.forEach((empId, member) -> next.apply(member, contribution(member, latestCents.get(empId)), 1));
+        return next.build();
+    }
+
+    private void publish(Snapshot next) {
+        if (next != null) {
+            snapshot = next;
+        }
+    }
+
+    private Member toMember(Employee employee) {
+        return new Member(employee.getDept(), "在职".equals(employee.getStatus()));
+    }
+
+    private Rollup contribution(Member member, Long cents) {
+        boolean salaried = member.active() && cents != null;
+        return new Rollup(1, member.active() ? 1 : 0, salaried ? 1 : 0, salaried ? cents : 0);
+    }
+}
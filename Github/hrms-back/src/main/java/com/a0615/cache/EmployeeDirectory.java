@@ -0,0 +1,361 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Employee;
+import com.a0615.mapper.EmployeeMapper;
+import com.a0615.util.TransactionUtils;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 员工目录的内存副本。
+ * 全部员工（按主键排序）、按部门索引和部门人数是一个不可变快照，按工号索引是随快照传递的并发 Map，
+ * 读取只是一次 volatile 读加 Map 查找；
+ * EmployeeService 的每次写入在事务提交后生成新快照：只在排序列表的二分查找位置删除、插入该员工，
+ * 只复制涉及的部门列表，不重新排序；另有定时全量刷新兜底库外修改，没有变化时不通知监听器。
+ * 快照中的对象是共享的，调用方只能读取，需要修改时应从数据库重新查询。
+ */
+@Component
+public class EmployeeDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeDirectory.class);
+
+    private static final Comparator<Employee> ID_ORDER =
+        Comparator.comparing(Employee::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /**
+     * 变化的员工数不超过总数的这一比例时逐个增量更新并通知监听器，否则整体重建
+     */
+    private static final int INCREMENTAL_DIVISOR = 8;
+
+    /**
+     * 快照。byEmpId 在增量更新时原地修改（各快照共享同一个 Map），全量加载时换成新的；其余部分不可变
+     */
+    private record Snapshot(List<Employee> all,
+                            Map<String, Employee> byEmpId,
+                            Map<String, List<Employee>> byDept,
+                            Map<String, Integer> deptCounts) {
+
+        static Snapshot of(Collection<Employee> employees) {
+            List<Employee> all = new ArrayList<>(employees);
+            all.sort(ID_ORDER);
+
+            Map<String, Employee> byEmpId = new ConcurrentHashMap<>(all.size() * 2);
+            Map<String, List<Employee>> byDept = new LinkedHashMap<>();
+            for (Employee employee : all) {
+                byEmpId.put(employee.getEmpId(), employee);
+                String dept = employee.getDept();
+                if (dept != null && !dept.isEmpty()) {
+                    byDept.computeIfAbsent(dept, key -> new ArrayList<>()).add(employee);
+                }
+            }
+
+            Map<String, List<Employee>> frozenByDept = new LinkedHashMap<>();
+            Map<String, Integer> deptCounts = new LinkedHashMap<>();
+            byDept.forEach((dept, members) -> {
+                frozenByDept.put(dept, Collections.unmodifiableList(members));
+                deptCounts.put(dept, members.size());
+            });
+            return new Snapshot(Collections.unmodifiableList(all), byEmpId,
+                Collections.unmodifiableMap(frozenByDept), Collections.unmodifiableMap(deptCounts));
+        }
+
+        /**
+         * 用 after 替换 before 后的新快照（新增时 before 为 null，删除时 after 为 null）。
+         * 全部员工列表复制一次并在二分查找位置删除、插入，只复制涉及的部门列表；byEmpId 原地修改
+         */
+        Snapshot with(Employee before, Employee after) {
+            List<Employee> nextAll = replaced(all, before, after);
+            Map<String, List<Employee>> nextByDept = new LinkedHashMap<>(byDept);
+            Map<String, Integer> nextCounts = new LinkedHashMap<>(deptCounts);
+            String beforeDept = before != null ? before.getDept() : null;
+            String afterDept = after != null ? after.getDept() : null;
+            if (beforeDept != null && !beforeDept.isEmpty()) {
+                replaceDeptMembers(nextByDept, nextCounts, beforeDept,
+                    replaced(nextByDept.getOrDefault(beforeDept, List.of()), before, beforeDept.equals(afterDept) ? after : null));
+            }
+            if (afterDept != null && !afterDept.isEmpty() && !afterDept.equals(beforeDept)) {
+                replaceDeptMembers(nextByDept, nextCounts, afterDept,
+                    replaced(nextByDept.getOrDefault(afterDept, List.of()), null, after));
+            }
+            if (after != null) {
+                byEmpId.put(after.getEmpId(), after);
+            } else {
+                byEmpId.remove(before.getEmpId());
+            }
+            return new Snapshot(nextAll, byEmpId,
+                Collections.unmodifiableMap(nextByDept), Collections.unmodifiableMap(nextCounts));
+        }
+
+        private static void replaceDeptMembers(Map<String, List<Employee>> byDept, Map<String, Integer> counts,
+                                               String dept, List<Employee> members) {
+            if (members.isEmpty()) {
+                byDept.remove(dept);
+                counts.remove(dept);
+            } else {
+                byDept.put(dept, members);
+                counts.put(dept, members.size());
+            }
+        }
+
+        /**
+         * 按主键有序的列表中删除 before、按顺序插入 after，返回新的不可修改列表
+         */
+        private static List<Employee> replaced(List<Employee> list, Employee before, Employee after) {
+            List<Employee> next = new ArrayList<>(list.size() + 1);
+            next.addAll(list);
+            if (before != null) {
+                int index = Collections.binarySearch(next, before, ID_ORDER);
+                if (index < 0 || next.get(index) != before) {
+                    index = next.indexOf(before); // 主键为空的员工排在末尾，逐个查找
+                }
+                if (index >= 0) {
+                    next.remove(index);
+                }
+            }
+            if (after != null) {
+                int index = Collections.binarySearch(next, after, ID_ORDER);
+                next.add(index >= 0 ? index + 1 : -index - 1, after);
+            }
+            return Collections.unmodifiableList(next);
+        }
+    }
+
+    /**
+     * 目录变化的监听器（例如姓名搜索索引）。回调在目录的写锁内按顺序执行
+     */
+    public interface ChangeListener {
+
+        /**
+         * 全量加载完成
+         */
+        void onReload(List<Employee> employees);
+
+        /**
+         * 单个员工变化：新增时 before 为 null，删除时 after 为 null
+         */
+        void onChanged(Employee before, Employee after);
+    }
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired(required = false)
+    private List<ChangeListener> listeners = Collections.emptyList();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 定时全量刷新：启动后立即加载一次，之后兜底处理绕过 EmployeeService 的修改
+     */
+    @Scheduled(fixedDelayString = "${employee.directory.refresh-ms:300000}")
+    public synchronized void reload() {
+        try {
+            long start = System.currentTimeMillis();
+            List<Employee> employees = employeeMapper.selectList(new QueryWrapper<Employee>().orderByAsc("id"));
+            Snapshot current = snapshot;
+            if (current != null) {
+                // 与当前目录比较，只有少量员工变化时逐个更新，没有变化时不通知监听器
+                Map<String, Employee> loaded = new HashMap<>(employees.size() * 2);
+                List<Employee> changed = new ArrayList<>();
+                for (Employee employee : employees) {
+                    loaded.put(employee.getEmpId(), employee);
+                    if (!employee.equals(current.byEmpId().get(employee.getEmpId()))) {
+                        changed.add(employee);
+                    }
+                }
+                List<String> removed = new ArrayList<>();
+                for (Employee employee : current.all()) {
+                    if (!loaded.containsKey(employee.getEmpId())) {
+                        removed.add(employee.getEmpId());
+                    }
+                }
+                if (changed.size() + removed.size() <= employees.size() / INCREMENTAL_DIVISOR) {
+                    changed.forEach(employee -> apply(employee.getEmpId(), employee));
+                    removed.forEach(empId -> apply(empId, null));
+                    logger.debug("EmployeeDirectory: refreshed {} employees in {} ms, {} changed, {} removed",
+                        employees.size(), System.currentTimeMillis() - start, changed.size(), removed.size());
+                    return;
+                }
+            }
+            snapshot = Snapshot.of(employees);
+            for (ChangeListener listener : listeners) {
+                listener.onReload(snapshot.all());
+            }
+            logger.info("EmployeeDirectory: loaded {} employees in {} ms",
+                employees.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.warn("EmployeeDirectory: load failed, employee reads will fall back to database queries: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * 全部员工（按主键排序），目录未就绪时返回 null，由调用方回退到数据库
+     */
+    public List<Employee> all() {
+        Snapshot current = snapshot;
+        return current != null ? current.all() : null;
+    }
+
+    /**
+     * 调用前应先确认 {@link #isReady()}
+     */
+    public Employee get(String empId) {
+        return snapshot.byEmpId().get(empId);
+    }
+
+    /**
+     * 某部门的员工，没有时返回空列表。调用前应先确认 {@link #isReady()}
+     */
+    public List<Employee> byDept(String dept) {
+        return snapshot.byDept().getOrDefault(dept, Collections.emptyList());
+    }
+
+    /**
+     * 员工总数，目录未就绪时返回 -1
+     */
+    public int count() {
+        Snapshot current = snapshot;
+        return current != null ? current.all().size() : -1;
+    }
+
+    /**
+     * 各部门人数，目录未就绪时返回 null
+     */
+    public Map<String, Integer> deptCounts() {
+        Snapshot current = snapshot;
+        return current != null ? current.deptCounts() : null;
+    }
+
+    /**
+     * 新增或修改员工后调用，提交后替换该员工。保存的是副本，调用方之后对实体的修改不会影响目录
+     */
+    public void onSaved(Employee employee) {
+        Employee copy = copyOf(employee);
+        TransactionUtils.afterCommit(() -> apply(copy.getEmpId(), copy));
+    }
+
+    /**
+     * 只修改了部分字段后调用，changes 中非空的字段在提交后叠加到目录中该员工的当前值上。
+     * 叠加在目录的写锁内进行，并发修改不同字段时按提交顺序合并；目录中没有该员工时忽略，由定时全量加载补上
+     */
+    public void onUpdated(String empId, Employee changes) {
+        Employee copy = copyOf(changes);
+        TransactionUtils.afterCommit(() -> merge(empId, copy));
+    }
+
+    /**
+     * 批量新增或修改员工后调用。变化的员工较少时提交后逐个增量更新，
+     * 否则一次生成新快照，监听器按新目录整体重建，而不是逐个通知
+     */
+    public void onSavedAll(Collection<Employee> employees) {
+        List<Employee> copies = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            copies.add(copyOf(employee));
+        }
+        TransactionUtils.afterCommit(() -> applyAll(copies));
+    }
+
+    /**
+     * 删除员工后调用，提交后从目录移除
+     */
+    public void onDeleted(String empId) {
+        TransactionUtils.afterCommit(() -> apply(empId, null));
+    }
+
+    private synchronized void apply(String empId, Employee replacement) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return; // 尚未加载，下次全量加载会包含这次修改
+        }
+        Employee before = current.byEmpId().get(empId);
+        if (before == null && replacement == null || replacement != null && replacement.equals(before)) {
+            return; // 没有变化
+        }
+        snapshot = current.with(before, replacement);
+        for (ChangeListener listener : listeners) {
+            listener.onChanged(before, replacement);
+        }
+    }
+
+    private synchronized void merge(String empId, Employee changes) {
+        Snapshot current = snapshot;
+        Employee before = current != null ? current.byEmpId().get(empId) : null;
+        if (before == null) {
+            return;
+        }
+        Employee after = copyOf(before);
+        if (changes.getName() != null) {
+            after.setName(changes.getName());
+        }
+        if (changes.getDept() != null) {
+            after.setDept(changes.getDept());
+        }
+        if (changes.getPos() != null) {
+            after.setPos(changes.getPos());
+        }
+        if (changes.getPwd() != null) {
+            after.setPwd(changes.getPwd());
+        }
+        if (changes.getRole() != null) {
+            after.setRole(changes.getRole());
+        }
+        if (changes.getEntryTime() != null) {
+            after.setEntryTime(changes.getEntryTime());
+        }
+        if (changes.getStatus() != null) {
+            after.setStatus(changes.getStatus());
+        }
+        apply(empId, after);
+    }
+
+    private synchronized void applyAll(List<Employee> replacements) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        if (replacements.size() <= current.all().size() / INCREMENTAL_DIVISOR) {
+            replacements.forEach(replacement -> apply(replacement.getEmpId(), replacement));
+            return;
+        }
+        Map<String, Employee> next = new HashMap<>(current.byEmpId());
+        for (Employee replacement : replacements) {
+            next.put(replacement.getEmpId(), replacement);
+        }
+        snapshot = Snapshot.of(next.values());
+        for (ChangeListener listener : listeners) {
+            listener.onReload(snapshot.all());
+        }
+    }
+
+    private Employee copyOf(Employee source) {
+        Employee copy = new Employee();
+        copy.setId(source.getId());
+        copy.setEmpId(source.getEmpId());
+        copy.setName(source.getName());
+        copy.setDept(source.getDept());
+        copy.setPos(source.getPos());
+        copy.setPwd(source.getPwd());
+        copy.setRole(source.getRole());
+        copy.setEntryTime(source.getEntryTime());
+        copy.setStatus(source.getStatus());
+        return copy;
+    }
+}
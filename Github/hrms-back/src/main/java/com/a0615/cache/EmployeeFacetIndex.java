@@ -0,0 +1,265 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Employee;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * 员工筛选维度（部门、职位、角色、状态）的内存位图索引。
+ * 每个维度的每个取值对应一个以员工主键为位的压缩位图（RoaringBitmap）：
+ * 同一维度的多个取值取并集，不同维度之间取交集，各维度每个取值的人数由位图交集基数直接得到，不需要遍历员工。
+ * 由 {@link EmployeeDirectory} 的变更回调维护：全量加载时重建，单个员工变化时只复制取值发生变化的位图，
+ * 位图部分是不可变快照，读取不加锁；主键 -> 员工的数组在快照之间共享，按槽位原地替换。
+ */
+@Component
+public class EmployeeFacetIndex implements EmployeeDirectory.ChangeListener {
+
+    /**
+     * 支持筛选的维度及取值方式，顺序即返回结果中维度的顺序
+     */
+    public static final Map<String, Function<Employee, String>> FACETS;
+
+    static {
+        Map<String, Function<Employee, String>> facets = new LinkedHashMap<>();
+        facets.put("dept", Employee::getDept);
+        facets.put("pos", Employee::getPos);
+        facets.put("role", Employee::getRole);
+        facets.put("status", Employee::getStatus);
+        FACETS = Collections.unmodifiableMap(facets);
+    }
+
+    /**
+     * 快照：全部员工的位图、维度 -> 取值 -> 位图、以主键为下标的员工数组。
+     * 位图不可变；byId 只在主键超出长度时扩容成新数组，否则由后续快照原地写入对应槽位，
+     * 旧快照的读者可能看到更新后的员工。删除员工不清空槽位，旧快照的 all 仍能读到它，新快照的 all 已不含该主键
+     */
+    private record Snapshot(RoaringBitmap all,
+                            Map<String, Map<String, RoaringBitmap>> bitmaps,
+                            Employee[] byId) {
+
+        Employee get(int id) {
+            return id >= 0 && id < byId.length ? byId[id] : null;
+        }
+    }
+
+    /**
+     * 筛选结果
+     * @param employees 当前页员工，按主键升序
+     * @param total 满足全部条件的员工数
+     * @param hasMore 之后是否还有满足条件的员工
+     * @param facetCounts 维度 -> 取值 -> 人数。某维度的人数只应用其他维度的条件，切换该维度的取值时可以直接看到结果数
+     */
+    public record Result(List<Employee> employees, int total, boolean hasMore,
+                         Map<String, Map<String, Integer>> facetCounts) {
+    }
+
+    private volatile Snapshot snapshot;
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * 按维度筛选员工
+     * @param filters 维度 -> 可选取值，同一维度内为"或"，维度之间为"且"；值为空的维度不参与筛选
+     * @param afterId 只返回主键大于此值的员工，第一页传 null
+     * @param limit 最多返回的员工数
+     * @return 索引尚未就绪时返回 null，由调用方回退
+     * @throws IllegalArgumentException 如果维度名不受支持
+     */
+    public Result query(Map<String, ? extends Collection<String>> filters, Integer afterId, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+
+        // 每个有条件的维度先求取值位图的并集
+        Map<String, RoaringBitmap> masks = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Collection<String>> filter : filters.entrySet()) {
+            if (!FACETS.containsKey(filter.getKey())) {
+                throw new IllegalArgumentException("不支持的筛选字段: " + filter.getKey());
+            }
+            if (filter.getValue() == null || filter.getValue().isEmpty()) {
+                continue;
+            }
+            Map<String, RoaringBitmap> values = current.bitmaps().get(filter.getKey());
+            List<RoaringBitmap> selected = new ArrayList<>(filter.getValue().size());
+            for (String value : filter.getValue()) {
+                RoaringBitmap bitmap = values.get(value);
+                if (bitmap != null) {
+                    selected.add(bitmap);
+                }
+            }
+            masks.put(filter.getKey(), selected.isEmpty() ? new RoaringBitmap() : FastAggregation.or(selected.iterator()));
+        }
+
+        RoaringBitmap matched = intersect(current.all(), masks, null);
+
+        // 各维度取值的人数：应用除本维度以外的条件
+        Map<String, Map<String, Integer>> facetCounts = new LinkedHashMap<>();
+        for (String facet : FACETS.keySet()) {
+            RoaringBitmap base = masks.containsKey(facet) ? intersect(current.all(), masks, facet) : matched;
+            boolean unfiltered = base == current.all();
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            current.bitmaps().get(facet).forEach((value, bitmap) ->
+                counts.put(value, unfiltered ? bitmap.getCardinality() : RoaringBitmap.andCardinality(base, bitmap)));
+            facetCounts.put(facet, counts);
+        }
+
+        List<Employee> employees = new ArrayList<>(Math.min(limit, matched.getCardinality()));
+        PeekableIntIterator iterator = matched.getIntIterator();
+        if (afterId != null) {
+            iterator.advanceIfNeeded(afterId + 1);
+        }
+        while (iterator.hasNext() && employees.size() < limit) {
+            employees.add(current.get(iterator.next()));
+        }
+        return new Result(employees, matched.getCardinality(), iterator.hasNext(), facetCounts);
+    }
+
+    /**
+     * 某个维度各取值的人数，索引尚未就绪时返回 null
+     */
+    public Map<String, Integer> counts(String facet) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        current.bitmaps().get(facet).forEach((value, bitmap) -> counts.put(value, bitmap.getCardinality()));
+        return counts;
+    }
+
+    @Override
+    public synchronized void onReload(List<Employee> employees) {
+        RoaringBitmap all = new RoaringBitmap();
+        Map<String, Map<String, RoaringBitmap>> bitmaps = new LinkedHashMap<>();
+        FACETS.keySet().forEach(facet -> bitmaps.put(facet, new TreeMap<>()));
+        int maxId = employees.stream().map(Employee::getId).filter(Objects::nonNull).max(Integer::compare).orElse(0);
+        Employee[] byId = new Employee[capacity(maxId)];
+        for (Employee employee : employees) {
+            if (employee.getId() == null || employee.getId() < 0) {
+                continue;
+            }
+            all.add(employee.getId());
+            byId[employee.getId()] = employee;
+            FACETS.forEach((facet, getter) -> {
+                String value = getter.apply(employee);
+                if (value != null && !value.isEmpty()) {
+                    bitmaps.get(facet).computeIfAbsent(value, key -> new RoaringBitmap()).add(employee.getId());
+                }
+            });
+        }
+        all.runOptimize();
+        bitmaps.values().forEach(values -> values.values().forEach(RoaringBitmap::runOptimize));
+        snapshot = new Snapshot(all, freeze(bitmaps), byId);
+    }
+
+    @Override
+    public synchronized void onChanged(Employee before, Employee after) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return; // 尚未加载，下次全量加载会包含这次修改
+        }
+        Integer id = after != null ? after.getId() : before.getId();
+        if (id == null || id < 0) {
+            return;
+        }
+
+        // 员工集合不变（普通编辑）时 all 与旧快照共享
+        RoaringBitmap all = current.all();
+        if (after != null && !all.contains(id)) {
+            all = all.clone();
+            all.add(id);
+        } else if (after == null && all.contains(id)) {
+            all = all.clone();
+            all.remove(id);
+        }
+
+        // 新快照发布前写入槽位；超出长度时才复制数组
+        Employee[] byId = current.byId();
+        if (after != null) {
+            if (id >= byId.length) {
+                byId = Arrays.copyOf(byId, capacity(id));
+            }
+            byId[id] = after;
+        }
+
+        // 只复制取值发生变化的位图，其余位图与旧快照共享
+        Map<String, Map<String, RoaringBitmap>> bitmaps = new LinkedHashMap<>();
+        FACETS.forEach((facet, getter) -> {
+            Map<String, RoaringBitmap> values = current.bitmaps().get(facet);
+            String oldValue = before != null ? getter.apply(before) : null;
+            String newValue = after != null ? getter.apply(after) : null;
+            if (Objects.equals(blankToNull(oldValue), blankToNull(newValue))) {
+                bitmaps.put(facet, values);
+                return;
+            }
+            Map<String, RoaringBitmap> next = new TreeMap<>(values);
+            if (oldValue != null && next.containsKey(oldValue)) {
+                RoaringBitmap bitmap = next.get(oldValue).clone();
+                bitmap.remove(id);
+                if (bitmap.isEmpty()) {
+                    next.remove(oldValue);
+                } else {
+                    next.put(oldValue, bitmap);
+                }
+            }
+            if (newValue != null && !newValue.isEmpty()) {
+                RoaringBitmap bitmap = next.containsKey(newValue) ? next.get(newValue).clone() : new RoaringBitmap();
+                bitmap.add(id);
+                next.put(newValue, bitmap);
+            }
+            bitmaps.put(facet, Collections.unmodifiableMap(next));
+        });
+        snapshot = new Snapshot(all, Collections.unmodifiableMap(bitmaps), byId);
+    }
+
+    /**
+     * 能容纳主键 maxId 的数组长度，预留一半余量，新增员工时不必每次扩容
+     */
+    private static int capacity(int maxId) {
+        return maxId + (maxId >> 1) + 16;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 全部员工与各维度条件的交集
+     * @param excludedFacet 不参与求交的维度，可为 null
+     * @return 没有任何条件参与时直接返回 all 本身
+     */
+    private RoaringBitmap intersect(RoaringBitmap all, Map<String, RoaringBitmap> masks, String excludedFacet) {
+        List<RoaringBitmap> applied = new ArrayList<>(masks.size());
+        masks.forEach((facet, mask) -> {
+            if (!facet.equals(excludedFacet)) {
+                applied.add(mask);
+            }
+        });
+        if (applied.isEmpty()) {
+            return all;
+        }
+        return applied.size() == 1 ? applied.get(0) : FastAggregation.and(applied.iterator());
+    }
+
+    private Map<String, Map<String, RoaringBitmap>> freeze(Map<String, Map<String, RoaringBitmap>> bitmaps) {
+        Map<String, Map<String, RoaringBitmap>> frozen = new LinkedHashMap<>();
+        bitmaps.forEach((facet, values) -> frozen.put(facet, Collections.unmodifiableMap(values)));
+        return Collections.unmodifiableMap(frozen);
+    }
+}
@@ -0,0 +1,423 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Employee;
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 员工姓名的内存倒排索引，替代 name LIKE '%关键词%' 的全表扫描。
+ * 每个员工占一个整数槽位，倒排表是按槽位升序排列的 int 数组：
+ * <ul>
+ *   <li>"c:" 姓名（小写）的单字和相邻两字，关键词两字以上时对其各个二元组的倒排表求交集，再核对姓名确实包含关键词；</li>
+ *   <li>"p:" 全拼的前缀，如 张三 -> z、zh、zha ... zhangsan；</li>
+ *   <li>"i:" 拼音首字母的前缀，如 张三 -> z、zs；</li>
+ *   <li>"d:" 部门，和姓名条件求交集。</li>
+ * </ul>
+ * 由 {@link EmployeeDirectory} 的变更回调维护：全量加载时重建，单个员工变化时只替换相关键的倒排表（写时复制），
+ * 读取不加锁。
+ */
+@Component
+public class EmployeeNameIndex implements EmployeeDirectory.ChangeListener {
+
+    // 全拼前缀最多索引的长度，更长的关键词用此长度的前缀定位后再逐个核对
+    private static final int PINYIN_PREFIX_CAP = 16;
+
+    private static final int[] EMPTY = new int[0];
+
+    private static final HanyuPinyinOutputFormat PINYIN_FORMAT = new HanyuPinyinOutputFormat();
+    private static final Map<Character, String> PINYIN_CACHE = new ConcurrentHashMap<>();
+
+    static {
+        PINYIN_FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        PINYIN_FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        PINYIN_FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    /**
+     * 槽位中的员工及预先计算的小写姓名和拼音
+     */
+    private record Entry(Employee employee, String lowerName, String pinyin, String initials) {
+    }
+
+    private volatile Entry[] entries = new Entry[0];
+    private final Map<String, int[]> postings = new ConcurrentHashMap<>();
+
+    // 以下仅在写锁（本对象监视器）内访问
+    private final Map<String, Integer> slotByEmpId = new HashMap<>();
+    private final List<Integer> freeSlots = new ArrayList<>();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 按姓名（汉字、全拼前缀或首字母前缀）和部门搜索，结果按主键排序
+     * @param name 姓名关键词，可为空
+     * @param dept 部门，精确匹配，可为空
+     * @return 索引尚未就绪时返回 null，由调用方回退到数据库
+     */
+    public List<Employee> search(String name, String dept) {
+        if (!ready) {
+            return null;
+        }
+        Entry[] current = entries;
+        String query = name != null ? name.trim().toLowerCase(Locale.ROOT) : "";
+        boolean hasDept = dept != null && !dept.isEmpty();
+
+        int[] candidates;
+        if (query.isEmpty()) {
+            candidates = hasDept ? postings.getOrDefault("d:" + dept, EMPTY) : null;
+        } else {
+            candidates = union(matchName(query, current), matchPinyin(query, current));
+            if (hasDept) {
+                candidates = intersect(candidates, postings.getOrDefault("d:" + dept, EMPTY));
+            }
+        }
+
+        List<Employee> result = new ArrayList<>(candidates != null ? candidates.length : current.length);
+        if (candidates == null) {
+            for (Entry entry : current) {
+                if (entry != null) {
+                    result.add(entry.employee());
+                }
+            }
+        } else {
+            for (int slot : candidates) {
+                Entry entry = slot < current.length ? current[slot] : null;
+                // 并发更新期间倒排表与槽位可能短暂不一致，这里再核对一次部门
+                if (entry != null && (!hasDept || dept.equals(entry.employee().getDept()))) {
+                    result.add(entry.employee());
+                }
+            }
+        }
+        // 全量加载时槽位按主键顺序分配，通常已经有序，只有增量插入复用槽位后才需要排序
+        if (!isSortedById(result)) {
+            result.sort(Comparator.comparing(Employee::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        }
+        return result;
+    }
+
+    private static boolean isSortedById(List<Employee> employees) {
+        for (int i = 1; i < employees.size(); i++) {
+            Integer previous = employees.get(i - 1).getId();
+            Integer next = employees.get(i).getId();
+            if (previous == null || next == null || previous > next) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void onReload(List<Employee> employees) {
+        Map<String, IntBuffer> building = new HashMap<>();
+        Entry[] next = new Entry[employees.size()];
+        slotByEmpId.clear();
+        freeSlots.clear();
+        for (int slot = 0; slot < employees.size(); slot++) {
+            Entry entry = toEntry(employees.get(slot));
+            next[slot] = entry;
+            slotByEmpId.put(entry.employee().getEmpId(), slot);
+            for (String key : keysOf(entry)) {
+                building.computeIfAbsent(key, k -> new IntBuffer()).add(slot);
+            }
+        }
+        Map<String, int[]> built = new HashMap<>(building.size() * 2);
+        building.forEach((key, slots) -> built.put(key, slots.toArray()));
+
+        entries = next;
+        postings.keySet().retainAll(built.keySet());
+        postings.putAll(built);
+        ready = true;
+    }
+
+    @Override
+    public synchronized void onChanged(Employee before, Employee after) {
+        if (!ready) {
+            return;
+        }
+        String empId = after != null ? after.getEmpId() : before.getEmpId();
+        Integer existingSlot = slotByEmpId.get(empId);
+        Entry[] current = entries;
+
+        Set<String> oldKeys = existingSlot != null && current[existingSlot] != null
+            ? keysOf(current[existingSlot]) : Set.of();
+        if (after == null) {
+            if (existingSlot == null) {
+                return;
+            }
+            for (String key : oldKeys) {
+                removeFromPosting(key, existingSlot);
+            }
+            current[existingSlot] = null;
+            slotByEmpId.remove(empId);
+            freeSlots.add(existingSlot);
+            return;
+        }
+
+        int slot;
+        if (existingSlot != null) {
+            slot = existingSlot;
+        } else if (!freeSlots.isEmpty()) {
+            slot = freeSlots.remove(freeSlots.size() - 1);
+        } else {
+            slot = current.length;
+            current = Arrays.copyOf(current, Math.max(16, current.length + (current.length >> 1)));
+            for (int i = slot + 1; i < current.length; i++) {
+                freeSlots.add(i);
+            }
+        }
+        Entry entry = toEntry(after);
+        Set<String> newKeys = keysOf(entry);
+        for (String key : oldKeys) {
+            if (!newKeys.contains(key)) {
+                removeFromPosting(key, slot);
+            }
+        }
+        // 先放入槽位再发布倒排表，读取方通过倒排表找到槽位时一定能看到新员工
+        current[slot] = entry;
+        entries = current;
+        slotByEmpId.put(empId, slot);
+        for (String key : newKeys) {
+            if (!oldKeys.contains(key)) {
+                addToPosting(key, slot);
+            }
+        }
+    }
+
+    /**
+     * 全量构建倒排表时使用的可增长 int 数组，避免装箱
+     */
+    private static final class IntBuffer {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private int[] matchName(String query, Entry[] current) {
+        if (query.length() == 1) {
+            return postings.getOrDefault("c:" + query, EMPTY);
+        }
+        // 从最短的倒排表开始求交集，结果再核对姓名包含完整关键词
+        List<int[]> lists = new ArrayList<>();
+        for (int i = 0; i + 2 <= query.length(); i++) {
+            lists.add(postings.getOrDefault("c:" + query.substring(i, i + 2), EMPTY));
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return filter(result, current, entry -> entry.lowerName().contains(query));
+    }
+
+    private int[] matchPinyin(String query, Entry[] current) {
+        if (!isLatin(query)) {
+            return EMPTY;
+        }
+        int[] byInitials = postings.getOrDefault("i:" + query, EMPTY);
+        int[] byPinyin;
+        if (query.length() <= PINYIN_PREFIX_CAP) {
+            byPinyin = postings.getOrDefault("p:" + query, EMPTY);
+        } else {
+            byPinyin = filter(postings.getOrDefault("p:" + query.substring(0, PINYIN_PREFIX_CAP), EMPTY),
+                current, entry -> entry.pinyin().startsWith(query));
+        }
+        return union(byPinyin, byInitials);
+    }
+
+    private Set<String> keysOf(Entry entry) {
+        Set<String> keys = new LinkedHashSet<>();
+        String name = entry.lowerName();
+        for (int i = 0; i < name.length(); i++) {
+            keys.add("c:" + name.charAt(i));
+            if (i + 2 <= name.length()) {
+                keys.add("c:" + name.substring(i, i + 2));
+            }
+        }
+        String pinyin = entry.pinyin();
+        for (int i = 1; i <= Math.min(pinyin.length(), PINYIN_PREFIX_CAP); i++) {
+            keys.add("p:" + pinyin.substring(0, i));
+        }
+        String initials = entry.initials();
+        for (int i = 1; i <= initials.length(); i++) {
+            keys.add("i:" + initials.substring(0, i));
+        }
+        String dept = entry.employee().getDept();
+        if (dept != null && !dept.isEmpty()) {
+            keys.add("d:" + dept);
+        }
+        return keys;
+    }
+
+    private Entry toEntry(Employee employee) {
+        String name = employee.getName() != null ? employee.getName().toLowerCase(Locale.ROOT) : "";
+        StringBuilder pinyin = new StringBuilder();
+        StringBuilder initials = new StringBuilder();
+        boolean hasHan = false;
+        for (char c : name.toCharArray()) {
+            String syllable = toPinyin(c);
+            if (syllable != null) {
+                hasHan = true;
+                pinyin.append(syllable);
+                initials.append(syllable.charAt(0));
+            } else if (Character.isLetterOrDigit(c) && c < 128) {
+                pinyin.append(c);
+                initials.append(c);
+            }
+        }
+        // 不含汉字的姓名没有拼音键，按姓名本身的 n-gram 检索即可
+        return hasHan
+            ? new Entry(employee, name, pinyin.toString(), initials.toString())
+            : new Entry(employee, name, "", "");
+    }
+
+    /**
+     * 单个汉字的拼音（多音字取第一个读音），非汉字返回 null。
+     * 常用姓名用字有限，按字缓存，避免全量重建时对每个字重复转换
+     */
+    private static String toPinyin(char c) {
+        if (Character.UnicodeScript.of(c) != Character.UnicodeScript.HAN) {
+            return null;
+        }
+        String cached = PINYIN_CACHE.get(c);
+        if (cached == null) {
+            cached = "";
+            try {
+                String[] readings = PinyinHelper.toHanyuPinyinStringArray(c, PINYIN_FORMAT);
+                if (readings != null && readings.length > 0 && readings[0] != null) {
+                    cached = readings[0];
+                }
+            } catch (BadHanyuPinyinOutputFormatCombination e) {
+                // 格式组合固定且合法，不会发生
+            }
+            PINYIN_CACHE.put(c, cached);
+        }
+        return cached.isEmpty() ? null : cached;
+    }
+
+    private static boolean isLatin(String query) {
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addToPosting(String key, int slot) {
+        int[] current = postings.getOrDefault(key, EMPTY);
+        int pos = Arrays.binarySearch(current, slot);
+        if (pos >= 0) {
+            return;
+        }
+        int insertAt = -pos - 1;
+        int[] next = new int[current.length + 1];
+        System.arraycopy(current, 0, next, 0, insertAt);
+        next[insertAt] = slot;
+        System.arraycopy(current, insertAt, next, insertAt + 1, current.length - insertAt);
+        postings.put(key, next);
+    }
+
+    private void removeFromPosting(String key, int slot) {
+        int[] current = postings.get(key);
+        if (current == null) {
+            return;
+        }
+        int pos = Arrays.binarySearch(current, slot);
+        if (pos < 0) {
+            return;
+        }
+        if (current.length == 1) {
+            postings.remove(key);
+            return;
+        }
+        int[] next = new int[current.length - 1];
+        System.arraycopy(current, 0, next, 0, pos);
+        System.arraycopy(current, pos + 1, next, pos, current.length - pos - 1);
+        postings.put(key, next);
+    }
+
+    private static int[] filter(int[] slots, Entry[] current, Predicate<Entry> predicate) {
+        int[] out = new int[slots.length];
+        int n = 0;
+        for (int slot : slots) {
+            Entry entry = slot < current.length ? current[slot] : null;
+            if (entry != null && predicate.test(entry)) {
+                out[n++] = slot;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || (i < a.length && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,271 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Salary;
+import com.a0615.mapper.SalaryMapper;
+import com.a0615.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 每个员工最新一条薪资的内存索引。
+ * 启动后在后台线程加载一次，之后由 SalaryService 的每次写入在事务提交后增量维护，
+ * 薪资统计接口直接基于该索引在内存中计算，不再扫描 salaries 表。
+ * 全量加载在新的 Map 中完成后整体替换，查询数据库时不持有本对象的锁；加载和按员工重新查询期间的增量修改记入日志，
+ * 查询结束后在查询结果上重放，不会被较早的查询结果覆盖。
+ */
+@Component
+public class LatestSalaryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestSalaryIndex.class);
+
+    /**
+     * 紧凑的最新薪资记录，金额以分为单位保存
+     */
+    public record LatestSalary(Long id, String empId, String month, long totalCents) {
+
+        public BigDecimal totalSalary() {
+            return BigDecimal.valueOf(totalCents, 2);
+        }
+
+        static LatestSalary of(Salary salary) {
+            BigDecimal total = salary.getTotalSalary() != null ? salary.getTotalSalary() : BigDecimal.ZERO;
+            return new LatestSalary(salary.getId(), salary.getEmpId(), salary.getMonth(),
+                total.movePointRight(2).longValue());
+        }
+
+        boolean isNotOlderThan(LatestSalary other) {
+            return other == null || month.compareTo(other.month) >= 0;
+        }
+    }
+
+    /**
+     * 最新薪资变化的监听器（例如部门汇总）。回调在本索引的锁内按顺序执行
+     */
+    public interface ChangeListener {
+
+        /**
+         * 全量加载完成
+         */
+        void onReload(Map<String, LatestSalary> latestByEmpId);
+
+        /**
+         * 某员工的最新薪资变化，latest 为 null 表示该员工已没有薪资记录
+         */
+        void onChanged(String empId, LatestSalary latest);
+    }
+
+    /**
+     * 查询数据库期间发生的一次修改：latest 为新增的候选记录（按月份合并），
+     * 或 replace 为 true 时是按员工重新查询得到的结果（直接替换，null 表示已没有薪资记录）
+     */
+    private record Change(String empId, LatestSalary latest, boolean replace) {
+    }
+
+    @Autowired
+    private SalaryMapper salaryMapper;
+
+    @Autowired(required = false)
+    private List<ChangeListener> listeners = Collections.emptyList();
+
+    // 全量加载时整体替换；增量修改只在本对象监视器内进行
+    private volatile Map<String, LatestSalary> byEmpId = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    // 正在查询数据库的加载和按员工刷新各自的修改日志，仅在本对象监视器内访问
+    private final List<List<Change>> journals = new ArrayList<>();
+
+    // 保证同时只有一次全量加载、一次按员工刷新
+    private final Object loadLock = new Object();
+    private final Object refreshLock = new Object();
+
+    /**
+     * 应用启动完成后在后台加载，不阻塞启动；加载完成前统计接口回退到数据库查询
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Thread loader = new Thread(this::reload, "latest-salary-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * 从数据库全量重新加载索引：在新的 Map 中构建，重放加载期间的修改后整体替换，
+     * 加载期间统计接口仍读取原索引
+     */
+    public void reload() {
+        synchronized (loadLock) {
+            List<Change> journal = startJournal();
+            try {
+                long start = System.currentTimeMillis();
+                List<Salary> latestSalaries = salaryMapper.selectLatestPerEmployee();
+                Map<String, LatestSalary> next = new ConcurrentHashMap<>(latestSalaries.size() * 2);
+                for (Salary salary : latestSalaries) {
+                    mergeNewer(next, LatestSalary.of(salary));
+                }
+                synchronized (this) {
+                    stopJournal(journal);
+                    for (Change change : journal) {
+                        apply(next, change);
+                    }
+                    byEmpId = next;
+                    ready = true;
+                    for (ChangeListener listener : listeners) {
+                        listener.onReload(Collections.unmodifiableMap(next));
+                    }
+                }
+                logger.info("LatestSalaryIndex: loaded {} employees in {} ms",
+                    next.size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.warn("LatestSalaryIndex: load failed, statistics will fall back to database queries: {}", e.getMessage());
+            } finally {
+                stopJournal(journal);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 当前所有员工的最新薪资。索引尚未就绪时直接查询数据库（一次集合查询）。
+     */
+    public Collection<LatestSalary> snapshot() {
+        if (ready) {
+            return Collections.unmodifiableCollection(byEmpId.values());
+        }
+        return salaryMapper.selectLatestPerEmployee().stream()
+            .map(LatestSalary::of)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 按员工工号索引的当前视图，索引未就绪时同样回退到数据库
+     */
+    public Map<String, LatestSalary> snapshotByEmpId() {
+        if (ready) {
+            return Collections.unmodifiableMap(byEmpId);
+        }
+        return snapshot().stream()
+            .collect(Collectors.toMap(LatestSalary::empId, s -> s, (a, b) -> a.isNotOlderThan(b) ? a : b));
+    }
+
+    /**
+     * 新增薪资后调用：月份不早于现有最新记录的才会替换
+     */
+    public void onSaved(Collection<Salary> salaries) {
+        List<LatestSalary> candidates = salaries.stream()
+            .filter(salary -> salary.getEmpId() != null && salary.getMonth() != null)
+            .map(LatestSalary::of)
+            .collect(Collectors.toList());
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                for (LatestSalary candidate : candidates) {
+                    record(new Change(candidate.empId(), candidate, false));
+                    if (mergeNewer(byEmpId, candidate)) {
+                        listeners.forEach(listener -> listener.onChanged(candidate.empId(), candidate));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 修改/删除薪资后调用：这些员工的最新记录可能回退到更早的月份，只能按员工重新查询
+     */
+    public void onChanged(Collection<String> empIds) {
+        Set<String> affected = new HashSet<>(empIds);
+        affected.remove(null);
+        if (affected.isEmpty()) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> refresh(affected));
+    }
+
+    /**
+     * 按员工重新查询最新记录。查询不持有本对象的锁，查询期间新增的记录在结果上按月份重新合并，不会被覆盖
+     */
+    private void refresh(Set<String> empIds) {
+        synchronized (refreshLock) {
+            List<Change> journal = startJournal();
+            try {
+                List<Salary> latestSalaries = salaryMapper.selectLatestByEmpIds(empIds);
+                Map<String, LatestSalary> found = new HashMap<>();
+                latestSalaries.forEach(salary -> found.put(salary.getEmpId(), LatestSalary.of(salary)));
+                synchronized (this) {
+                    stopJournal(journal);
+                    for (String empId : empIds) {
+                        Change change = new Change(empId, found.get(empId), true);
+                        record(change);
+                        apply(byEmpId, change);
+                    }
+                    for (Change change : journal) {
+                        if (empIds.contains(change.empId())) {
+                            apply(byEmpId, change);
+                        }
+                    }
+                    for (String empId : empIds) {
+                        LatestSalary latest = byEmpId.get(empId);
+                        listeners.forEach(listener -> listener.onChanged(empId, latest));
+                    }
+                }
+            } finally {
+                stopJournal(journal);
+            }
+        }
+    }
+
+    private synchronized List<Change> startJournal() {
+        List<Change> journal = new ArrayList<>();
+        journals.add(journal);
+        return journal;
+    }
+
+    private synchronized void stopJournal(List<Change> journal) {
+        journals.removeIf(active -> active == journal); // 按引用移除，内容相同的日志是不同的查询
+    }
+
+    /**
+     * 记入所有正在查询数据库的加载或刷新的日志，调用方持有本对象监视器
+     */
+    private void record(Change change) {
+        for (List<Change> journal : journals) {
+            journal.add(change);
+        }
+    }
+
+    private static void apply(Map<String, LatestSalary> target, Change change) {
+        if (!change.replace()) {
+            mergeNewer(target, change.latest());
+        } else if (change.latest() != null) {
+            target.put(change.empId(), change.latest());
+        } else {
+            target.remove(change.empId());
+        }
+    }
+
+    /**
+     * @return candidate 是否成为该员工的最新记录
+     */
+    private static boolean mergeNewer(Map<String, LatestSalary> target, LatestSalary candidate) {
+        return target.merge(candidate.empId(), candidate,
+            (existing, incoming) -> incoming.isNotOlderThan(existing) ? incoming : existing) == candidate;
+    }
+}
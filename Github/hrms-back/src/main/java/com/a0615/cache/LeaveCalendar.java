@@ -0,0 +1,496 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Employee;
+import com.a0615.entity.LeaveApplication;
+import com.a0615.mapper.LeaveApplicationMapper;
+import com.a0615.util.TransactionUtils;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * 请假日历：已批准和待审批请假的日期区间索引。
+ * 每个员工、每个部门以及全体各有一棵区间树（按开始日期排序的树堆，每个节点记录子树中最晚的结束日期），
+ * 判断某员工的新申请是否与已有申请重叠、查询某部门某段时间内的请假都是 O(log n) 加上命中的区间数。
+ * 请假记录定时全量加载（查询时不持有锁，加载期间的增量修改记入日志，加载完成后在新数据上重放）；
+ * 提交、审核、删除时由 LeaveApplicationService 增量维护；员工所属部门来自 {@link EmployeeDirectory} 的变更回调，员工调动部门时其请假随之移动。
+ */
+@Component
+public class LeaveCalendar implements EmployeeDirectory.ChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaveCalendar.class);
+
+    /**
+     * 视为已批准的状态，历史数据中存在多种写法
+     */
+    public static final Set<String> APPROVED_STATUSES = Set.of("批准", "已批准", "approved");
+
+    /**
+     * 视为待审批的状态
+     */
+    public static final Set<String> PENDING_STATUSES = Set.of("待审批", "待审核", "pending");
+
+    /**
+     * 占用日期的全部状态（已批准和待审批）
+     */
+    public static final List<String> ACTIVE_STATUSES = List.of("批准", "已批准", "approved", "待审批", "待审核", "pending");
+
+    /**
+     * 占用日期的请假（已批准或待审批），未批准的申请不进入索引
+     */
+    public record Leave(Long id, String empId, LocalDate startDate, LocalDate endDate, boolean approved) {
+
+        /**
+         * @return 申请未占用日期（未批准或日期不完整）时返回 null
+         */
+        public static Leave of(LeaveApplication application) {
+            boolean approved = APPROVED_STATUSES.contains(application.getStatus());
+            if (!approved && !PENDING_STATUSES.contains(application.getStatus())
+                || application.getStartDate() == null || application.getEndDate() == null) {
+                return null;
+            }
+            return new Leave(application.getId(), application.getEmpId(),
+                application.getStartDate(), application.getEndDate(), approved);
+        }
+    }
+
+    @Autowired
+    private LeaveApplicationMapper leaveApplicationMapper;
+
+    // 以下全部在本对象监视器内访问
+    private final Map<Long, Leave> byId = new HashMap<>();
+    private final Map<String, IntervalTree> byEmpId = new HashMap<>();
+    private final Map<String, IntervalTree> byDept = new HashMap<>();
+    private IntervalTree all = new IntervalTree();
+    private final Map<String, String> deptByEmpId = new HashMap<>();
+    private boolean leavesLoaded = false;
+    private boolean employeesLoaded = false;
+    // addIfNoOverlap 预占、所在事务尚未结束的请假；它们对加载查询不可见，重建时要保留
+    private final Map<Long, Leave> reserved = new HashMap<>();
+    // 加载期间的修改：申请ID -> 修改后的请假（移除时为 null），按发生顺序；不在加载时为 null
+    private Map<Long, Leave> journal;
+
+    // 保证同时只有一次加载
+    private final Object loadLock = new Object();
+
+    /**
+     * 定时全量加载占用日期的请假，兜底处理绕过 LeaveApplicationService 的修改。
+     * 数据库查询不持有本对象的锁，重叠检查和增量维护在加载期间照常进行
+     */
+    @Scheduled(fixedDelayString = "${leave.calendar.refresh-ms:300000}")
+    public void reload() {
+        synchronized (loadLock) {
+            try {
+                long start = System.currentTimeMillis();
+                startJournal();
+                List<LeaveApplication> applications = leaveApplicationMapper.selectList(
+                    new QueryWrapper<LeaveApplication>().in("status", ACTIVE_STATUSES));
+                rebuild(applications);
+                logger.info("LeaveCalendar: loaded {} leave applications in {} ms",
+                    applications.size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                stopJournal();
+                logger.warn("LeaveCalendar: load failed, leave overlap checks will fall back to database queries: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 请假已加载，可以用于重叠检查
+     */
+    public synchronized boolean isReady() {
+        return leavesLoaded;
+    }
+
+    /**
+     * 与 [startDate, endDate] 重叠的该员工的任一请假
+     * @param excludeId 不参与比较的申请ID，可为 null
+     * @return 没有重叠时返回 null。调用前应先确认 {@link #isReady()}
+     */
+    public synchronized Leave findOverlap(String empId, LocalDate startDate, LocalDate endDate, Long excludeId) {
+        IntervalTree tree = byEmpId.get(empId);
+        if (tree == null) {
+            return null;
+        }
+        Leave overlap = tree.anyOverlap(startDate.toEpochDay(), endDate.toEpochDay());
+        if (overlap == null || !overlap.id().equals(excludeId)) {
+            return overlap;
+        }
+        // 命中的正是被排除的申请，退回到逐个检查重叠的区间
+        List<Leave> overlaps = new ArrayList<>();
+        tree.collect(startDate.toEpochDay(), endDate.toEpochDay(), overlaps);
+        return overlaps.stream().filter(leave -> !leave.id().equals(excludeId)).findFirst().orElse(null);
+    }
+
+    /**
+     * 检查重叠与加入索引在同一把锁内完成，同时提交的两个重叠申请只有一个能成功。
+     * 申请必须已插入数据库（有ID）；所在事务回滚时通过 {@link TransactionUtils#afterRollback} 移除。
+     * @return 与已有请假重叠时返回其中一个且不加入索引，否则返回 null
+     */
+    public synchronized Leave addIfNoOverlap(LeaveApplication application) {
+        Leave leave = Leave.of(application);
+        if (leave == null) {
+            return null;
+        }
+        Leave overlap = findOverlap(leave.empId(), leave.startDate(), leave.endDate(), leave.id());
+        if (overlap != null) {
+            return overlap;
+        }
+        Long id = leave.id();
+        replace(id, leave);
+        reserved.put(id, leave);
+        TransactionUtils.afterCommit(() -> confirm(id, leave)); // 没有活动事务时立即确认
+        TransactionUtils.afterRollback(() -> cancel(id));
+        return null;
+    }
+
+    /**
+     * 某部门（dept 为 null 时为全体）与 [from, to] 重叠的请假
+     * @return 索引尚未就绪时返回 null，由调用方回退到数据库
+     */
+    public synchronized List<Leave> overlapping(String dept, LocalDate from, LocalDate to) {
+        if (!leavesLoaded || dept != null && !employeesLoaded) {
+            return null;
+        }
+        IntervalTree tree = dept != null ? byDept.get(dept) : all;
+        List<Leave> result = new ArrayList<>();
+        if (tree != null) {
+            tree.collect(from.toEpochDay(), to.toEpochDay(), result);
+        }
+        return result;
+    }
+
+    /**
+     * 新增或审核请假后调用，提交后按新状态替换该申请
+     */
+    public void onSaved(LeaveApplication application) {
+        Long id = application.getId();
+        Leave leave = Leave.of(application);
+        TransactionUtils.afterCommit(() -> replace(id, leave));
+    }
+
+    /**
+     * 删除请假后调用，提交后从索引移除
+     */
+    public void onDeleted(Long id) {
+        TransactionUtils.afterCommit(() -> remove(id));
+    }
+
+    @Override
+    public synchronized void onReload(List<Employee> employees) {
+        deptByEmpId.clear();
+        for (Employee employee : employees) {
+            if (employee.getDept() != null && !employee.getDept().isEmpty()) {
+                deptByEmpId.put(employee.getEmpId(), employee.getDept());
+            }
+        }
+        employeesLoaded = true;
+        byDept.clear();
+        byId.values().forEach(leave -> treeOf(byDept, deptByEmpId.get(leave.empId())).insert(leave));
+    }
+
+    @Override
+    public synchronized void onChanged(Employee before, Employee after) {
+        if (after == null) {
+            // 员工删除时请假记录随外键级联删除
+            IntervalTree tree = byEmpId.get(before.getEmpId());
+            if (tree != null) {
+                List<Leave> leaves = new ArrayList<>();
+                tree.forEach(leaves::add);
+                leaves.forEach(leave -> remove(leave.id()));
+            }
+            deptByEmpId.remove(before.getEmpId());
+            return;
+        }
+        String oldDept = deptByEmpId.get(after.getEmpId());
+        String newDept = after.getDept() != null && !after.getDept().isEmpty() ? after.getDept() : null;
+        if (newDept != null) {
+            deptByEmpId.put(after.getEmpId(), newDept);
+        } else {
+            deptByEmpId.remove(after.getEmpId());
+        }
+        IntervalTree tree = byEmpId.get(after.getEmpId());
+        if (tree != null && !Objects.equals(oldDept, newDept)) {
+            // 调动部门：该员工的请假从原部门的树移到新部门的树
+            tree.forEach(leave -> {
+                removeFrom(byDept, oldDept, leave);
+                treeOf(byDept, newDept).insert(leave);
+            });
+        }
+    }
+
+    private synchronized void startJournal() {
+        journal = new LinkedHashMap<>();
+    }
+
+    private synchronized void stopJournal() {
+        journal = null;
+    }
+
+    /**
+     * 用加载结果替换索引，再补回仍未结束的预占，并按顺序重放加载期间的修改
+     */
+    private synchronized void rebuild(List<LeaveApplication> applications) {
+        Map<Long, Leave> replay = journal != null ? journal : Map.of();
+        journal = null;
+        byId.clear();
+        byEmpId.clear();
+        byDept.clear();
+        all = new IntervalTree();
+        for (LeaveApplication application : applications) {
+            Leave leave = Leave.of(application);
+            if (leave != null) {
+                replace(leave.id(), leave);
+            }
+        }
+        reserved.forEach(this::replace);
+        replay.forEach(this::replace);
+        leavesLoaded = true;
+    }
+
+    /**
+     * 预占所在事务已提交，请假转为普通记录
+     */
+    private synchronized void confirm(Long id, Leave leave) {
+        reserved.remove(id);
+        if (journal != null) {
+            journal.put(id, leave); // 加载查询可能早于提交，没有看到这条记录
+        }
+    }
+
+    /**
+     * 预占所在事务已回滚，撤销预占
+     */
+    private synchronized void cancel(Long id) {
+        reserved.remove(id);
+        remove(id);
+    }
+
+    private synchronized void replace(Long id, Leave leave) {
+        remove(id);
+        if (leave == null) {
+            return;
+        }
+        if (journal != null) {
+            journal.put(id, leave);
+        }
+        byId.put(id, leave);
+        treeOf(byEmpId, leave.empId()).insert(leave);
+        treeOf(byDept, deptByEmpId.get(leave.empId())).insert(leave);
+        all.insert(leave);
+    }
+
+    private synchronized void remove(Long id) {
+        if (journal != null) {
+            journal.put(id, null);
+        }
+        Leave leave = byId.remove(id);
+        if (leave == null) {
+            return;
+        }
+        removeFrom(byEmpId, leave.empId(), leave);
+        removeFrom(byDept, deptByEmpId.get(leave.empId()), leave);
+        all.remove(leave);
+    }
+
+    /**
+     * 键为 null（例如员工没有部门）时返回一棵不保存的空树
+     */
+    private IntervalTree treeOf(Map<String, IntervalTree> trees, String key) {
+        return key != null ? trees.computeIfAbsent(key, k -> new IntervalTree()) : new IntervalTree();
+    }
+
+    private void removeFrom(Map<String, IntervalTree> trees, String key, Leave leave) {
+        IntervalTree tree = key != null ? trees.get(key) : null;
+        if (tree != null) {
+            tree.remove(leave);
+            if (tree.isEmpty()) {
+                trees.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 区间树：按 (开始日期, ID) 排序的树堆（随机优先级保持期望平衡），
+     * 每个节点记录子树中最晚的结束日期，用于跳过不可能重叠的子树。日期以纪元日表示。
+     * 不是线程安全的，由外层对象加锁。
+     */
+    private static final class IntervalTree {
+
+        private static final class Node {
+            final Leave leave;
+            final long start;
+            final long end;
+            final int priority = ThreadLocalRandom.current().nextInt();
+            Node left;
+            Node right;
+            long maxEnd;
+
+            Node(Leave leave) {
+                this.leave = leave;
+                this.start = leave.startDate().toEpochDay();
+                this.end = leave.endDate().toEpochDay();
+                this.maxEnd = end;
+            }
+        }
+
+        private Node root;
+
+        boolean isEmpty() {
+            return root == null;
+        }
+
+        void insert(Leave leave) {
+            root = insert(root, new Node(leave));
+        }
+
+        void remove(Leave leave) {
+            root = remove(root, leave.startDate().toEpochDay(), leave.id());
+        }
+
+        /**
+         * 任一与 [from, to] 重叠的区间：左子树的最晚结束日期不早于 from 时，若有重叠区间则左子树中必有一个，
+         * 否则只可能在右子树中，每层只走一边
+         */
+        Leave anyOverlap(long from, long to) {
+            Node node = root;
+            while (node != null && (node.start > to || node.end < from)) {
+                node = node.left != null && node.left.maxEnd >= from ? node.left : node.right;
+            }
+            return node != null ? node.leave : null;
+        }
+
+        /**
+         * 全部与 [from, to] 重叠的区间，按开始日期升序
+         */
+        void collect(long from, long to, List<Leave> out) {
+            collect(root, from, to, out);
+        }
+
+        void forEach(Consumer<Leave> action) {
+            forEach(root, action);
+        }
+
+        private static void collect(Node node, long from, long to, List<Leave> out) {
+            if (node == null || node.maxEnd < from) {
+                return;
+            }
+            collect(node.left, from, to, out);
+            if (node.start > to) {
+                return; // 右子树的开始日期更晚
+            }
+            if (node.end >= from) {
+                out.add(node.leave);
+            }
+            collect(node.right, from, to, out);
+        }
+
+        private static void forEach(Node node, Consumer<Leave> action) {
+            if (node != null) {
+                forEach(node.left, action);
+                action.accept(node.leave);
+                forEach(node.right, action);
+            }
+        }
+
+        private static Node insert(Node node, Node added) {
+            if (node == null) {
+                return added;
+            }
+            if (compare(added.start, added.leave.id(), node) < 0) {
+                node.left = insert(node.left, added);
+                if (node.left.priority > node.priority) {
+                    node = rotateRight(node);
+                }
+            } else {
+                node.right = insert(node.right, added);
+                if (node.right.priority > node.priority) {
+                    node = rotateLeft(node);
+                }
+            }
+            update(node);
+            return node;
+        }
+
+        private static Node remove(Node node, long start, Long id) {
+            if (node == null) {
+                return null;
+            }
+            int cmp = compare(start, id, node);
+            if (cmp < 0) {
+                node.left = remove(node.left, start, id);
+            } else if (cmp > 0) {
+                node.right = remove(node.right, start, id);
+            } else {
+                return merge(node.left, node.right);
+            }
+            update(node);
+            return node;
+        }
+
+        private static Node merge(Node a, Node b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                update(a);
+                return a;
+            }
+            b.left = merge(a, b.left);
+            update(b);
+            return b;
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            left.right = node;
+            update(node);
+            update(left);
+            return left;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            right.left = node;
+            update(node);
+            update(right);
+            return right;
+        }
+
+        private static void update(Node node) {
+            long maxEnd = node.end;
+            if (node.left != null) {
+                maxEnd = Math.max(maxEnd, node.left.maxEnd);
+            }
+            if (node.right != null) {
+                maxEnd = Math.max(maxEnd, node.right.maxEnd);
+            }
+            node.maxEnd = maxEnd;
+        }
+
+        private static int compare(long start, Long id, Node node) {
+            int cmp = Long.compare(start, node.start);
+            return cmp != 0 ? cmp : Long.compare(id, node.leave.id());
+        }
+    }
+}
@@ -0,0 +1,671 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Employee;
+import com.a0615.entity.Salary;
+import com.a0615.mapper.EmployeeMapper;
+import com.a0615.mapper.SalaryMapper;
+import com.a0615.util.TransactionUtils;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * 全量薪资记录的列式内存存储。
+ * 每个薪资分项按分保存在 long[] 中，月份、部门、员工工号做字典编码后以 int[] 保存，
+ * 按月份/部门的聚合和薪资区间统计都是对原始数组的顺序扫描，数据量大时分段并行。
+ * 只在后台线程中加载（流式读取，不物化整张表），加载完成前 {@link #isReady()} 为 false，由调用方回退到 SQL；
+ * 之后由 SalaryService 的每次写入在事务提交后增量修补，加载期间提交的修补先排队，新数据换上后重放。
+ * 部门取加载（或修补）时员工所在部门，员工调岗时由 SalaryService 按员工修补。
+ */
+@Component
+public class SalaryCube {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalaryCube.class);
+
+    /**
+     * 行数超过该值时分段并行聚合
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final int SEGMENT_SIZE = 1 << 14;
+
+    /**
+     * 已删除行占比超过该值时压缩数组
+     */
+    private static final double COMPACT_RATIO = 0.25;
+
+    public enum GroupBy { MONTH, DEPT }
+
+    /**
+     * 一个分组的聚合结果，金额单位为分
+     */
+    public record Aggregate(String key, int count, long baseCents, long allowanceCents, long bonusCents,
+                            long deductionCents, long totalCents, long minTotalCents, long maxTotalCents) {
+    }
+
+    /**
+     * 一次已提交写入的修补内容：先删除 replacedEmpIds 的全部行，再按 id 替换或追加 rows。
+     * 修补是幂等的，加载期间排队后重放到新数据上不会重复计入
+     */
+    private record Patch(Set<String> replacedEmpIds, List<Salary> rows, Map<String, String> deptByEmpId) {
+
+        void applyTo(Store store) {
+            for (String empId : replacedEmpIds) {
+                store.removeEmployee(empId);
+            }
+            for (Salary salary : rows) {
+                store.removeRow(salary.getId());
+                store.append(salary, deptByEmpId.getOrDefault(salary.getEmpId(), ""));
+            }
+            if (store.deadRows > store.size * COMPACT_RATIO) {
+                store.compact();
+            }
+        }
+    }
+
+    @Autowired
+    private SalaryMapper salaryMapper;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean loaderRunning = new AtomicBoolean(false);
+    private volatile boolean ready = false;
+    private volatile boolean loading = false;
+
+    // ---- 以下字段只在持有锁时访问 ----
+    private Store store;
+    private List<Patch> queued; // 加载期间提交的修补，不加载时为 null
+
+    /**
+     * 应用启动完成后在后台加载，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    /**
+     * 在后台线程中重新加载，已有加载在进行时不重复启动。加载期间仍使用旧数据（或回退到 SQL）
+     */
+    public void refresh() {
+        if (!loaderRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                reload();
+            } finally {
+                loaderRunning.set(false);
+            }
+        }, "salary-cube-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * 从数据库全量加载到新的存储中：先取员工部门，再流式读取全部薪资记录的数值列。
+     * 读取期间不持有锁，完成后重放排队的修补并整体替换
+     */
+    synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            queued = new ArrayList<>();
+            loading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, String> deptByEmpId = loadDeptByEmpId(null);
+            Store next = new Store();
+            salaryMapper.streamSalaryValues(context -> {
+                Salary salary = context.getResultObject();
+                next.append(salary, deptByEmpId.getOrDefault(salary.getEmpId(), ""));
+            });
+
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                replayed = queued.size();
+                for (Patch patch : queued) {
+                    patch.applyTo(next);
+                }
+                store = next;
+                ready = true;
+            } finally {
+                queued = null;
+                loading = false;
+                lock.writeLock().unlock();
+            }
+            logger.info("SalaryCube: loaded {} rows ({} months, {} depts) in {} ms, replayed {} patches",
+                next.size, next.months.size(), next.depts.size(), System.currentTimeMillis() - start, replayed);
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                queued = null;
+                loading = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.warn("SalaryCube: load failed, analytics will fall back to database queries: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 新增薪资后调用：事务提交后按 id 追加（或替换）到各列
+     */
+    public void onSaved(Collection<Salary> salaries) {
+        List<Salary> rows = salaries.stream()
+            .filter(salary -> salary.getId() != null && salary.getEmpId() != null && salary.getMonth() != null)
+            .toList();
+        if (rows.isEmpty()) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            if (!ready && !loading) {
+                return; // 尚未加载，下次加载会读到这次写入
+            }
+            Map<String, String> deptByEmpId = loadDeptByEmpId(rows.stream().map(Salary::getEmpId).toList());
+            apply(new Patch(Set.of(), rows, deptByEmpId));
+        });
+    }
+
+    /**
+     * 修改/删除/覆盖写入/员工调岗后调用：事务提交后按员工重新读取其全部薪资记录替换旧行
+     */
+    public void onChanged(Collection<String> empIds) {
+        Set<String> affected = new HashSet<>(empIds);
+        affected.remove(null);
+        if (affected.isEmpty()) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            if (!ready && !loading) {
+                return;
+            }
+            List<Salary> rows = salaryMapper.selectList(new QueryWrapper<Salary>().select(
+                    "id", "emp_id", "month", "base_salary", "allowance", "bonus", "deduction", "total_salary")
+                .in("emp_id", affected));
+            apply(new Patch(affected, rows, loadDeptByEmpId(affected)));
+        });
+    }
+
+    /**
+     * 修补当前数据；正在加载时同时排队，待新数据加载完成后重放
+     */
+    private void apply(Patch patch) {
+        lock.writeLock().lock();
+        try {
+            if (store != null) {
+                patch.applyTo(store);
+            }
+            if (queued != null) {
+                queued.add(patch);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按月份或部门分组聚合，可同时按月份、部门过滤（为空表示不过滤）。
+     * 按月份分组时结果按月份升序，按部门分组时按总额降序
+     * @return 尚未加载完成时返回 null，由调用方回退到 SQL
+     */
+    public List<Aggregate> aggregate(GroupBy groupBy, String month, String dept) {
+        lock.readLock().lock();
+        try {
+            Store current = store;
+            if (current == null) {
+                return null;
+            }
+            int monthFilter = month == null || month.isEmpty() ? -1 : current.months.find(month);
+            int deptFilter = dept == null || dept.isEmpty() ? -1 : current.depts.find(dept);
+            if ((monthFilter < 0 && month != null && !month.isEmpty())
+                || (deptFilter < 0 && dept != null && !dept.isEmpty())) {
+                return new ArrayList<>();
+            }
+
+            Dictionary keys = groupBy == GroupBy.MONTH ? current.months : current.depts;
+            int[] groupCol = groupBy == GroupBy.MONTH ? current.monthCol : current.deptCol;
+            int groups = keys.size();
+            long[] acc = scan(current.size, () -> newAggregates(groups), (from, to, partial) -> {
+                for (int row = from; row < to; row++) {
+                    if (current.dead[row] || (monthFilter >= 0 && current.monthCol[row] != monthFilter)
+                        || (deptFilter >= 0 && current.deptCol[row] != deptFilter)) {
+                        continue;
+                    }
+                    current.accumulate(partial, groupCol[row] * AGG_WIDTH, row);
+                }
+            }, SalaryCube::mergeAggregates);
+
+            List<Aggregate> result = new ArrayList<>();
+            for (int group = 0; group < groups; group++) {
+                int offset = group * AGG_WIDTH;
+                if (acc[offset] == 0) {
+                    continue;
+                }
+                result.add(new Aggregate(keys.valueOf(group), (int) acc[offset], acc[offset + 1], acc[offset + 2],
+                    acc[offset + 3], acc[offset + 4], acc[offset + 5], acc[offset + 6], acc[offset + 7]));
+            }
+            if (groupBy == GroupBy.MONTH) {
+                result.sort((a, b) -> a.key().compareTo(b.key()));
+            } else {
+                result.sort((a, b) -> Long.compare(b.totalCents(), a.totalCents()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按实发金额统计区间人次，boundCents 为升序的区间上界（分），返回 boundCents.length + 1 个计数
+     * @return 尚未加载完成时返回 null，由调用方回退到 SQL
+     */
+    public long[] levelCounts(String month, String dept, long[] boundCents) {
+        lock.readLock().lock();
+        try {
+            Store current = store;
+            if (current == null) {
+                return null;
+            }
+            int monthFilter = month == null || month.isEmpty() ? -1 : current.months.find(month);
+            int deptFilter = dept == null || dept.isEmpty() ? -1 : current.depts.find(dept);
+            if ((monthFilter < 0 && month != null && !month.isEmpty())
+                || (deptFilter < 0 && dept != null && !dept.isEmpty())) {
+                return new long[boundCents.length + 1];
+            }
+            return scan(current.size, () -> new long[boundCents.length + 1], (from, to, partial) -> {
+                for (int row = from; row < to; row++) {
+                    if (current.dead[row] || (monthFilter >= 0 && current.monthCol[row] != monthFilter)
+                        || (deptFilter >= 0 && current.deptCol[row] != deptFilter)) {
+                        continue;
+                    }
+                    int position = Arrays.binarySearch(boundCents, current.totalCol[row]);
+                    partial[position >= 0 ? position + 1 : -position - 1]++;
+                }
+            }, (left, right) -> {
+                for (int i = 0; i < left.length; i++) {
+                    left[i] += right[i];
+                }
+                return left;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== 扫描与聚合 ====================
+
+    /**
+     * 每组聚合宽度：count, base, allowance, bonus, deduction, total, min, max
+     */
+    private static final int AGG_WIDTH = 8;
+
+    @FunctionalInterface
+    private interface SegmentScanner {
+        void scan(int from, int to, long[] partial);
+    }
+
+    @FunctionalInterface
+    private interface PartialMerger {
+        long[] merge(long[] left, long[] right);
+    }
+
+    /**
+     * 行数较少时单线程扫描；否则按段并行，每段写自己的部分结果再合并
+     */
+    private static long[] scan(int rows, Supplier<long[]> partialFactory, SegmentScanner scanner, PartialMerger merger) {
+        if (rows < PARALLEL_THRESHOLD) {
+            long[] partial = partialFactory.get();
+            scanner.scan(0, rows, partial);
+            return partial;
+        }
+        int segments = (rows + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        return IntStream.range(0, segments).parallel()
+            .mapToObj(segment -> {
+                long[] partial = partialFactory.get();
+                scanner.scan(segment * SEGMENT_SIZE, Math.min(rows, (segment + 1) * SEGMENT_SIZE), partial);
+                return partial;
+            })
+            .reduce(merger::merge)
+            .orElseGet(partialFactory);
+    }
+
+    private static long[] newAggregates(int groups) {
+        long[] acc = new long[groups * AGG_WIDTH];
+        for (int offset = 0; offset < acc.length; offset += AGG_WIDTH) {
+            acc[offset + 6] = Long.MAX_VALUE;
+            acc[offset + 7] = Long.MIN_VALUE;
+        }
+        return acc;
+    }
+
+    private static long[] mergeAggregates(long[] left, long[] right) {
+        for (int offset = 0; offset < left.length; offset += AGG_WIDTH) {
+            for (int i = 0; i < 6; i++) {
+                left[offset + i] += right[offset + i];
+            }
+            left[offset + 6] = Math.min(left[offset + 6], right[offset + 6]);
+            left[offset + 7] = Math.max(left[offset + 7], right[offset + 7]);
+        }
+        return left;
+    }
+
+    // ==================== 列存储（调用方持有锁） ====================
+
+    /**
+     * 一份完整的列式数据。加载时在锁外构建新的一份，完成后整体替换
+     */
+    private static final class Store {
+        final Dictionary months = new Dictionary();
+        final Dictionary depts = new Dictionary();
+        final Dictionary employees = new Dictionary();
+        final LongIntMap rowById = new LongIntMap();
+        int size;
+        int deadRows;
+        long[] ids = new long[0];
+        int[] monthCol = new int[0];
+        int[] deptCol = new int[0];
+        int[] empCol = new int[0];
+        long[] baseCol = new long[0];
+        long[] allowanceCol = new long[0];
+        long[] bonusCol = new long[0];
+        long[] deductionCol = new long[0];
+        long[] totalCol = new long[0];
+        boolean[] dead = new boolean[0];
+        // 员工编号 -> 该员工的行号（可能包含已删除的行），按员工修补时只访问这些行
+        int[][] rowsByEmp = new int[0][];
+        int[] rowCountByEmp = new int[0];
+
+        void append(Salary salary, String dept) {
+            ensureCapacity(size + 1);
+            int row = size++;
+            ids[row] = salary.getId() != null ? salary.getId() : -1;
+            monthCol[row] = months.idOf(salary.getMonth());
+            deptCol[row] = depts.idOf(dept);
+            empCol[row] = employees.idOf(salary.getEmpId());
+            baseCol[row] = toCents(salary.getBaseSalary());
+            allowanceCol[row] = toCents(salary.getAllowance());
+            bonusCol[row] = toCents(salary.getBonus());
+            deductionCol[row] = toCents(salary.getDeduction());
+            totalCol[row] = toCents(salary.getTotalSalary());
+            dead[row] = false;
+            if (salary.getId() != null) {
+                rowById.put(salary.getId(), row);
+            }
+            addEmployeeRow(empCol[row], row);
+        }
+
+        void removeRow(Long id) {
+            int row = id != null ? rowById.get(id) : -1;
+            if (row >= 0 && !dead[row]) {
+                markDead(row);
+            }
+        }
+
+        /**
+         * 删除某员工的全部行，只访问该员工的行号列表
+         */
+        void removeEmployee(String empId) {
+            int emp = employees.find(empId);
+            if (emp < 0 || emp >= rowCountByEmp.length) {
+                return;
+            }
+            int[] rows = rowsByEmp[emp];
+            for (int i = 0; i < rowCountByEmp[emp]; i++) {
+                if (!dead[rows[i]]) {
+                    markDead(rows[i]);
+                }
+            }
+            rowCountByEmp[emp] = 0;
+        }
+
+        void accumulate(long[] acc, int offset, int row) {
+            acc[offset]++;
+            acc[offset + 1] += baseCol[row];
+            acc[offset + 2] += allowanceCol[row];
+            acc[offset + 3] += bonusCol[row];
+            acc[offset + 4] += deductionCol[row];
+            acc[offset + 5] += totalCol[row];
+            acc[offset + 6] = Math.min(acc[offset + 6], totalCol[row]);
+            acc[offset + 7] = Math.max(acc[offset + 7], totalCol[row]);
+        }
+
+        /**
+         * 去掉已删除的行，存活行前移，并重建 id 和员工的行号索引
+         */
+        void compact() {
+            int target = 0;
+            rowById.clear();
+            Arrays.fill(rowCountByEmp, 0);
+            for (int row = 0; row < size; row++) {
+                if (dead[row]) {
+                    continue;
+                }
+                ids[target] = ids[row];
+                monthCol[target] = monthCol[row];
+                deptCol[target] = deptCol[row];
+                empCol[target] = empCol[row];
+                baseCol[target] = baseCol[row];
+                allowanceCol[target] = allowanceCol[row];
+                bonusCol[target] = bonusCol[row];
+                deductionCol[target] = deductionCol[row];
+                totalCol[target] = totalCol[row];
+                dead[target] = false;
+                if (ids[target] > 0) {
+                    rowById.put(ids[target], target);
+                }
+                addEmployeeRow(empCol[target], target);
+                target++;
+            }
+            size = target;
+            deadRows = 0;
+        }
+
+        private void markDead(int row) {
+            dead[row] = true;
+            deadRows++;
+            rowById.remove(ids[row]);
+        }
+
+        private void addEmployeeRow(int emp, int row) {
+            if (emp >= rowsByEmp.length) {
+                int newLength = Math.max(emp + 1, rowsByEmp.length + (rowsByEmp.length >> 1) + 16);
+                rowsByEmp = Arrays.copyOf(rowsByEmp, newLength);
+                rowCountByEmp = Arrays.copyOf(rowCountByEmp, newLength);
+            }
+            int[] rows = rowsByEmp[emp];
+            int count = rowCountByEmp[emp];
+            if (rows == null) {
+                rows = new int[4];
+            } else if (count == rows.length) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            }
+            rows[count] = row;
+            rowsByEmp[emp] = rows;
+            rowCountByEmp[emp] = count + 1;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1) + 16);
+            ids = Arrays.copyOf(ids, newCapacity);
+            monthCol = Arrays.copyOf(monthCol, newCapacity);
+            deptCol = Arrays.copyOf(deptCol, newCapacity);
+            empCol = Arrays.copyOf(empCol, newCapacity);
+            baseCol = Arrays.copyOf(baseCol, newCapacity);
+            allowanceCol = Arrays.copyOf(allowanceCol, newCapacity);
+            bonusCol = Arrays.copyOf(bonusCol, newCapacity);
+            deductionCol = Arrays.copyOf(deductionCol, newCapacity);
+            totalCol = Arrays.copyOf(totalCol, newCapacity);
+            dead = Arrays.copyOf(dead, newCapacity);
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).longValue() : 0L;
+    }
+
+    /**
+     * 员工部门，empIds 为 null 时取全部员工
+     */
+    private Map<String, String> loadDeptByEmpId(Collection<String> empIds) {
+        QueryWrapper<Employee> wrapper = new QueryWrapper<Employee>().select("emp_id", "dept");
+        if (empIds != null) {
+            wrapper.in("emp_id", empIds);
+        }
+        Map<String, String> deptByEmpId = new HashMap<>();
+        for (Employee employee : employeeMapper.selectList(wrapper)) {
+            deptByEmpId.put(employee.getEmpId(), employee.getDept() != null ? employee.getDept() : "");
+        }
+        return deptByEmpId;
+    }
+
+    /**
+     * 字符串到连续 int 编号的字典
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int idOf(String value) {
+            String key = value != null ? value : "";
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = values.size();
+                ids.put(key, id);
+                values.add(key);
+            }
+            return id;
+        }
+
+        int find(String value) {
+            Integer id = ids.get(value);
+            return id != null ? id : -1;
+        }
+
+        String valueOf(int id) {
+            return values.get(id);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+    }
+
+    /**
+     * 薪资 id 到行号的开放寻址表（线性探测），键和值都是原始类型数组，每行约占 16 到 24 字节，
+     * 不像 HashMap<Long, Integer> 那样每行一个条目对象和两个装箱对象。
+     * 0 作为空槽标记，自增主键从 1 开始；删除时把后续同簇的键前移，不留墓碑
+     */
+    private static final class LongIntMap {
+        private static final long EMPTY = 0L;
+
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private int mask = 15;
+        private int size;
+
+        /**
+         * @return 不存在时返回 -1
+         */
+        int get(long key) {
+            for (int i = slot(key); ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                if (keys[i] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 4L > keys.length * 3L) {
+                resize(keys.length * 2);
+            }
+            int i = slot(key);
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        void remove(long key) {
+            int gap = slot(key);
+            while (keys[gap] != key) {
+                if (keys[gap] == EMPTY) {
+                    return;
+                }
+                gap = (gap + 1) & mask;
+            }
+            // 后续键的理想槽位不在 (gap, j] 内时前移到空出的位置，保证查找不会提前遇到空槽
+            for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                if (((j - slot(keys[j])) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = EMPTY;
+            size--;
+        }
+
+        void clear() {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
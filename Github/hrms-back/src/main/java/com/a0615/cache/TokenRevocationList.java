@@ -0,0 +1,217 @@
+package com.a0615.cache;
+
+import com.a0615.entity.RevokedToken;
+import com.a0615.mapper.RevokedTokenMapper;
+import com.a0615.util.TtlCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 已吊销令牌的内存过滤器。
+ * 吊销记录按令牌的过期时间分桶，每个桶是一个固定大小的布隆过滤器；桶内令牌全部过期后整个桶丢弃，
+ * 内存占用只与桶数有关。判断一次只需计算一次哈希、访问一个桶；
+ * 布隆过滤器命中（真正被吊销或假阳性）时再以 revoked_token 表为准，确认结果短暂缓存。
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    // 每个桶的哈希函数个数
+    private static final int HASHES = 5;
+
+    // 清理过期记录的最小间隔
+    private static final long PURGE_INTERVAL_MS = 3600_000L;
+
+    @Autowired
+    private RevokedTokenMapper revokedTokenMapper;
+
+    /**
+     * 确认结果的缓存时间（毫秒）。否定结果缓存过久会延迟其他实例的吊销生效，取与刷新间隔相同的量级
+     */
+    @Value("${jwt.revocation.confirm-cache-ms:30000}")
+    private long confirmCacheMs;
+
+    private final long bucketMs;
+    private final int bitsMask;
+    private final Map<Long, BloomBucket> buckets = new ConcurrentHashMap<>();
+    private final TtlCache<String, Boolean> confirmed = new TtlCache<>(10000);
+
+    private volatile long lastLoadedId = 0;
+    private volatile boolean ready = false;
+    private volatile long lastPurgeAt = 0;
+
+    public TokenRevocationList(@Value("${jwt.revocation.bucket-ms:3600000}") long bucketMs,
+                               @Value("${jwt.revocation.bloom-bits:65536}") int bloomBits) {
+        if (bucketMs <= 0 || bloomBits < 64) {
+            throw new IllegalArgumentException("bucket-ms 必须大于 0，bloom-bits 不能小于 64");
+        }
+        this.bucketMs = bucketMs;
+        // 位数取不小于配置值的 2 的幂，取下标时用位与代替取模
+        this.bitsMask = Integer.highestOneBit(bloomBits - 1) * 2 - 1;
+    }
+
+    /**
+     * 吊销令牌
+     * @param expiresAtMillis 令牌的过期时刻，记录保留到此时刻为止
+     * @return true 表示本次新吊销；false 表示该令牌此前已被吊销
+     */
+    public boolean revoke(String jti, long expiresAtMillis) {
+        if (jti == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return false;
+        }
+        boolean inserted = revokedTokenMapper.insertIgnore(jti, toLocalDateTime(expiresAtMillis)) > 0;
+        add(jti, expiresAtMillis);
+        confirmed.put(jti, Boolean.TRUE, expiresAtMillis);
+        return inserted;
+    }
+
+    /**
+     * 令牌是否已被吊销
+     * @param expiresAtMillis 令牌的过期时刻，用于定位所在的桶
+     */
+    public boolean isRevoked(String jti, long expiresAtMillis) {
+        if (jti == null) {
+            return false;
+        }
+        if (ready) {
+            BloomBucket bucket = buckets.get(bucketIndex(expiresAtMillis));
+            if (bucket == null || !bucket.mightContain(hash(jti))) {
+                return false;
+            }
+        }
+        // 布隆过滤器命中，或尚未完成首次加载：以数据库为准
+        Boolean cached = confirmed.get(jti);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            boolean revoked = revokedTokenMapper.countByJti(jti) > 0;
+            long cacheUntil = revoked ? expiresAtMillis : Math.min(expiresAtMillis, System.currentTimeMillis() + confirmCacheMs);
+            confirmed.put(jti, revoked, cacheUntil);
+            return revoked;
+        } catch (Exception e) {
+            // 无法确认时按已吊销处理，宁可让用户刷新令牌也不放行可能已吊销的令牌
+            logger.warn("TokenRevocationList: failed to confirm token {}: {}", jti, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 定时增量加载其他实例写入的吊销记录，丢弃已全部过期的桶，并定期清理表中过期的记录
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-ms:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        try {
+            List<RevokedToken> rows = revokedTokenMapper.selectActiveSince(lastLoadedId, toLocalDateTime(now));
+            long maxId = lastLoadedId;
+            for (RevokedToken row : rows) {
+                add(row.getJti(), row.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                maxId = Math.max(maxId, row.getId());
+            }
+            lastLoadedId = maxId;
+            if (!ready) {
+                logger.info("TokenRevocationList: loaded {} revoked tokens into {} buckets", rows.size(), buckets.size());
+            }
+            ready = true;
+
+            if (now - lastPurgeAt >= PURGE_INTERVAL_MS) {
+                lastPurgeAt = now;
+                int purged = revokedTokenMapper.deleteExpired(toLocalDateTime(now));
+                if (purged > 0) {
+                    logger.info("TokenRevocationList: purged {} expired revoked tokens", purged);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("TokenRevocationList: refresh failed, keeping previous state: {}", e.getMessage());
+        }
+        // 桶的结束时刻早于当前时间，桶内令牌已全部过期
+        long currentIndex = bucketIndex(now);
+        buckets.keySet().removeIf(index -> index < currentIndex);
+    }
+
+    private void add(String jti, long expiresAtMillis) {
+        buckets.computeIfAbsent(bucketIndex(expiresAtMillis), index -> new BloomBucket(bitsMask + 1))
+            .add(hash(jti));
+    }
+
+    private long bucketIndex(long expiresAtMillis) {
+        return expiresAtMillis / bucketMs;
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 64 位 FNV-1a 哈希，再经 splitmix64 混合，分布足够均匀
+     */
+    private static long hash(String jti) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : jti.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 30;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27;
+        h *= 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return h;
+    }
+
+    /**
+     * 固定大小的布隆过滤器，用双重哈希由一个 64 位哈希导出 {@value #HASHES} 个位置
+     */
+    private final class BloomBucket {
+
+        private final AtomicLongArray words;
+
+        BloomBucket(int bits) {
+            this.words = new AtomicLongArray(bits / 64);
+        }
+
+        void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & bitsMask;
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                do {
+                    current = words.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & bitsMask;
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.a0615.cache;
+
+import com.a0615.entity.TokenVersion;
+import com.a0615.mapper.TokenVersionMapper;
+import com.a0615.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌版本号的内存副本。
+ * JWT 中携带签发时的版本号，请求认证时只需与这里的当前版本比较，不再查库。
+ * 本实例吊销的用户立即生效；其他实例的吊销通过定时刷新 token_version 表同步。
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+    public static final String TYPE_ADMIN = "ADMIN";
+    public static final String TYPE_EMPLOYEE = "EMPLOYEE";
+
+    @Autowired
+    private TokenVersionMapper tokenVersionMapper;
+
+    private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    /**
+     * 定时全量刷新。版本号只增不减，合并时取较大值，避免覆盖刷新期间本地刚做的吊销
+     */
+    @Scheduled(fixedDelayString = "${jwt.token-version-refresh-ms:30000}")
+    public void refresh() {
+        try {
+            List<TokenVersion> rows = tokenVersionMapper.selectList(null);
+            for (TokenVersion row : rows) {
+                versions.merge(key(row.getPrincipalType(), row.getUsername()),
+                    row.getVersion() != null ? row.getVersion() : 0, Math::max);
+            }
+            if (!ready) {
+                logger.info("TokenVersionRegistry: loaded {} token versions", rows.size());
+            }
+            ready = true;
+        } catch (Exception e) {
+            logger.warn("TokenVersionRegistry: refresh failed, keeping previous versions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 至少成功加载过一次后，才能只凭版本号判断令牌是否被吊销
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 用户当前的令牌版本号，没有记录时为 0
+     */
+    public int currentVersion(String principalType, String username) {
+        return versions.getOrDefault(key(principalType, username), 0);
+    }
+
+    /**
+     * 签发令牌时使用的版本号。登记表尚未加载时直接查库，避免签出一个加载后立即失效的令牌
+     */
+    public int versionForIssue(String principalType, String username) {
+        if (!ready) {
+            Integer version = tokenVersionMapper.selectVersion(principalType, username);
+            if (version != null) {
+                versions.merge(key(principalType, username), version, Math::max);
+            }
+        }
+        return currentVersion(principalType, username);
+    }
+
+    /**
+     * 令牌版本号是否仍然有效
+     */
+    public boolean isCurrent(String principalType, String username, int tokenVersion) {
+        return tokenVersion >= currentVersion(principalType, username);
+    }
+
+    /**
+     * 吊销用户已签发的全部令牌：在当前事务中把版本号加一，提交后更新内存副本
+     */
+    public void revoke(String principalType, String username) {
+        if (username == null) {
+            return;
+        }
+        tokenVersionMapper.bump(principalType, username);
+        Integer version = tokenVersionMapper.selectVersion(principalType, username);
+        if (version != null) {
+            TransactionUtils.afterCommit(() -> versions.merge(key(principalType, username), version, Math::max));
+        }
+    }
+
+    /**
+     * 批量吊销：一条语句把这些用户的版本号加一，再一次查回新版本号
+     */
+    public void revokeAll(String principalType, Collection<String> usernames) {
+        if (usernames == null || usernames.isEmpty()) {
+            return;
+        }
+        tokenVersionMapper.bumpAll(principalType, usernames);
+        List<TokenVersion> rows = tokenVersionMapper.selectVersions(principalType, usernames);
+        TransactionUtils.afterCommit(() -> {
+            for (TokenVersion row : rows) {
+                versions.merge(key(principalType, row.getUsername()), row.getVersion(), Math::max);
+            }
+        });
+    }
+
+    private String key(String principalType, String username) {
+        return principalType + ":" + username;
+    }
+}
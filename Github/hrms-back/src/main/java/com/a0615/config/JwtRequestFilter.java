@@ -1,10 +1,17 @@
 package com.a0615.config;
 
+import com.a0615.cache.TokenRevocationList;
+import com.a0615.cache.TokenVersionRegistry;
 import com.a0615.util.JwtUtil;
 import com.a0615.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -16,6 +23,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.List;
 
 // 导入 SLF4J 日志相关的类
 import org.slf4j.Logger;
@@ -33,6 +41,16 @@ public class JwtRequestFilter extends OncePerRequestFilter { // 确保每个请
     @Autowired // 自动注入 JwtUtil
     private JwtUtil jwtUtil;
 
+    @Autowired // 令牌版本号登记表，用于判断令牌是否已被吊销
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired // 已吊销令牌ID的内存过滤器
+    private TokenRevocationList tokenRevocationList;
+
+    // 无状态模式：令牌携带用户类型和版本号时，直接由签名声明重建认证信息，不查询数据库
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -47,12 +65,14 @@ public class JwtRequestFilter extends OncePerRequestFilter { // 确保每个请
 
         String username = null;
         String jwt = null;
+        Claims claims = null;
 
         // 检查 Authorization 头是否存在且以 "Bearer " 开头
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7); // 提取 JWT Token
             try {
-                username = jwtUtil.extractUsername(jwt); // 从 Token 中提取用户名
+                claims = jwtUtil.parseClaims(jwt); // 校验签名和过期时间并取出全部声明
+                username = claims.getSubject(); // 从 Token 中提取用户名
                 // 添加日志：显示从 JWT 中提取的用户名
                 logger.debug("JwtRequestFilter: Extracted username from JWT: {}", username);
             } catch (Exception e) {
@@ -61,8 +81,44 @@ public class JwtRequestFilter extends OncePerRequestFilter { // 确保每个请
             }
         }
 
+        // 刷新令牌只能用于换取新令牌；已登出或已轮换的令牌ID直接拒绝，判断在内存中完成
+        if (claims != null && (jwtUtil.isRefreshToken(claims)
+                || tokenRevocationList.isRevoked(claims.getId(), claims.getExpiration().getTime()))) {
+            logger.warn("JwtRequestFilter: Rejected refresh or revoked JWT {} for {}", claims.getId(), username);
+            chain.doFilter(request, response);
+            return;
+        }
+
         // 如果提取到了用户名，并且当前没有用户认证信息
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String principalType = claims.get(JwtUtil.CLAIM_PRINCIPAL_TYPE, String.class);
+            Integer tokenVersion = claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Integer.class);
+            boolean versioned = principalType != null && tokenVersion != null && tokenVersionRegistry.isReady();
+
+            // 已被吊销的令牌（修改密码、角色、状态或删除用户之后）直接拒绝
+            if (versioned && !tokenVersionRegistry.isCurrent(principalType, username, tokenVersion)) {
+                logger.warn("JwtRequestFilter: Revoked JWT for {} {} (version {})", principalType, username, tokenVersion);
+                chain.doFilter(request, response);
+                return;
+            }
+
+            if (stateless && versioned) {
+                // 签名已校验，身份和角色直接取自声明，整个过程不访问数据库
+                String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
+                List<GrantedAuthority> authorities = role != null && !role.isEmpty()
+                        ? List.of(new SimpleGrantedAuthority("ROLE_" + role))
+                        : List.of();
+                UserDetails principal = new User(username, "", authorities);
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        principal, null, authorities);
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                logger.debug("JwtRequestFilter: Authenticated {} from JWT claims with authorities: {}", username, authorities);
+                chain.doFilter(request, response);
+                return;
+            }
+
             UserDetails userDetails = null;
             try {
                 // 根据用户名加载用户详细信息
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -16,6 +17,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -74,9 +76,12 @@ public class SecurityConfig {
                 .formLogin(form -> form.disable())
                 .httpBasic(httpBasic -> httpBasic.disable())
                 .anonymous(anonymous -> anonymous.disable())
+                // 未认证（包括访问令牌过期）时返回 401，前端据此用刷新令牌换取新令牌；无权限仍返回 403
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
                 .authorizeHttpRequests(authz -> authz
                         // 1. 公开访问路径 (无需认证或权限)
-                        .requestMatchers("/api/auth/login", "/api/auth/register", "/error").permitAll()
+                        .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh", "/api/auth/logout", "/error").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
                         // 移除公告的公开访问，所有公告接口都需要认证
                         // .requestMatchers(HttpMethod.GET, "/api/announcements", "/api/announcements/**").permitAll()
@@ -110,6 +115,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.DELETE, "/api/leave-applications/my-applications/**").hasRole("EMPLOYEE")
                         .requestMatchers("/api/leave-applications/**").hasRole("ADMIN")
 
+                        // 部门模块权限 (/api/departments)
+                        .requestMatchers("/api/departments/**").hasRole("ADMIN")
+
                         // 管理员模块权限 (/api/admins)
                         .requestMatchers("/api/admins/**").hasRole("ADMIN")
 
@@ -55,7 +55,7 @@ public class AdminController {
         Map<String, Object> stats = new HashMap<>();
         
         // 获取员工总数
-        int totalEmployees = employeeService.getAllEmployees().size();
+        int totalEmployees = employeeService.getEmployeeCount();
         stats.put("totalEmployees", totalEmployees);
         
         // 获取当前月份薪资总支出
@@ -88,6 +88,8 @@ public class AdminController {
         List<String> months = new ArrayList<>();
         List<Integer> employeeCounts = new ArrayList<>();
         List<BigDecimal> salaryTotals = new ArrayList<>();
+        // 该月的员工数量（简化为当前员工总数，实际项目中可能需要历史数据表）
+        int currentEmployeeCount = employeeService.getEmployeeCount();
         
         for (int i = 5; i >= 0; i--) {
             LocalDate date = LocalDate.now().minusMonths(i);
@@ -100,8 +102,7 @@ public class AdminController {
             BigDecimal salaryTotal = salaryService.getMonthlySalaryTotal(month);
             salaryTotals.add(salaryTotal != null ? salaryTotal : BigDecimal.ZERO);
             
-            // 获取该月的员工数量（简化为当前员工总数，实际项目中可能需要历史数据表）
-            employeeCounts.add(employeeService.getAllEmployees().size());
+            employeeCounts.add(currentEmployeeCount);
         }
         
         trends.put("months", months);
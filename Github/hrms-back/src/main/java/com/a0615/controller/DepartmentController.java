@@ -0,0 +1,93 @@
+package com.a0615.controller;
+
+import com.a0615.dto.DepartmentDTO;
+import com.a0615.entity.Department;
+import com.a0615.entity.Employee;
+import com.a0615.service.DepartmentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/departments")
+@PreAuthorize("hasRole('ADMIN')") // 部门管理只对管理员开放
+public class DepartmentController {
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    /**
+     * 获取全部部门及各部门（含下级）的人数和薪资汇总
+     * GET /api/departments
+     * @return 部门列表，按层级和名称排序
+     */
+    @GetMapping
+    public ResponseEntity<List<DepartmentDTO>> listDepartments() {
+        return ResponseEntity.ok(departmentService.listDepartments());
+    }
+
+    /**
+     * 获取单个部门及其汇总
+     * GET /api/departments/{id}
+     * @param id 部门ID
+     * @return 部门信息或 404 Not Found
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<DepartmentDTO> getDepartment(@PathVariable Integer id) {
+        DepartmentDTO department = departmentService.getDepartment(id);
+        return department != null ? ResponseEntity.ok(department) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 获取部门及其全部下级部门的员工
+     * GET /api/departments/{id}/employees
+     * @param id 部门ID
+     * @return 员工列表或 404 Not Found
+     */
+    @GetMapping("/{id}/employees")
+    public ResponseEntity<List<Employee>> getSubtreeEmployees(@PathVariable Integer id) {
+        List<Employee> employees = departmentService.getSubtreeEmployees(id);
+        return employees != null ? ResponseEntity.ok(employees) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 新增部门
+     * POST /api/departments
+     * @param department 部门名称和上级部门ID（顶级部门不传 parentId）
+     * @return 新增的部门
+     */
+    @PostMapping
+    public ResponseEntity<Department> createDepartment(@RequestBody Department department) {
+        Department created = departmentService.createDepartment(department.getName(), department.getParentId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+
+    /**
+     * 调整上级部门，下级部门随之移动
+     * PUT /api/departments/{id}/parent
+     * @param id 部门ID
+     * @param department 新的上级部门ID，移为顶级部门时 parentId 为 null
+     * @return 200 OK 或 404 Not Found
+     */
+    @PutMapping("/{id}/parent")
+    public ResponseEntity<Void> moveDepartment(@PathVariable Integer id, @RequestBody Department department) {
+        return departmentService.moveDepartment(id, department.getParentId())
+            ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 删除没有下级部门和员工的部门
+     * DELETE /api/departments/{id}
+     * @param id 部门ID
+     * @return 204 No Content 或 404 Not Found
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteDepartment(@PathVariable Integer id) {
+        return departmentService.deleteDepartment(id)
+            ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -2,10 +2,15 @@ package com.a0615.controller;
 
 import com.a0615.entity.Employee;
 import com.a0615.entity.Salary;
+import com.a0615.service.EmployeeImportService;
 import com.a0615.service.EmployeeService;
 import com.a0615.service.SalaryService;
 import com.a0615.dto.EmployeeCreateDTO; // 导入 DTO
 import com.a0615.dto.EmployeeUpdateDTO; // 导入 DTO
+import com.a0615.dto.EmployeeBulkUpdateDTO;
+import com.a0615.dto.EmployeeFacetResultDTO;
+import com.a0615.dto.EmployeeSummaryDTO;
+import com.a0615.dto.KeysetPageDTO;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -14,9 +19,13 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication; // 导入 Authentication
 import org.springframework.security.core.context.SecurityContextHolder; // 导入 SecurityContextHolder
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 // import jakarta.validation.Valid; // 用于启用验证，如果您的DTO有验证注解，请取消注释
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController // 标记这是一个 RESTful 控制器
 @RequestMapping("/api/employees") // 定义基础请求路径，添加 /api/ 前缀规范
@@ -27,6 +36,9 @@ public class EmployeeController {
     @Autowired // 自动注入 SalaryService
     private SalaryService salaryService;
 
+    @Autowired // 自动注入 EmployeeImportService
+    private EmployeeImportService employeeImportService;
+
     /**
      * 获取所有员工列表 (管理员权限)
      * GET /api/employees
@@ -39,6 +51,30 @@ public class EmployeeController {
         return ResponseEntity.ok(employees); // 返回 200 OK 和员工列表
     }
 
+    /**
+     * 游标分页获取员工列表 (管理员权限)，只返回列表字段，不含密码
+     * GET /api/employees/page?dept=xxx&status=yyy&sort=name&order=asc&size=20&cursor=zzz
+     * @param dept 部门 (可选)
+     * @param status 员工状态 (可选)
+     * @param sort 排序字段 id/empId/name (可选，默认 id)
+     * @param order asc/desc (可选，默认 asc)
+     * @param size 每页条数 (可选，默认 20，最大 200)
+     * @param cursor 上一页返回的 nextCursor (第一页不传)
+     * @return 当前页员工及下一页游标
+     */
+    @GetMapping("/page") // 处理 GET /api/employees/page 请求
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<KeysetPageDTO<EmployeeSummaryDTO>> getEmployeePage(
+            @RequestParam(required = false) String dept,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        // 参数无效时 Service 抛出 IllegalArgumentException，由全局异常处理返回 400
+        return ResponseEntity.ok(employeeService.listEmployeeSummaries(dept, status, sort, order, size, cursor));
+    }
+
     /**
      * 根据员工工号获取单个员工信息 (管理员可以获取所有，员工只能获取自己的)
      * GET /api/employees/byEmpId/{empId}
@@ -76,6 +112,47 @@ public class EmployeeController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdEmployee); // 返回 201 Created 和添加的员工信息
     }
 
+    /**
+     * 批量导入员工 (管理员权限)
+     * POST /api/employees/import
+     * 支持 .xlsx/.xls/.csv，第一行为标题行，列顺序：工号、姓名、部门、职位、初始密码、角色、入职时间、状态
+     * @param file 上传的文件
+     * @return 导入结果：成功数、逐行错误信息、耗时和每秒处理行数
+     */
+    @PostMapping("/import") // 处理 POST /api/employees/import 请求
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> importEmployees(@RequestParam("file") MultipartFile file) {
+        String fileName = file.getOriginalFilename();
+        String lowerName = fileName != null ? fileName.toLowerCase() : "";
+        if (!lowerName.endsWith(".xlsx") && !lowerName.endsWith(".xls") && !lowerName.endsWith(".csv")) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "请上传Excel或CSV文件（.xlsx、.xls或.csv格式）");
+            return ResponseEntity.badRequest().body(result);
+        }
+        if (file.getSize() > 10 * 1024 * 1024) { // 10MB限制
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "文件大小不能超过10MB");
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.ok(employeeImportService.importEmployees(file));
+    }
+
+    /**
+     * 批量修改员工的部门、职位、状态或角色 (管理员权限)
+     * PUT /api/employees/bulk
+     * 请求体示例：{"empIds": ["E001", "E002"], "status": "离职"}，为空的字段不修改
+     * @param bulkDto 工号列表和要修改的字段
+     * @return 汇总：请求的工号数、更新的员工数、不存在的工号
+     */
+    @PutMapping("/bulk") // 处理 PUT /api/employees/bulk 请求
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> bulkUpdateEmployees(@RequestBody EmployeeBulkUpdateDTO bulkDto) {
+        // 参数无效时 Service 抛出 IllegalArgumentException，由全局异常处理返回 400
+        return ResponseEntity.ok(employeeService.bulkUpdateEmployees(bulkDto));
+    }
+
     /**
      * 更新员工信息（通过 empId 作为路径变量）。 (管理员权限)
      * @param empId 从 URL 路径中获取的员工工号。
@@ -150,6 +227,49 @@ public class EmployeeController {
         return ResponseEntity.ok(employees); // 返回 200 OK 和搜索结果
     }
 
+    /**
+     * 游标分页搜索员工 (管理员权限)，只返回列表字段，不含密码
+     * GET /api/employees/search/page?name=xxx&dept=yyy&status=zzz&size=20&cursor=...
+     * @param name 姓名关键词，支持拼音和首字母 (可选)
+     * 其余参数同 GET /api/employees/page
+     * @return 当前页员工及下一页游标
+     */
+    @GetMapping("/search/page") // 处理 GET /api/employees/search/page 请求
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<KeysetPageDTO<EmployeeSummaryDTO>> searchEmployeePage(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String dept,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(employeeService.searchEmployeeSummaries(name, dept, status, sort, order, size, cursor));
+    }
+
+    /**
+     * 按部门/职位/角色/状态组合筛选员工 (管理员权限)，同时返回各筛选项的人数
+     * GET /api/employees/facets?dept=研发部&dept=市场部&status=在职&size=20&cursor=...
+     * 同一字段可传多个值（"或"），不同字段之间为"且"
+     * @return 当前页员工、总人数和各字段每个取值的人数
+     */
+    @GetMapping("/facets") // 处理 GET /api/employees/facets 请求
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<EmployeeFacetResultDTO> filterEmployees(
+            @RequestParam(required = false) List<String> dept,
+            @RequestParam(required = false) List<String> pos,
+            @RequestParam(required = false) List<String> role,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        Map<String, List<String>> filters = new LinkedHashMap<>();
+        filters.put("dept", dept);
+        filters.put("pos", pos);
+        filters.put("role", role);
+        filters.put("status", status);
+        return ResponseEntity.ok(employeeService.filterEmployees(filters, size, cursor));
+    }
+
     /**
      * 员工：查看自己的薪资信息 (员工本人权限)
      * GET /api/employees/my-salary/{empId}
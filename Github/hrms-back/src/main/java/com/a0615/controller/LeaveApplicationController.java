@@ -1,8 +1,10 @@
 package com.a0615.controller;
 
+import com.a0615.dto.LeaveCalendarDayDTO;
 import com.a0615.entity.LeaveApplication;
 import com.a0615.service.LeaveApplicationService; // 导入 LeaveApplicationService
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize; // 导入 @PreAuthorize
@@ -10,6 +12,7 @@ import org.springframework.security.core.Authentication; // 导入 Authenticatio
 import org.springframework.security.core.context.SecurityContextHolder; // 导入 SecurityContextHolder
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -48,6 +51,8 @@ public class LeaveApplicationController {
         try {
             leaveApplicationService.submitLeaveApplication(leaveApplication);
             return ResponseEntity.status(HttpStatus.CREATED).body(leaveApplication);
+        } catch (IllegalArgumentException e) {
+            throw e; // 日期重叠等校验失败，由全局异常处理返回 400 和原因
         } catch (Exception e) {
             // 记录异常，方便排查
             e.printStackTrace();
@@ -93,6 +98,24 @@ public class LeaveApplicationController {
         return ResponseEntity.ok(applications);
     }
 
+    /**
+     * 请假日历：每天的在职人数、请假人数和可出勤人数
+     * GET /api/leave-applications/calendar?dept=&from=&to=
+     * 仅限拥有 'ADMIN' 角色的用户操作。
+     * @param dept 部门（可选，为空时统计全体员工）
+     * @param from 开始日期（可选，默认今天，格式 yyyy-MM-dd）
+     * @param to 结束日期（可选，含当天，默认开始日期后 30 天，最多 366 天）
+     * @return 每天一条的日历（200 OK），日期范围无效时 400 Bad Request。
+     */
+    @GetMapping("/calendar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<LeaveCalendarDayDTO>> getLeaveCalendar(
+            @RequestParam(required = false) String dept,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(leaveApplicationService.getLeaveCalendar(dept, from, to));
+    }
+
     /**
      * 根据ID获取单个请假申请详情（管理员）
      * GET /api/leave-applications/{id}
@@ -1,17 +1,26 @@
 package com.a0615.controller;
 
 import com.a0615.entity.Salary;
+import com.a0615.model.ImportJob;
+import com.a0615.service.SalaryImportJobService;
 import com.a0615.service.SalaryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 薪资控制器
@@ -21,75 +30,22 @@ import java.util.Collection;
 @CrossOrigin(origins = "*")
 public class SalaryController {
 
+    private static final Logger logger = LoggerFactory.getLogger(SalaryController.class);
+
     @Autowired
     private SalaryService salaryService;
 
+    @Autowired
+    private SalaryImportJobService salaryImportJobService;
+
     /**
      * 获取薪资统计数据 - 必须放在最前面避免路由冲突
      */
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getSalaryStatistics() {
         try {
-            // 获取所有员工和薪资数据
-            List<Salary> allSalaries = salaryService.list();
-            Map<String, Object> statistics = new HashMap<>();
-            
-            if (allSalaries.isEmpty()) {
-                statistics.put("totalSalary", BigDecimal.ZERO);
-                statistics.put("averageSalary", BigDecimal.ZERO);
-                statistics.put("highestSalary", BigDecimal.ZERO);
-                statistics.put("totalEmployees", 0);
-                statistics.put("departmentStats", new ArrayList<>());
-                return ResponseEntity.ok(statistics);
-            }
-            
-            // 获取每个员工的最新薪资记录（用于统计概览）
-            Map<String, Salary> latestSalariesByEmployee = new HashMap<>();
-            for (Salary salary : allSalaries) {
-                String empId = salary.getEmpId();
-                Salary existing = latestSalariesByEmployee.get(empId);
-                if (existing == null || salary.getMonth().compareTo(existing.getMonth()) > 0) {
-                    latestSalariesByEmployee.put(empId, salary);
-                }
-            }
-            
-            Collection<Salary> latestSalaries = latestSalariesByEmployee.values();
-            
-            // 基于最新薪资计算统计数据
-            BigDecimal totalLatestSalary = latestSalaries.stream()
-                .map(Salary::getTotalSalary)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            // 计算平均薪资（基于员工数量，而不是薪资记录数量）
-            BigDecimal averageSalary = latestSalaries.isEmpty() ? BigDecimal.ZERO :
-                totalLatestSalary.divide(BigDecimal.valueOf(latestSalaries.size()), 2, BigDecimal.ROUND_HALF_UP);
-            
-            // 计算最高薪资（基于最新薪资）
-            BigDecimal highestSalary = latestSalaries.stream()
-                .map(Salary::getTotalSalary)
-                .max(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
-            
-            // 统计员工数量
-            int totalEmployees = latestSalaries.size();
-            
-            // 对于统计卡片，显示的是基于最新薪资的数据
-            statistics.put("totalSalary", totalLatestSalary);
-            statistics.put("averageSalary", averageSalary);
-            statistics.put("highestSalary", highestSalary);
-            statistics.put("totalEmployees", totalEmployees);
-            
-            // 部门统计 - 基于真实数据库查询
-            List<Map<String, Object>> departmentStats = salaryService.getDepartmentSalaryStatistics();
-            statistics.put("departmentStats", departmentStats);
-            
-            System.out.println("=== 薪资统计数据调试 ===");
-            System.out.println("总薪资记录数: " + allSalaries.size());
-            System.out.println("有薪资记录的员工数: " + totalEmployees);
-            System.out.println("最新薪资总和: " + totalLatestSalary);
-            System.out.println("平均薪资: " + averageSalary);
-            System.out.println("最高薪资: " + highestSalary);
-            
+            // 统计卡片和部门统计（departmentStats）基于每个员工的最新薪资，一次遍历得出
+            Map<String, Object> statistics = salaryService.getSalaryStatistics();
             return ResponseEntity.ok(statistics);
         } catch (Exception e) {
             System.err.println("获取薪资统计数据失败: " + e.getMessage());
@@ -225,6 +181,33 @@ public class SalaryController {
         }
     }
 
+    /**
+     * 导出薪资记录
+     * GET /api/salaries/export?format=xlsx|csv&month=2024-01&dept=技术部
+     * 边查边写到响应流，数据量大时内存占用也保持不变
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSalaries(@RequestParam(defaultValue = "xlsx") String format,
+                                                                @RequestParam(required = false) String month,
+                                                                @RequestParam(required = false) String dept) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"xlsx".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (month != null && !month.isBlank() && !month.matches("\\d{4}-\\d{2}")) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String fileName = "薪资记录" + (month != null && !month.isBlank() ? "_" + month : "") + (csv ? ".csv" : ".xlsx");
+        StreamingResponseBody body = out -> salaryService.exportSalaries(format, month, dept, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName, StandardCharsets.UTF_8).build().toString())
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .body(body);
+    }
+
     /**
      * 获取薪资记录列表（管理员用）
      */
@@ -291,6 +274,50 @@ public class SalaryController {
         }
     }
 
+    /**
+     * 批量写入薪资记录（管理员用，月末发薪批量生成）
+     * POST /api/salaries/bulk?mode=insert|upsert
+     * insert 模式跳过已存在的 (员工, 月份)，upsert 模式覆盖其金额和状态，返回新增、更新、跳过条数；
+     * 总薪资由服务端按 基本工资 + 津贴 + 奖金 - 扣除 计算。记录数超过上限、工号不存在或缺少必填字段时返回 400
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> bulkSaveSalaryRecords(@RequestBody List<Salary> salaries,
+                                                                     @RequestParam(defaultValue = "insert") String mode) {
+        if (!"insert".equals(mode) && !"upsert".equals(mode)) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "mode 只能为 insert 或 upsert");
+            return ResponseEntity.badRequest().body(result);
+        }
+        if (salaries == null || salaries.isEmpty()) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "薪资记录不能为空");
+            return ResponseEntity.badRequest().body(result);
+        }
+        try {
+            for (Salary salary : salaries) {
+                salary.setId(null);
+                // 如果没有设置状态，默认为草稿
+                if (salary.getStatus() == null || salary.getStatus().isEmpty()) {
+                    salary.setStatus("草稿");
+                }
+            }
+            return ResponseEntity.ok(salaryService.bulkSave(salaries, "upsert".equals(mode)));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(result);
+        } catch (Exception e) {
+            logger.error("批量写入薪资记录失败", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "批量写入失败: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(result);
+        }
+    }
+
     /**
      * 更新薪资记录（管理员用）
      */
@@ -366,9 +393,12 @@ public class SalaryController {
 
     /**
      * 导入薪资记录
+     * 默认交给后台任务处理，立即返回 jobId，通过 GET /api/salaries/import/{jobId} 查询进度；
+     * async=false 时等待任务结束后返回导入结果，同样受并发导入任务数限制
      */
     @PostMapping("/import")
-    public ResponseEntity<Map<String, Object>> importSalaryRecords(@RequestParam("file") org.springframework.web.multipart.MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> importSalaryRecords(@RequestParam("file") org.springframework.web.multipart.MultipartFile file,
+                                                                   @RequestParam(defaultValue = "true") boolean async) {
         try {
             System.out.println("开始导入薪资记录，文件名: " + file.getOriginalFilename());
             
@@ -389,9 +419,23 @@ public class SalaryController {
                 return ResponseEntity.badRequest().body(result);
             }
             
-            Map<String, Object> importResult = salaryService.importSalaryRecords(file);
-            return ResponseEntity.ok(importResult);
+            if (async) {
+                ImportJob job = salaryImportJobService.submit(file);
+                Map<String, Object> result = new HashMap<>();
+                result.put("success", true);
+                result.put("message", "导入任务已提交");
+                result.put("jobId", job.getJobId());
+                return ResponseEntity.accepted().body(result);
+            }
+
+            ImportJob job = salaryImportJobService.submitAndWait(file);
+            return ResponseEntity.ok(job.toImportResult());
             
+        } catch (RejectedExecutionException e) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "当前导入任务过多，请稍后再试");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(result);
         } catch (Exception e) {
             System.err.println("导入薪资记录失败: " + e.getMessage());
             e.printStackTrace();
@@ -402,6 +446,38 @@ public class SalaryController {
         }
     }
 
+    /**
+     * 查询异步导入任务进度
+     * errorOffset 为客户端已拿到的错误信息条数，只返回其后新增的错误信息
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<Map<String, Object>> getImportJob(@PathVariable String jobId,
+                                                            @RequestParam(defaultValue = "0") int errorOffset) {
+        ImportJob job = salaryImportJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job.toProgress(errorOffset));
+    }
+
+    /**
+     * 重建薪资汇总表
+     * 员工调岗或直接改库后汇总表可能与薪资表不一致，由管理员手动触发全量重建
+     */
+    @PostMapping("/summary/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSalarySummaries() {
+        try {
+            Map<String, Object> result = salaryService.rebuildSalarySummaries();
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("重建薪资汇总表失败", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "重建失败: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(result);
+        }
+    }
+
     /**
      * 获取月度薪资趋势数据
      */
@@ -417,12 +493,38 @@ public class SalaryController {
 
     /**
      * 获取薪资等级分布数据
+     * GET /api/salaries/level-distribution?bounds=3000,5000,8000,12000,20000&month=2024-01
+     * bounds 为可选的区间上界，不传时使用默认的六个区间；
+     * 不传 month 时按每个员工的最新薪资统计，传 month 时统计该月的全部薪资记录
      */
     @GetMapping("/level-distribution")
-    public ResponseEntity<List<Map<String, Object>>> getSalaryLevelDistribution() {
+    public ResponseEntity<List<Map<String, Object>>> getSalaryLevelDistribution(
+            @RequestParam(required = false) List<Integer> bounds,
+            @RequestParam(required = false) String month) {
         try {
-            List<Map<String, Object>> levelData = salaryService.getSalaryLevelDistribution();
+            List<Map<String, Object>> levelData = salaryService.getSalaryLevelDistribution(bounds, month);
             return ResponseEntity.ok(levelData);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 薪资分项汇总分析
+     * GET /api/salaries/analytics?groupBy=month|dept&month=2024-01&dept=技术部
+     * 返回每组的记录数及基本工资、津贴、奖金、扣除、总薪资合计和平均/最高/最低总薪资
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<List<Map<String, Object>>> getSalaryAnalytics(
+            @RequestParam(defaultValue = "month") String groupBy,
+            @RequestParam(required = false) String month,
+            @RequestParam(required = false) String dept) {
+        try {
+            return ResponseEntity.ok(salaryService.getSalaryAnalytics(groupBy, month, dept));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
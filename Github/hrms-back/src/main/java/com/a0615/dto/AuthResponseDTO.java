@@ -12,6 +12,7 @@ public class AuthResponseDTO {
     private String role;
     private String username;
     private Object user; // 完整的用户对象（Employee或Admin）
+    private String refreshToken; // 刷新令牌，访问令牌过期后通过 /api/auth/refresh 换取新令牌
     
     // 保留原有的三参数构造函数以保持向后兼容
     public AuthResponseDTO(String token, String role, String username) {
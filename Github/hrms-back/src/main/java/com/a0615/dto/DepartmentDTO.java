@@ -0,0 +1,22 @@
+package com.a0615.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 部门及其汇总：本部门（不含下级）和整个子树（含本部门）的人数与在职员工最新薪资合计
+ */
+@Data
+public class DepartmentDTO {
+    private Integer id;
+    private String name;
+    private Integer parentId;
+    private int level; // 层级，顶级部门为 0
+
+    private int headcount; // 本部门员工人数
+    private int subtreeHeadcount; // 子树员工人数
+    private int subtreeActiveHeadcount; // 子树在职人数
+    private BigDecimal subtreePayroll; // 子树在职员工最新薪资合计
+    private BigDecimal subtreeAverageSalary; // 子树在职员工最新薪资平均值（只计有薪资记录的员工）
+}
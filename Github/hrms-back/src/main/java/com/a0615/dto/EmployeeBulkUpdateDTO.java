@@ -0,0 +1,17 @@
+package com.a0615.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量修改员工：对 empIds 中的每个员工应用同一组修改，为空的字段不修改
+ */
+@Data
+public class EmployeeBulkUpdateDTO {
+    private List<String> empIds;
+    private String dept;
+    private String pos;
+    private String status;
+    private String role;
+}
@@ -0,0 +1,16 @@
+package com.a0615.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 员工分面筛选结果：当前页员工、满足条件的总人数，以及各筛选维度每个取值的人数
+ */
+@Data
+public class EmployeeFacetResultDTO {
+    private KeysetPageDTO<EmployeeSummaryDTO> page;
+    private int total;
+    // 维度（dept/pos/role/status）-> 取值 -> 人数；某维度的人数不受该维度自身条件影响
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,19 @@
+package com.a0615.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * 员工列表使用的投影，不包含密码等敏感字段
+ */
+@Data
+public class EmployeeSummaryDTO {
+    private Integer id;
+    private String empId;
+    private String name;
+    private String dept;
+    private String pos;
+    private String role;
+    private LocalDate entryTime;
+    private String status;
+}
@@ -0,0 +1,19 @@
+package com.a0615.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果。取下一页时把 nextCursor 原样传回，hasMore 为 false 时已到最后一页
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,19 @@
+package com.a0615.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 请假日历中的一天：在职人数、请假人数和可出勤人数
+ */
+@Data
+public class LeaveCalendarDayDTO {
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+    private int headcount; // 在职人数
+    private int onLeave; // 已批准请假的人数
+    private int pending; // 待审批请假的人数
+    private int available; // 可出勤人数：在职人数减去已批准请假的人数
+}
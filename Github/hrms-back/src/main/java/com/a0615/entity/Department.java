@@ -0,0 +1,33 @@
+package com.a0615.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 部门实体类
+ * 部门名称与员工表的 dept 字段对应；上下级关系除 parent_id 外还记录在闭包表 department_closure 中
+ */
+@Data
+@TableName("department")
+public class Department {
+
+    @TableId(type = IdType.AUTO)
+    private Integer id;
+
+    @TableField("name")
+    private String name; // 部门名称，唯一
+
+    @TableField("parent_id")
+    private Integer parentId; // 上级部门ID，顶级部门为 null
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,13 @@
+package com.a0615.entity;
+
+import lombok.Data;
+
+/**
+ * 部门闭包表的一行：ancestorId 是 descendantId 的祖先（含自身），depth 为相隔的层数
+ */
+@Data
+public class DepartmentClosure {
+    private Integer ancestorId;
+    private Integer descendantId;
+    private Integer depth;
+}
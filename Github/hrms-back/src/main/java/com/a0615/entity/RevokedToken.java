@@ -0,0 +1,30 @@
+package com.a0615.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已吊销令牌实体类
+ * 按令牌ID（jti）记录，令牌本身过期后记录即可清理
+ */
+@Data
+@TableName("revoked_token")
+public class RevokedToken {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    @TableField("jti")
+    private String jti; // 令牌ID
+
+    @TableField("expires_at")
+    private LocalDateTime expiresAt; // 令牌过期时间
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
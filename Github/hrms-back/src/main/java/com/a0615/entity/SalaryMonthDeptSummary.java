@@ -0,0 +1,43 @@
+package com.a0615.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 月度-部门薪资汇总实体类
+ * 每个 (月份, 部门) 一行，随薪资写入在同一事务内增量维护
+ */
+@Data
+@TableName("salary_month_dept_summary")
+public class SalaryMonthDeptSummary {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    @TableField("month")
+    private String month; // 格式：YYYY-MM
+
+    @TableField("dept")
+    private String dept; // 员工无部门时为空字符串
+
+    @TableField("total_sum")
+    private BigDecimal totalSum;
+
+    @TableField("record_count")
+    private Integer recordCount;
+
+    @TableField("min_total")
+    private BigDecimal minTotal;
+
+    @TableField("max_total")
+    private BigDecimal maxTotal;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
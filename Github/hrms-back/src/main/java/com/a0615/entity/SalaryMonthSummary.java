@@ -0,0 +1,40 @@
+package com.a0615.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 月度薪资汇总实体类
+ * 每个月份一行，由月度-部门汇总表聚合得到
+ */
+@Data
+@TableName("salary_month_summary")
+public class SalaryMonthSummary {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    @TableField("month")
+    private String month; // 格式：YYYY-MM
+
+    @TableField("total_sum")
+    private BigDecimal totalSum;
+
+    @TableField("record_count")
+    private Integer recordCount;
+
+    @TableField("min_total")
+    private BigDecimal minTotal;
+
+    @TableField("max_total")
+    private BigDecimal maxTotal;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
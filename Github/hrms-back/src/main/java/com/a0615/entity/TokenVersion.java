@@ -0,0 +1,33 @@
+package com.a0615.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 令牌版本实体类
+ * 每个用户一行，版本号小于当前值的 JWT 视为已吊销；没有记录的用户版本号为 0
+ */
+@Data
+@TableName("token_version")
+public class TokenVersion {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    @TableField("principal_type")
+    private String principalType; // ADMIN 或 EMPLOYEE
+
+    @TableField("username")
+    private String username; // 管理员用户名或员工工号
+
+    @TableField("version")
+    private Integer version;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
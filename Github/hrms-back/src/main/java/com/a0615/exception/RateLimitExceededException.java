@@ -0,0 +1,21 @@
+package com.a0615.exception;
+
+/**
+ * 请求超出限流配额
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 建议客户端等待的秒数，用于 Retry-After 响应头
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,67 @@
+package com.a0615.mapper;
+
+import com.a0615.entity.Department;
+import com.a0615.entity.DepartmentClosure;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface DepartmentMapper extends BaseMapper<Department> {
+
+    @Select("SELECT ancestor_id, descendant_id, depth FROM department_closure")
+    List<DepartmentClosure> selectAllClosures();
+
+    /**
+     * ancestorId 是否为 descendantId 本身或其祖先，用于移动部门时防止成环
+     */
+    @Select("SELECT COUNT(*) FROM department_closure WHERE ancestor_id = #{ancestorId} AND descendant_id = #{descendantId}")
+    int countPath(@Param("ancestorId") Integer ancestorId, @Param("descendantId") Integer descendantId);
+
+    /**
+     * 新部门的闭包行：上级部门的每个祖先到新部门各一行，外加自身一行
+     */
+    @Insert("<script>" +
+            "INSERT INTO department_closure (ancestor_id, descendant_id, depth) " +
+            "<if test='parentId != null'>" +
+            "SELECT ancestor_id, #{id}, depth + 1 FROM department_closure WHERE descendant_id = #{parentId} UNION ALL " +
+            "</if>" +
+            "SELECT #{id}, #{id}, 0" +
+            "</script>")
+    int insertClosures(@Param("id") Integer id, @Param("parentId") Integer parentId);
+
+    /**
+     * 移动子树第一步：删除子树内各部门与子树外祖先之间的闭包行，子树内部的行保留
+     */
+    @Delete("DELETE c FROM department_closure c " +
+            "JOIN department_closure sub ON sub.descendant_id = c.descendant_id AND sub.ancestor_id = #{id} " +
+            "LEFT JOIN department_closure keep ON keep.ancestor_id = #{id} AND keep.descendant_id = c.ancestor_id " +
+            "WHERE keep.ancestor_id IS NULL")
+    int detachSubtree(@Param("id") Integer id);
+
+    /**
+     * 移动子树第二步：新上级的每个祖先与子树内每个部门各一行（笛卡尔积）
+     */
+    @Insert("INSERT INTO department_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT p.ancestor_id, s.descendant_id, p.depth + s.depth + 1 " +
+            "FROM department_closure p JOIN department_closure s " +
+            "ON p.descendant_id = #{parentId} AND s.ancestor_id = #{id}")
+    int attachSubtree(@Param("id") Integer id, @Param("parentId") Integer parentId);
+
+    /**
+     * 删除叶子部门的闭包行
+     */
+    @Delete("DELETE FROM department_closure WHERE descendant_id = #{id}")
+    int deleteClosures(@Param("id") Integer id);
+
+    /**
+     * 子树中全部部门的名称（含自身），只在内存中的部门树未就绪时使用
+     */
+    @Select("SELECT d.name FROM department_closure c JOIN department d ON d.id = c.descendant_id WHERE c.ancestor_id = #{id}")
+    List<String> selectSubtreeNames(@Param("id") Integer id);
+}
@@ -1,9 +1,75 @@
 package com.a0615.mapper;
 
+import com.a0615.dto.EmployeeSummaryDTO;
 import com.a0615.entity.Employee;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.List;
 
 @Mapper // 标记这是一个 MyBatis Mapper 接口，Spring 会扫描并创建其代理实现
 public interface EmployeeMapper extends BaseMapper<Employee> {
+
+    /**
+     * 游标分页查询员工列表，只查询投影列（不含密码）。
+     * sortColumn 只能是 id、emp_id、name 之一（由 Service 层校验），同值时按 id 排序保证顺序稳定；
+     * 游标条件展开为 OR 形式，dept/status 过滤分别由 idx_employee_dept_status、idx_employee_status 支撑。
+     * @param descending 是否降序
+     * @param cursorValue 上一页最后一行的排序列值，按 id 排序时不使用
+     * @param cursorId 上一页最后一行的 id，第一页为 null
+     * @param limit 本次最多返回的行数
+     */
+    @Select("<script>" +
+            "SELECT id, emp_id AS empId, name, dept, pos, role, entry_time AS entryTime, status FROM employee " +
+            "<where>" +
+            "<if test=\"dept != null\"> AND dept = #{dept}</if>" +
+            "<if test=\"status != null\"> AND status = #{status}</if>" +
+            "<if test=\"nameLike != null\"> AND name LIKE CONCAT('%', #{nameLike}, '%')</if>" +
+            "<if test=\"cursorId != null\">" +
+            "<choose>" +
+            "<when test=\"sortColumn == 'id'\"> AND id ${descending ? '&lt;' : '&gt;'} #{cursorId}</when>" +
+            "<otherwise> AND (${sortColumn} ${descending ? '&lt;' : '&gt;'} #{cursorValue} " +
+            "OR (${sortColumn} = #{cursorValue} AND id ${descending ? '&lt;' : '&gt;'} #{cursorId}))</otherwise>" +
+            "</choose>" +
+            "</if>" +
+            "</where>" +
+            " ORDER BY ${sortColumn} ${descending ? 'DESC' : 'ASC'}" +
+            "<if test=\"sortColumn != 'id'\">, id ${descending ? 'DESC' : 'ASC'}</if>" +
+            " LIMIT #{limit}" +
+            "</script>")
+    List<EmployeeSummaryDTO> selectSummaryPage(@Param("dept") String dept,
+                                               @Param("status") String status,
+                                               @Param("nameLike") String nameLike,
+                                               @Param("sortColumn") String sortColumn,
+                                               @Param("descending") boolean descending,
+                                               @Param("cursorValue") String cursorValue,
+                                               @Param("cursorId") Integer cursorId,
+                                               @Param("limit") int limit);
+
+    /**
+     * 多行 INSERT，一条语句写入一批员工，并回填自增 id。密码应已加密
+     */
+    @Insert("<script>" +
+            "INSERT INTO employee (emp_id, name, dept, pos, pwd, role, entry_time, status) VALUES " +
+            "<foreach collection='employees' item='e' separator=','>" +
+            "(#{e.empId}, #{e.name}, #{e.dept}, #{e.pos}, #{e.pwd}, #{e.role}, #{e.entryTime}, #{e.status})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "employees.id", keyColumn = "id")
+    int insertBatchValues(@Param("employees") List<Employee> employees);
+
+    /**
+     * 全部员工的工号、部门和状态，逐行回调 handler，结果集以流式读取，不在内存中物化
+     */
+    @Select("SELECT emp_id AS empId, dept, status FROM employee")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Employee.class)
+    void streamDeptAndStatus(ResultHandler<Employee> handler);
 }
@@ -0,0 +1,39 @@
+package com.a0615.mapper;
+
+import com.a0615.entity.RevokedToken;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface RevokedTokenMapper extends BaseMapper<RevokedToken> {
+
+    /**
+     * 记录吊销的令牌ID
+     * @return 1 表示新吊销；0 表示该令牌此前已被吊销
+     */
+    @Insert("INSERT IGNORE INTO revoked_token (jti, expires_at, created_at) VALUES (#{jti}, #{expiresAt}, NOW())")
+    int insertIgnore(@Param("jti") String jti, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * 增量加载：主键大于 lastId 且尚未过期的记录。
+     * 过期时间与应用传入的当前时间比较，和写入时保持同一时钟，不依赖数据库时区
+     */
+    @Select("SELECT id, jti, expires_at FROM revoked_token WHERE id > #{lastId} AND expires_at > #{now} ORDER BY id")
+    List<RevokedToken> selectActiveSince(@Param("lastId") long lastId, @Param("now") LocalDateTime now);
+
+    @Select("SELECT COUNT(*) FROM revoked_token WHERE jti = #{jti}")
+    int countByJti(@Param("jti") String jti);
+
+    /**
+     * 删除令牌已过期的记录
+     */
+    @Delete("DELETE FROM revoked_token WHERE expires_at <= #{now}")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -2,8 +2,188 @@ package com.a0615.mapper;
 
 import com.a0615.entity.Salary;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface SalaryMapper extends BaseMapper<Salary> {
+
+    /**
+     * 每个员工的最新月份，走 uk_emp_month (emp_id, month) 索引完成分组取最大值
+     */
+    String LATEST_MONTH_PER_EMPLOYEE =
+            "SELECT emp_id, MAX(month) AS month FROM salaries GROUP BY emp_id";
+
+    /**
+     * 一次查询取出每个员工最新的一条薪资记录
+     */
+    @Select("SELECT s.* FROM salaries s " +
+            "JOIN (" + LATEST_MONTH_PER_EMPLOYEE + ") latest " +
+            "ON latest.emp_id = s.emp_id AND latest.month = s.month")
+    List<Salary> selectLatestPerEmployee();
+
+    /**
+     * 指定员工的最新薪资记录，用于修改/删除后按员工刷新
+     */
+    @Select("<script>" +
+            "SELECT s.* FROM salaries s " +
+            "JOIN (SELECT emp_id, MAX(month) AS month FROM salaries WHERE emp_id IN " +
+            "<foreach collection='empIds' item='empId' open='(' separator=',' close=')'>#{empId}</foreach> " +
+            "GROUP BY emp_id) latest " +
+            "ON latest.emp_id = s.emp_id AND latest.month = s.month" +
+            "</script>")
+    List<Salary> selectLatestByEmpIds(@Param("empIds") Collection<String> empIds);
+
+    /**
+     * 查出给定 (emp_id, month) 组合中已存在的记录，只返回这两列，走 uk_emp_month 索引
+     */
+    @Select("<script>" +
+            "SELECT emp_id, month FROM salaries WHERE (emp_id, month) IN " +
+            "<foreach collection='keys' item='key' open='(' separator=',' close=')'>(#{key.empId}, #{key.month})</foreach>" +
+            "</script>")
+    List<Salary> selectExistingEmpMonths(@Param("keys") Collection<Salary> keys);
+
+    /**
+     * 查出给定 (emp_id, month) 组合中已存在的记录（含金额和状态）并加锁到事务结束。
+     * uk_emp_month 上的锁定读同时锁住不存在的键所在的间隙，其他事务在此之后无法插入这些组合
+     */
+    @Select("<script>" +
+            "SELECT id, emp_id, month, base_salary, allowance, bonus, deduction, total_salary, status FROM salaries " +
+            "WHERE (emp_id, month) IN " +
+            "<foreach collection='keys' item='key' open='(' separator=',' close=')'>(#{key.empId}, #{key.month})</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<Salary> selectByEmpMonthsForUpdate(@Param("keys") Collection<Salary> keys);
+
+    /**
+     * 每个员工的部门、状态及其最新薪资（没有薪资记录的员工 hasSalary 为 0），
+     * 逐行回调 handler，结果集以流式读取，不在内存中物化
+     */
+    @Select("SELECT e.emp_id AS empId, e.dept AS dept, e.status AS status, " +
+            "(s.emp_id IS NOT NULL) AS hasSalary, s.total_salary AS totalSalary " +
+            "FROM employee e LEFT JOIN (" +
+            "SELECT s.emp_id, s.total_salary FROM salaries s " +
+            "JOIN (" + LATEST_MONTH_PER_EMPLOYEE + ") latest " +
+            "ON latest.emp_id = s.emp_id AND latest.month = s.month" +
+            ") s ON s.emp_id = e.emp_id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Map.class)
+    void streamEmployeeLatestSalaries(ResultHandler<Map<String, Object>> handler);
+
+    /**
+     * 按最新薪资统计等级分布：一次扫描，用 CASE 把 total_salary 归入各区间后分组计数。
+     * bounds 为升序的区间上界，返回的 bucket 为区间下标 (0..bounds.size())，cnt 为人数
+     */
+    @Select("<script>" +
+            "SELECT CASE " +
+            "<foreach collection='bounds' item='bound' index='i'>WHEN s.total_salary &lt; #{bound} THEN ${i} </foreach>" +
+            "ELSE ${bounds.size()} END AS bucket, COUNT(*) AS cnt " +
+            "FROM salaries s " +
+            "JOIN (" + LATEST_MONTH_PER_EMPLOYEE + ") latest " +
+            "ON latest.emp_id = s.emp_id AND latest.month = s.month " +
+            "WHERE s.total_salary IS NOT NULL " +
+            "GROUP BY bucket" +
+            "</script>")
+    List<Map<String, Object>> countLatestSalaryLevels(@Param("bounds") List<Integer> bounds);
+
+    /**
+     * 指定月份全部薪资记录的等级分布，列式存储未就绪时使用；空的实发金额按 0 计，与列式存储一致
+     */
+    @Select("<script>" +
+            "SELECT CASE " +
+            "<foreach collection='bounds' item='bound' index='i'>WHEN COALESCE(s.total_salary, 0) &lt; #{bound} THEN ${i} </foreach>" +
+            "ELSE ${bounds.size()} END AS bucket, COUNT(*) AS cnt " +
+            "FROM salaries s WHERE s.month = #{month} " +
+            "GROUP BY bucket" +
+            "</script>")
+    List<Map<String, Object>> countSalaryLevelsByMonth(@Param("bounds") List<Integer> bounds, @Param("month") String month);
+
+    /**
+     * 按月份或（员工当前）部门分组聚合各薪资分项，列式存储未就绪时使用。
+     * groupKey 为分组值，按月份分组时按月份升序，按部门分组时按实发总额降序；空金额按 0 计
+     */
+    @Select("<script>" +
+            "SELECT <choose><when test='byDept'>COALESCE(e.dept, '')</when><otherwise>s.month</otherwise></choose> AS groupKey, " +
+            "COUNT(*) AS cnt, SUM(COALESCE(s.base_salary, 0)) AS baseSum, SUM(COALESCE(s.allowance, 0)) AS allowanceSum, " +
+            "SUM(COALESCE(s.bonus, 0)) AS bonusSum, SUM(COALESCE(s.deduction, 0)) AS deductionSum, " +
+            "SUM(COALESCE(s.total_salary, 0)) AS totalSum, MIN(COALESCE(s.total_salary, 0)) AS minTotal, " +
+            "MAX(COALESCE(s.total_salary, 0)) AS maxTotal " +
+            "FROM salaries s LEFT JOIN employee e ON e.emp_id = s.emp_id " +
+            "<where>" +
+            "<if test='month != null and month != \"\"'>AND s.month = #{month} </if>" +
+            "<if test='dept != null and dept != \"\"'>AND COALESCE(e.dept, '') = #{dept} </if>" +
+            "</where>" +
+            "GROUP BY groupKey " +
+            "<choose><when test='byDept'>ORDER BY totalSum DESC</when><otherwise>ORDER BY groupKey</otherwise></choose>" +
+            "</script>")
+    List<Map<String, Object>> aggregateSalaries(@Param("byDept") boolean byDept, @Param("month") String month,
+                                                @Param("dept") String dept);
+
+    /**
+     * 列式存储加载用的流式查询：只取数值列，逐行回调 handler，不在内存中物化整张表
+     */
+    @Select("SELECT id, emp_id, month, base_salary, allowance, bonus, deduction, total_salary FROM salaries")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Salary.class)
+    void streamSalaryValues(ResultHandler<Salary> handler);
+
+    /**
+     * 多行 INSERT 的公共部分（表名之后），参数名为 salaries
+     */
+    String BULK_INSERT_ROWS =
+            "salaries (emp_id, month, base_salary, allowance, bonus, deduction, total_salary, status, created_at, updated_at) VALUES " +
+            "<foreach collection='salaries' item='s' separator=','>" +
+            "(#{s.empId}, #{s.month}, #{s.baseSalary}, #{s.allowance}, #{s.bonus}, #{s.deduction}, #{s.totalSalary}, " +
+            "#{s.status}, #{s.createdAt}, #{s.updatedAt})" +
+            "</foreach>";
+
+    String BULK_INSERT_VALUES = "INSERT INTO " + BULK_INSERT_ROWS;
+
+    /**
+     * 多行 INSERT，一条语句写入一批新记录并回填自增 id。(emp_id, month) 已存在时保持原行不变（id = id），
+     * 只有唯一键冲突被忽略；与 INSERT IGNORE 不同，超出范围的金额、超长的状态、NOT NULL 列为空等错误仍会使语句失败。
+     * 调用方应先用 {@link #selectByEmpMonthsForUpdate} 筛掉并锁住已存在的组合
+     */
+    @Insert("<script>" + BULK_INSERT_VALUES + " ON DUPLICATE KEY UPDATE id = id</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "salaries.id", keyColumn = "id")
+    int insertBatchValuesIfAbsent(@Param("salaries") List<Salary> salaries);
+
+    /**
+     * 多行 upsert：(emp_id, month) 已存在时覆盖金额、状态和更新时间，created_at 保持不变
+     */
+    @Insert("<script>" + BULK_INSERT_VALUES + " ON DUPLICATE KEY UPDATE " +
+            "base_salary = VALUES(base_salary), allowance = VALUES(allowance), bonus = VALUES(bonus), " +
+            "deduction = VALUES(deduction), total_salary = VALUES(total_salary), status = VALUES(status), " +
+            "updated_at = VALUES(updated_at)" +
+            "</script>")
+    int upsertBatchValues(@Param("salaries") List<Salary> salaries);
+
+    /**
+     * 导出用的流式查询：fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行读取结果集，
+     * 必须在同一事务内遍历并关闭 Cursor。按 uk_emp_month 索引顺序输出，month、dept 为空时不过滤
+     */
+    @Select("<script>" +
+            "SELECT s.emp_id AS empId, e.name AS empName, e.dept AS dept, s.month AS month, " +
+            "s.base_salary AS baseSalary, s.allowance AS allowance, s.bonus AS bonus, " +
+            "s.deduction AS deduction, s.total_salary AS totalSalary, s.status AS status " +
+            "FROM salaries s LEFT JOIN employee e ON e.emp_id = s.emp_id " +
+            "<where>" +
+            "<if test='month != null and month != \"\"'>AND s.month = #{month} </if>" +
+            "<if test='dept != null and dept != \"\"'>AND e.dept = #{dept} </if>" +
+            "</where>" +
+            "ORDER BY s.emp_id, s.month" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<Map<String, Object>> streamSalaryExport(@Param("month") String month, @Param("dept") String dept);
 }
@@ -0,0 +1,53 @@
+package com.a0615.mapper;
+
+import com.a0615.entity.SalaryMonthDeptSummary;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface SalaryMonthDeptSummaryMapper extends BaseMapper<SalaryMonthDeptSummary> {
+
+    /**
+     * 将一批增量合并进汇总表：不存在则插入，存在则累加 sum/count 并收紧 min/max
+     */
+    @Insert("<script>" +
+            "INSERT INTO salary_month_dept_summary (month, dept, total_sum, record_count, min_total, max_total, updated_at) VALUES " +
+            "<foreach collection='deltas' item='d' separator=','>" +
+            "(#{d.month}, #{d.dept}, #{d.totalSum}, #{d.recordCount}, #{d.minTotal}, #{d.maxTotal}, NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE " +
+            "total_sum = total_sum + VALUES(total_sum), " +
+            "record_count = record_count + VALUES(record_count), " +
+            "min_total = LEAST(COALESCE(min_total, VALUES(min_total)), COALESCE(VALUES(min_total), min_total)), " +
+            "max_total = GREATEST(COALESCE(max_total, VALUES(max_total)), COALESCE(VALUES(max_total), max_total)), " +
+            "updated_at = NOW()" +
+            "</script>")
+    int mergeDeltas(@Param("deltas") List<SalaryMonthDeptSummary> deltas);
+
+    /**
+     * 删除/修改后 min/max 无法增量回退，只能按 (月份, 部门) 从 salaries 重新聚合该组
+     */
+    @Delete("DELETE FROM salary_month_dept_summary WHERE month = #{month} AND dept = #{dept}")
+    int deleteGroup(@Param("month") String month, @Param("dept") String dept);
+
+    @Insert("INSERT INTO salary_month_dept_summary (month, dept, total_sum, record_count, min_total, max_total, updated_at) " +
+            "SELECT s.month, COALESCE(e.dept, ''), SUM(COALESCE(s.total_salary, 0)), COUNT(*), MIN(s.total_salary), MAX(s.total_salary), NOW() " +
+            "FROM salaries s LEFT JOIN employee e ON e.emp_id = s.emp_id " +
+            "WHERE s.month = #{month} AND COALESCE(e.dept, '') = #{dept} " +
+            "GROUP BY s.month, COALESCE(e.dept, '')")
+    int rebuildGroup(@Param("month") String month, @Param("dept") String dept);
+
+    @Delete("DELETE FROM salary_month_dept_summary")
+    int deleteAllRows();
+
+    @Insert("INSERT INTO salary_month_dept_summary (month, dept, total_sum, record_count, min_total, max_total, updated_at) " +
+            "SELECT s.month, COALESCE(e.dept, ''), SUM(COALESCE(s.total_salary, 0)), COUNT(*), MIN(s.total_salary), MAX(s.total_salary), NOW() " +
+            "FROM salaries s LEFT JOIN employee e ON e.emp_id = s.emp_id " +
+            "GROUP BY s.month, COALESCE(e.dept, '')")
+    int rebuildAll();
+}
@@ -0,0 +1,40 @@
+package com.a0615.mapper;
+
+import com.a0615.entity.SalaryMonthSummary;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+@Mapper
+public interface SalaryMonthSummaryMapper extends BaseMapper<SalaryMonthSummary> {
+
+    /**
+     * 月度汇总直接由月度-部门汇总表聚合，每个月只涉及几十行
+     */
+    @Delete("<script>" +
+            "DELETE FROM salary_month_summary WHERE month IN " +
+            "<foreach collection='months' item='m' open='(' separator=',' close=')'>#{m}</foreach>" +
+            "</script>")
+    int deleteMonths(@Param("months") Collection<String> months);
+
+    @Insert("<script>" +
+            "INSERT INTO salary_month_summary (month, total_sum, record_count, min_total, max_total, updated_at) " +
+            "SELECT month, SUM(total_sum), SUM(record_count), MIN(min_total), MAX(max_total), NOW() " +
+            "FROM salary_month_dept_summary WHERE month IN " +
+            "<foreach collection='months' item='m' open='(' separator=',' close=')'>#{m}</foreach> " +
+            "GROUP BY month" +
+            "</script>")
+    int rebuildMonths(@Param("months") Collection<String> months);
+
+    @Delete("DELETE FROM salary_month_summary")
+    int deleteAllRows();
+
+    @Insert("INSERT INTO salary_month_summary (month, total_sum, record_count, min_total, max_total, updated_at) " +
+            "SELECT month, SUM(total_sum), SUM(record_count), MIN(min_total), MAX(max_total), NOW() " +
+            "FROM salary_month_dept_summary GROUP BY month")
+    int rebuildAll();
+}
@@ -0,0 +1,42 @@
+package com.a0615.mapper;
+
+import com.a0615.entity.TokenVersion;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface TokenVersionMapper extends BaseMapper<TokenVersion> {
+
+    /**
+     * 版本号加一，用户没有记录时插入版本 1
+     */
+    @Insert("INSERT INTO token_version (principal_type, username, version, updated_at) " +
+            "VALUES (#{principalType}, #{username}, 1, NOW()) " +
+            "ON DUPLICATE KEY UPDATE version = version + 1, updated_at = NOW()")
+    int bump(@Param("principalType") String principalType, @Param("username") String username);
+
+    @Select("SELECT version FROM token_version WHERE principal_type = #{principalType} AND username = #{username}")
+    Integer selectVersion(@Param("principalType") String principalType, @Param("username") String username);
+
+    /**
+     * 批量版本号加一，一条多行 INSERT ... ON DUPLICATE KEY UPDATE
+     */
+    @Insert("<script>" +
+            "INSERT INTO token_version (principal_type, username, version, updated_at) VALUES " +
+            "<foreach collection='usernames' item='username' separator=','>(#{principalType}, #{username}, 1, NOW())</foreach>" +
+            " ON DUPLICATE KEY UPDATE version = version + 1, updated_at = NOW()" +
+            "</script>")
+    int bumpAll(@Param("principalType") String principalType, @Param("usernames") Collection<String> usernames);
+
+    @Select("<script>" +
+            "SELECT principal_type, username, version FROM token_version WHERE principal_type = #{principalType} AND username IN " +
+            "<foreach collection='usernames' item='username' open='(' separator=',' close=')'>#{username}</foreach>" +
+            "</script>")
+    List<TokenVersion> selectVersions(@Param("principalType") String principalType, @Param("usernames") Collection<String> usernames);
+}
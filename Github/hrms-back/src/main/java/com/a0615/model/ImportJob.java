@@ -0,0 +1,190 @@
+package com.a0615.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 导入任务（薪资、员工）的进度与结果。
+ * 同步导入和异步导入共用：导入线程写入计数和错误信息，查询线程随时读取快照。
+ */
+public class ImportJob {
+
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_FAILED = "failed";
+
+    /**
+     * 最多保留的错误信息条数，超出部分只计数
+     */
+    public static final int MAX_ERROR_MESSAGES = 500;
+
+    private final String jobId = UUID.randomUUID().toString().replace("-", "");
+    private final String fileName;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile String status = STATUS_QUEUED;
+    private volatile String message;
+    private volatile String failureReason;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    private final AtomicInteger processedRows = new AtomicInteger();
+    private final AtomicInteger successCount = new AtomicInteger();
+    private final AtomicInteger errorCount = new AtomicInteger();
+    private final List<String> errorMessages = new ArrayList<>();
+
+    public ImportJob(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return STATUS_COMPLETED.equals(status) || STATUS_FAILED.equals(status);
+    }
+
+    public void markRunning() {
+        startedAt = System.currentTimeMillis();
+        status = STATUS_RUNNING;
+    }
+
+    public void markCompleted() {
+        finishedAt = System.currentTimeMillis();
+        message = "导入完成";
+        status = STATUS_COMPLETED;
+    }
+
+    /**
+     * 文件无法继续解析或入库时终止任务，此前已提交的批次保留
+     */
+    public void markFailed(String reason) {
+        finishedAt = System.currentTimeMillis();
+        failureReason = reason;
+        message = "导入失败：" + reason;
+        status = STATUS_FAILED;
+    }
+
+    /**
+     * 读到一行数据（不含标题行和空行）
+     */
+    public void rowProcessed() {
+        processedRows.incrementAndGet();
+    }
+
+    public void addSuccess(int count) {
+        successCount.addAndGet(count);
+    }
+
+    public void addError(String errorMessage) {
+        errorCount.incrementAndGet();
+        synchronized (errorMessages) {
+            if (errorMessages.size() < MAX_ERROR_MESSAGES) {
+                errorMessages.add(errorMessage);
+            }
+        }
+    }
+
+    public int getProcessedRows() {
+        return processedRows.get();
+    }
+
+    public int getSuccessCount() {
+        return successCount.get();
+    }
+
+    public int getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * 从第 fromIndex 条开始的错误信息，轮询方只需拉取新增部分
+     */
+    public List<String> getErrorMessages(int fromIndex) {
+        synchronized (errorMessages) {
+            int from = Math.max(0, Math.min(fromIndex, errorMessages.size()));
+            return new ArrayList<>(errorMessages.subList(from, errorMessages.size()));
+        }
+    }
+
+    private int clampErrorOffset(int errorOffset) {
+        synchronized (errorMessages) {
+            return Math.max(0, Math.min(errorOffset, errorMessages.size()));
+        }
+    }
+
+    /**
+     * 每秒处理行数，按开始处理到完成（或当前）的时间计算
+     */
+    public double getRowsPerSecond() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        long end = finishedAt != 0 ? finishedAt : System.currentTimeMillis();
+        long elapsed = Math.max(1, end - startedAt);
+        return Math.round(processedRows.get() * 1000.0 * 100 / elapsed) / 100.0;
+    }
+
+    /**
+     * 同步导入接口的返回结构，与原有字段保持一致
+     */
+    public Map<String, Object> toImportResult() {
+        Map<String, Object> result = new HashMap<>();
+        List<String> messages = getErrorMessages(0);
+        int omitted = getErrorCount() - messages.size();
+        if (omitted > 0) {
+            messages.add("其余 " + omitted + " 条错误省略");
+        }
+        if (failureReason != null) {
+            messages.add("文件解析失败：" + failureReason);
+        }
+        result.put("success", STATUS_COMPLETED.equals(status));
+        result.put("message", message);
+        result.put("totalRows", getProcessedRows());
+        result.put("successCount", getSuccessCount());
+        result.put("errorCount", getErrorCount());
+        result.put("errorMessages", messages);
+        return result;
+    }
+
+    /**
+     * 进度查询接口的返回结构
+     * @param errorOffset 客户端已拿到的错误信息条数
+     */
+    public Map<String, Object> toProgress(int errorOffset) {
+        int from = clampErrorOffset(errorOffset);
+        List<String> newErrors = getErrorMessages(from);
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("jobId", jobId);
+        progress.put("fileName", fileName);
+        progress.put("status", status);
+        progress.put("message", message);
+        progress.put("createdAt", createdAt);
+        progress.put("startedAt", startedAt == 0 ? null : startedAt);
+        progress.put("finishedAt", finishedAt == 0 ? null : finishedAt);
+        progress.put("processedRows", getProcessedRows());
+        progress.put("successCount", getSuccessCount());
+        progress.put("errorCount", getErrorCount());
+        progress.put("rowsPerSecond", getRowsPerSecond());
+        progress.put("errorMessages", newErrors);
+        progress.put("nextErrorOffset", from + newErrors.size());
+        if (isFinished()) {
+            progress.put("result", toImportResult()); // 与同步导入相同的结果结构
+        }
+        return progress;
+    }
+}
@@ -0,0 +1,90 @@
+package com.a0615.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录接口的运行指标。
+ * 延迟分位数基于最近 {@value #WINDOW} 次登录的滑动窗口计算，计数器从启动起累计。
+ */
+public class LoginMetrics {
+
+    private static final int WINDOW = 1024;
+
+    private final AtomicLongArray latencyNanos = new AtomicLongArray(WINDOW);
+    private final AtomicLong recorded = new AtomicLong();
+
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public void recordSuccess(long elapsedNanos) {
+        successCount.increment();
+        recordLatency(elapsedNanos);
+    }
+
+    public void recordFailure(long elapsedNanos) {
+        failureCount.increment();
+        recordLatency(elapsedNanos);
+    }
+
+    /**
+     * 密码校验线程池已满或等待超时而被拒绝的登录，不计入延迟窗口
+     */
+    public void recordRejected() {
+        rejectedCount.increment();
+    }
+
+    private void recordLatency(long elapsedNanos) {
+        long slot = recorded.getAndIncrement() % WINDOW;
+        latencyNanos.set((int) slot, elapsedNanos);
+    }
+
+    /**
+     * 当前指标快照
+     * @param queueDepth 等待密码校验的登录数
+     * @param queueCapacity 等待队列容量
+     * @param activeHashes 正在进行密码校验的线程数
+     */
+    public Map<String, Object> snapshot(int queueDepth, int queueCapacity, int activeHashes) {
+        int size = (int) Math.min(recorded.get(), WINDOW);
+        long[] samples = new long[size];
+        for (int i = 0; i < size; i++) {
+            samples[i] = latencyNanos.get(i);
+        }
+        Arrays.sort(samples);
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("samples", size);
+        latency.put("p50Ms", percentileMillis(samples, 0.50));
+        latency.put("p90Ms", percentileMillis(samples, 0.90));
+        latency.put("p99Ms", percentileMillis(samples, 0.99));
+        latency.put("maxMs", size > 0 ? toMillis(samples[size - 1]) : 0.0);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("successCount", successCount.sum());
+        result.put("failureCount", failureCount.sum());
+        result.put("rejectedCount", rejectedCount.sum());
+        result.put("queueDepth", queueDepth);
+        result.put("queueCapacity", queueCapacity);
+        result.put("activeHashes", activeHashes);
+        result.put("latency", latency);
+        return result;
+    }
+
+    private double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return toMillis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+
+    private double toMillis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+}
@@ -1,5 +1,6 @@
 package com.a0615.service;
 
+import com.a0615.cache.TokenVersionRegistry;
 import com.a0615.entity.Admin;
 import com.a0615.mapper.AdminMapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -20,6 +21,12 @@ public class AdminService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
     /**
      * 获取所有管理员信息
      * @return 管理员列表
@@ -57,6 +64,7 @@ public class AdminService {
     public void addAdmin(Admin admin) {
         admin.setPwd(passwordEncoder.encode(admin.getPwd()));
         adminMapper.insert(admin);
+        userDetailsService.invalidate(admin.getUsername()); // 清除可能存在的"用户不存在"缓存
     }
 
     /**
@@ -66,10 +74,23 @@ public class AdminService {
      */
     @Transactional
     public void updateAdmin(Admin admin) {
-        if (admin.getPwd() != null && !admin.getPwd().isEmpty()) {
+        Admin before = admin.getId() != null ? adminMapper.selectById(admin.getId()) : null;
+        boolean passwordChanged = admin.getPwd() != null && !admin.getPwd().isEmpty();
+        if (passwordChanged) {
             admin.setPwd(passwordEncoder.encode(admin.getPwd()));
         }
-        adminMapper.updateById(admin);
+        int rowsAffected = adminMapper.updateById(admin);
+        // 新旧用户名的缓存都要清除：旧名可能已不存在，新名可能留有"用户不存在"的缓存
+        if (before != null) {
+            userDetailsService.invalidate(before.getUsername());
+        }
+        userDetailsService.invalidate(admin.getUsername());
+        // 修改密码或用户名后，按原用户名签发的令牌全部失效
+        boolean usernameChanged = before != null && admin.getUsername() != null
+                && !admin.getUsername().equals(before.getUsername());
+        if (rowsAffected > 0 && before != null && (passwordChanged || usernameChanged)) {
+            tokenVersionRegistry.revoke(TokenVersionRegistry.TYPE_ADMIN, before.getUsername());
+        }
     }
 
     /**
@@ -78,7 +99,13 @@ public class AdminService {
      */
     @Transactional
     public void deleteAdmin(Integer id) {
-        adminMapper.deleteById(id);
+        Admin before = adminMapper.selectById(id);
+        if (before != null) {
+            userDetailsService.invalidate(before.getUsername());
+        }
+        if (adminMapper.deleteById(id) > 0 && before != null) {
+            tokenVersionRegistry.revoke(TokenVersionRegistry.TYPE_ADMIN, before.getUsername());
+        }
     }
 
     /**
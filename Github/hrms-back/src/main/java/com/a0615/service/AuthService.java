@@ -0,0 +1,267 @@
+package com.a0615.service;
+
+import com.a0615.cache.TokenRevocationList;
+import com.a0615.cache.TokenVersionRegistry;
+import com.a0615.dto.AuthResponseDTO;
+import com.a0615.exception.RateLimitExceededException;
+import com.a0615.model.LoginMetrics;
+import com.a0615.util.JwtUtil;
+import com.a0615.util.TokenBucketRateLimiter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 登录服务。
+ * 每次登录只解析一次账号（管理员优先，其次员工），只做一次 BCrypt 校验；
+ * 密码哈希、角色和返回给前端的用户信息都取自这一次 {@link UserDetailsServiceImpl} 查找（数据库加缓存，账号修改时立即失效），
+ * 校验通过后不再查询管理员或员工；
+ * BCrypt 在独立的有界线程池中执行，登录高峰时超出队列的请求直接拒绝，而不是占满所有 CPU；
+ * 查库之前先按客户端 IP 和用户名限流。
+ */
+@Service
+public class AuthService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    /**
+     * 等待密码校验结果的最长时间（毫秒），超时按繁忙拒绝处理
+     */
+    @Value("${auth.login.hash-timeout-ms:5000}")
+    private long hashTimeoutMs;
+
+    /**
+     * 是否限流；关闭后只保留密码校验线程池的排队上限
+     */
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    private final ThreadPoolExecutor hashExecutor;
+    private final int queueCapacity;
+    private final LoginMetrics metrics = new LoginMetrics();
+
+    // 按客户端 IP 和按用户名的令牌桶，在查库和 BCrypt 之前拦截撞库流量
+    private final TokenBucketRateLimiter ipLimiter;
+    private final TokenBucketRateLimiter usernameLimiter;
+
+    // 用户不存在时也做一次同等开销的校验，避免通过响应时间判断用户名是否存在
+    private volatile String dummyHash;
+
+    public AuthService(@Value("${auth.login.hash-threads:0}") int hashThreads,
+                       @Value("${auth.login.queue-capacity:64}") int queueCapacity,
+                       @Value("${auth.rate-limit.ip.capacity:20}") int ipCapacity,
+                       @Value("${auth.rate-limit.ip.refill-per-minute:60}") int ipRefillPerMinute,
+                       @Value("${auth.rate-limit.username.capacity:5}") int usernameCapacity,
+                       @Value("${auth.rate-limit.username.refill-per-minute:10}") int usernameRefillPerMinute,
+                       @Value("${auth.rate-limit.max-keys:100000}") int maxKeys) {
+        this.ipLimiter = new TokenBucketRateLimiter(ipCapacity, ipRefillPerMinute, maxKeys);
+        this.usernameLimiter = new TokenBucketRateLimiter(usernameCapacity, usernameRefillPerMinute, maxKeys);
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = queueCapacity;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.hashExecutor = new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "login-hash-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 校验用户名和密码并签发令牌
+     * @param clientIp 客户端地址，用于按 IP 限流
+     * @throws RateLimitExceededException 该 IP 或用户名的登录尝试过于频繁
+     * @throws BadCredentialsException 用户名或密码错误
+     * @throws RejectedExecutionException 密码校验线程池已满或等待超时
+     */
+    public AuthResponseDTO login(String username, String password, String clientIp) {
+        checkRateLimit(clientIp, username);
+        long start = System.nanoTime();
+        if (username == null || username.isEmpty() || password == null || password.isEmpty()) {
+            metrics.recordFailure(System.nanoTime() - start);
+            throw new BadCredentialsException("用户名或密码不正确！");
+        }
+
+        try {
+            // 一次查找同时得到密码哈希、角色和用户信息：先作为管理员 (username)，再作为员工 (emp_id)
+            UserDetailsServiceImpl.Account account = null;
+            try {
+                account = userDetailsService.loadUserByUsername(username);
+            } catch (UsernameNotFoundException e) {
+                // 用户不存在，仍做一次同等开销的校验
+            }
+
+            String storedHash = account != null ? account.getPassword() : null;
+            boolean matched = verifyPassword(password, storedHash != null ? storedHash : dummyHash());
+            if (!matched || storedHash == null) {
+                metrics.recordFailure(System.nanoTime() - start);
+                throw new BadCredentialsException("用户名或密码不正确！");
+            }
+
+            String role = account.getRole();
+            UserDetails userDetails = User.withUsername(username).password("").roles(role).build();
+            AuthResponseDTO response = new AuthResponseDTO();
+            response.setToken(jwtUtil.generateToken(userDetails, role));
+            response.setRole(role.toLowerCase()); // 转为小写以保持前端一致性
+            response.setUsername(username);
+            response.setUser(account.getProfile()); // 设置完整的用户对象（不含密码）
+            response.setRefreshToken(jwtUtil.generateRefreshToken(username, role));
+
+            metrics.recordSuccess(System.nanoTime() - start);
+            return response;
+        } catch (RejectedExecutionException e) {
+            metrics.recordRejected();
+            throw e;
+        }
+    }
+
+    /**
+     * 用刷新令牌换取新的访问令牌和刷新令牌。旧刷新令牌随即吊销（轮换），同一刷新令牌只能使用一次；
+     * 用户修改密码、状态或被删除后令牌版本号已变化，刷新同样失败
+     * @throws BadCredentialsException 刷新令牌无效、已使用或已被吊销
+     */
+    public AuthResponseDTO refresh(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseClaims(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadCredentialsException("刷新令牌无效或已过期", e);
+        }
+        String username = claims.getSubject();
+        String role = claims.get(JwtUtil.CLAIM_PRINCIPAL_TYPE, String.class);
+        Integer tokenVersion = claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Integer.class);
+        if (!jwtUtil.isRefreshToken(claims) || claims.getId() == null || role == null || tokenVersion == null) {
+            throw new BadCredentialsException("不是有效的刷新令牌");
+        }
+        if (tokenVersion < tokenVersionRegistry.versionForIssue(role, username)) {
+            throw new BadCredentialsException("刷新令牌已失效，请重新登录");
+        }
+        // 写入吊销表是原子的：并发使用同一刷新令牌时只有一个请求能成功
+        if (!tokenRevocationList.revoke(claims.getId(), claims.getExpiration().getTime())) {
+            logger.warn("Refresh token {} for {} was already used or revoked", claims.getId(), username);
+            throw new BadCredentialsException("刷新令牌已使用或已被吊销，请重新登录");
+        }
+
+        UserDetails userDetails = User.withUsername(username).password("").roles(role).build();
+        AuthResponseDTO response = new AuthResponseDTO(jwtUtil.generateToken(userDetails, role), role.toLowerCase(), username);
+        response.setRefreshToken(jwtUtil.generateRefreshToken(username, role));
+        return response;
+    }
+
+    /**
+     * 登出：吊销传入的访问令牌和刷新令牌，无效或已过期的令牌直接忽略
+     */
+    public void logout(String accessToken, String refreshToken) {
+        for (String token : new String[] {accessToken, refreshToken}) {
+            if (token == null || token.isEmpty()) {
+                continue;
+            }
+            try {
+                Claims claims = jwtUtil.parseClaims(token);
+                tokenRevocationList.revoke(claims.getId(), claims.getExpiration().getTime());
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.debug("Ignoring invalid token on logout: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 当前登录指标，包括延迟分位数和密码校验队列深度
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> result = metrics.snapshot(hashExecutor.getQueue().size(), queueCapacity, hashExecutor.getActiveCount());
+        Map<String, Object> rateLimit = new LinkedHashMap<>();
+        rateLimit.put("enabled", rateLimitEnabled);
+        rateLimit.put("ipRejectedCount", ipLimiter.getRejectedCount());
+        rateLimit.put("usernameRejectedCount", usernameLimiter.getRejectedCount());
+        rateLimit.put("trackedIps", ipLimiter.getTrackedKeys());
+        rateLimit.put("trackedUsernames", usernameLimiter.getTrackedKeys());
+        result.put("rateLimit", rateLimit);
+        return result;
+    }
+
+    private void checkRateLimit(String clientIp, String username) {
+        if (!rateLimitEnabled) {
+            return;
+        }
+        long waitNanos = clientIp != null ? ipLimiter.tryAcquire(clientIp) : 0;
+        if (waitNanos == 0 && username != null && !username.isEmpty()) {
+            waitNanos = usernameLimiter.tryAcquire(username);
+        }
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            logger.warn("Login rate limit exceeded: ip={}, username={}", clientIp, username);
+            throw new RateLimitExceededException("登录尝试过于频繁，请稍后再试。", retryAfterSeconds);
+        }
+    }
+
+    private boolean verifyPassword(String rawPassword, String storedHash) {
+        Future<Boolean> future = hashExecutor.submit(() -> passwordEncoder.matches(rawPassword, storedHash));
+        try {
+            return future.get(hashTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RejectedExecutionException("密码校验等待超时");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("密码校验被中断");
+        } catch (ExecutionException e) {
+            logger.warn("Password verification failed: {}", e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode("userNotFoundPassword");
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdownNow();
+    }
+}
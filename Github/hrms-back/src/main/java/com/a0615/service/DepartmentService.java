@@ -0,0 +1,243 @@
+package com.a0615.service;
+
+import com.a0615.cache.DepartmentTree;
+import com.a0615.cache.DepartmentTree.Rollup;
+import com.a0615.cache.EmployeeDirectory;
+import com.a0615.cache.LatestSalaryIndex;
+import com.a0615.cache.LatestSalaryIndex.LatestSalary;
+import com.a0615.dto.DepartmentDTO;
+import com.a0615.entity.Department;
+import com.a0615.entity.DepartmentClosure;
+import com.a0615.entity.Employee;
+import com.a0615.mapper.DepartmentMapper;
+import com.a0615.util.TransactionUtils;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class DepartmentService {
+
+    @Autowired
+    private DepartmentMapper departmentMapper;
+
+    @Autowired
+    private DepartmentTree departmentTree;
+
+    @Autowired
+    private EmployeeDirectory employeeDirectory;
+
+    @Autowired
+    private LatestSalaryIndex latestSalaryIndex;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    /**
+     * 全部部门及其汇总，按层级和名称排序。
+     * 部门树就绪时每个部门的汇总都是一次查找；否则按数据库中的闭包表和全部员工现场计算。
+     */
+    public List<DepartmentDTO> listDepartments() {
+        List<DepartmentTree.Node> nodes = departmentTree.nodes();
+        if (nodes != null && departmentTree.isReady()) {
+            List<DepartmentDTO> result = new ArrayList<>(nodes.size());
+            for (DepartmentTree.Node node : nodes) {
+                result.add(toDTO(node.department(), node.level(),
+                    departmentTree.ownRollup(node.department().getId()), departmentTree.subtreeRollup(node.department().getId())));
+            }
+            return result;
+        }
+        return listWithoutTree();
+    }
+
+    /**
+     * 单个部门及其汇总
+     * @return 部门不存在时返回 null
+     */
+    public DepartmentDTO getDepartment(Integer id) {
+        DepartmentTree.Node node = departmentTree.node(id);
+        if (node != null && departmentTree.isReady()) {
+            return toDTO(node.department(), node.level(), departmentTree.ownRollup(id), departmentTree.subtreeRollup(id));
+        }
+        return listWithoutTree().stream().filter(dto -> dto.getId().equals(id)).findFirst().orElse(null);
+    }
+
+    /**
+     * 部门及其全部下级部门的员工
+     * @return 部门不存在时返回 null
+     */
+    public List<Employee> getSubtreeEmployees(Integer id) {
+        if (departmentMapper.selectById(id) == null) {
+            return null;
+        }
+        Set<String> names = new HashSet<>(departmentMapper.selectSubtreeNames(id));
+        if (employeeDirectory.isReady()) {
+            List<Employee> result = new ArrayList<>();
+            for (String name : names) {
+                result.addAll(employeeDirectory.byDept(name)); // 按部门索引取，不遍历全部员工
+            }
+            result.sort(Comparator.comparing(Employee::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+            return result;
+        }
+        return employeeService.getAllEmployees().stream()
+            .filter(employee -> names.contains(employee.getDept()))
+            .toList();
+    }
+
+    /**
+     * 新增部门
+     * @param parentId 上级部门ID，顶级部门传 null
+     * @throws IllegalArgumentException 如果名称为空、已存在或上级部门不存在
+     */
+    @Transactional
+    public Department createDepartment(String name, Integer parentId) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("部门名称不能为空");
+        }
+        if (departmentMapper.selectCount(new QueryWrapper<Department>().eq("name", name.trim())) > 0) {
+            throw new IllegalArgumentException("部门已存在: " + name.trim());
+        }
+        if (parentId != null && departmentMapper.selectById(parentId) == null) {
+            throw new IllegalArgumentException("上级部门不存在: " + parentId);
+        }
+        Department department = new Department();
+        department.setName(name.trim());
+        department.setParentId(parentId);
+        department.setCreatedAt(LocalDateTime.now());
+        department.setUpdatedAt(LocalDateTime.now());
+        departmentMapper.insert(department);
+        departmentMapper.insertClosures(department.getId(), parentId);
+        TransactionUtils.afterCommit(departmentTree::reload);
+        return department;
+    }
+
+    /**
+     * 把部门（连同其全部下级）移动到新的上级下，闭包表只改动子树与外部祖先之间的行
+     * @param parentId 新上级部门ID，移为顶级部门时传 null
+     * @return 部门不存在时返回 false
+     * @throws IllegalArgumentException 如果新上级不存在，或是该部门自身或其下级
+     */
+    @Transactional
+    public boolean moveDepartment(Integer id, Integer parentId) {
+        Department department = departmentMapper.selectById(id);
+        if (department == null) {
+            return false;
+        }
+        if (parentId != null) {
+            if (departmentMapper.selectById(parentId) == null) {
+                throw new IllegalArgumentException("上级部门不存在: " + parentId);
+            }
+            if (departmentMapper.countPath(id, parentId) > 0) {
+                throw new IllegalArgumentException("不能把部门移动到自身或其下级部门之下");
+            }
+        }
+        departmentMapper.detachSubtree(id);
+        if (parentId != null) {
+            departmentMapper.attachSubtree(id, parentId);
+        }
+        departmentMapper.update(null, new UpdateWrapper<Department>()
+            .set("parent_id", parentId)
+            .set("updated_at", LocalDateTime.now())
+            .eq("id", id));
+        TransactionUtils.afterCommit(departmentTree::reload);
+        return true;
+    }
+
+    /**
+     * 删除部门，只允许删除没有下级部门、也没有员工的部门
+     * @return 部门不存在时返回 false
+     * @throws IllegalArgumentException 如果部门还有下级部门或员工
+     */
+    @Transactional
+    public boolean deleteDepartment(Integer id) {
+        Department department = departmentMapper.selectById(id);
+        if (department == null) {
+            return false;
+        }
+        if (departmentMapper.selectCount(new QueryWrapper<Department>().eq("parent_id", id)) > 0) {
+            throw new IllegalArgumentException("部门还有下级部门，不能删除");
+        }
+        boolean hasEmployees = employeeDirectory.isReady()
+            ? !employeeDirectory.byDept(department.getName()).isEmpty()
+            : employeeService.getAllEmployees().stream().anyMatch(employee -> department.getName().equals(employee.getDept()));
+        if (hasEmployees) {
+            throw new IllegalArgumentException("部门还有员工，不能删除");
+        }
+        departmentMapper.deleteClosures(id);
+        departmentMapper.deleteById(id);
+        TransactionUtils.afterCommit(departmentTree::reload);
+        return true;
+    }
+
+    /**
+     * 部门树未就绪时的回退：读取部门和闭包表，遍历全部员工一次计算所有部门的汇总
+     */
+    private List<DepartmentDTO> listWithoutTree() {
+        List<Department> departments = departmentMapper.selectList(null);
+        List<DepartmentClosure> closures = departmentMapper.selectAllClosures();
+        Map<String, Integer> idByName = new HashMap<>();
+        departments.forEach(department -> idByName.put(department.getName(), department.getId()));
+        Map<Integer, List<Integer>> ancestorsById = new HashMap<>();
+        Map<Integer, Integer> levels = new HashMap<>();
+        for (DepartmentClosure closure : closures) {
+            ancestorsById.computeIfAbsent(closure.getDescendantId(), key -> new ArrayList<>()).add(closure.getAncestorId());
+            levels.merge(closure.getDescendantId(), closure.getDepth(), Math::max);
+        }
+
+        Map<String, LatestSalary> latest = latestSalaryIndex.snapshotByEmpId();
+        Map<Integer, Rollup> own = new HashMap<>();
+        Map<Integer, Rollup> subtree = new HashMap<>();
+        for (Employee employee : employeeService.getAllEmployees()) {
+            Integer id = employee.getDept() != null ? idByName.get(employee.getDept()) : null;
+            if (id == null) {
+                continue;
+            }
+            boolean active = "在职".equals(employee.getStatus());
+            LatestSalary salary = active ? latest.get(employee.getEmpId()) : null;
+            Rollup contribution = new Rollup(1, active ? 1 : 0, salary != null ? 1 : 0, salary != null ? salary.totalCents() : 0);
+            own.merge(id, contribution, this::sum);
+            for (Integer ancestor : ancestorsById.getOrDefault(id, List.of(id))) {
+                subtree.merge(ancestor, contribution, this::sum);
+            }
+        }
+
+        Rollup zero = new Rollup(0, 0, 0, 0);
+        List<DepartmentDTO> result = new ArrayList<>(departments.size());
+        for (Department department : departments) {
+            result.add(toDTO(department, levels.getOrDefault(department.getId(), 0),
+                own.getOrDefault(department.getId(), zero), subtree.getOrDefault(department.getId(), zero)));
+        }
+        result.sort(Comparator.comparingInt(DepartmentDTO::getLevel).thenComparing(DepartmentDTO::getName));
+        return result;
+    }
+
+    private Rollup sum(Rollup a, Rollup b) {
+        return new Rollup(a.headcount() + b.headcount(), a.activeHeadcount() + b.activeHeadcount(),
+            a.salariedCount() + b.salariedCount(), a.payrollCents() + b.payrollCents());
+    }
+
+    private DepartmentDTO toDTO(Department department, int level, Rollup own, Rollup subtree) {
+        DepartmentDTO dto = new DepartmentDTO();
+        dto.setId(department.getId());
+        dto.setName(department.getName());
+        dto.setParentId(department.getParentId());
+        dto.setLevel(level);
+        dto.setHeadcount(own.headcount());
+        dto.setSubtreeHeadcount(subtree.headcount());
+        dto.setSubtreeActiveHeadcount(subtree.activeHeadcount());
+        dto.setSubtreePayroll(subtree.payroll());
+        dto.setSubtreeAverageSalary(subtree.averageSalary());
+        return dto;
+    }
+}
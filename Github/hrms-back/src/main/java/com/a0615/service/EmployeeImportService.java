@@ -0,0 +1,345 @@
+package com.a0615.service;
+
+import com.a0615.cache.EmployeeDirectory;
+import com.a0615.entity.Employee;
+import com.a0615.mapper.EmployeeMapper;
+import com.a0615.model.ImportJob;
+import com.a0615.util.ExcelRowReader;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 批量导入员工（入职）。
+ * 文件（.xlsx/.xls/.csv）落盘后逐行流式解析，每批：一次 emp_id IN 查询校验工号是否已存在，
+ * 在按 CPU 核数创建的有界线程池中并行加密密码，再以多行 INSERT 在一个事务内写入。
+ * 导入线程池与登录的密码校验线程池分开，导入期间登录仍有自己的线程。
+ */
+@Service
+public class EmployeeImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeImportService.class);
+
+    // 与表结构一致的长度上限，超长的行单独判错，避免整批写入失败
+    private static final int MAX_EMP_ID_LENGTH = 20;
+    private static final int MAX_NAME_LENGTH = 50;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EmployeeDirectory employeeDirectory;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 每条多行 INSERT 包含的员工数
+     */
+    @Value("${employee.import.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 每批校验、加密、入库的行数
+     */
+    private final int chunkSize;
+
+    private final ThreadPoolExecutor hashExecutor;
+
+    public EmployeeImportService(@Value("${employee.import.hash-threads:0}") int hashThreads,
+                                 @Value("${employee.import.chunk-size:1000}") int chunkSize) {
+        this.chunkSize = chunkSize;
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 队列放得下一批；多个导入同时进行导致队列满时由导入线程自己加密，形成自然的背压
+        this.hashExecutor = new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, chunkSize)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "employee-import-hash-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 导入员工。第一行为标题行，列顺序：工号、姓名、部门、职位、初始密码、角色、入职时间、状态，
+     * 角色、入职时间、状态为空时与单个新增员工的默认值相同
+     * @return 导入结果：总行数、成功数、逐行错误信息，以及耗时和吞吐量
+     */
+    public Map<String, Object> importEmployees(MultipartFile file) {
+        ImportJob job = new ImportJob(file.getOriginalFilename());
+        ImportStats stats = new ImportStats();
+        File tempFile = null;
+        try {
+            // 落盘后按行流式解析，避免整个工作簿常驻内存
+            tempFile = File.createTempFile("employee-import-", ".tmp");
+            file.transferTo(tempFile);
+            importEmployees(tempFile, file.getOriginalFilename(), job, stats);
+        } catch (Exception e) {
+            logger.error("导入员工时发生异常: {}", file.getOriginalFilename(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+
+        Map<String, Object> result = job.toImportResult();
+        result.put("rowsPerSecond", job.getRowsPerSecond());
+        result.put("elapsedMs", stats.elapsedMs);
+        result.put("hashMs", stats.hashNanos / 1_000_000);
+        result.put("insertMs", stats.insertNanos / 1_000_000);
+        result.put("hashThreads", hashExecutor.getMaximumPoolSize());
+        return result;
+    }
+
+    private void importEmployees(File file, String fileName, ImportJob job, ImportStats stats) throws Exception {
+        long start = System.currentTimeMillis();
+        job.markRunning();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        Set<String> importedEmpIds = new HashSet<>();
+
+        try {
+            ExcelRowReader.read(file, fileName, (rowNum, cells) -> {
+                // 跳过标题行和空行
+                if (rowNum == 1 || isBlankRow(cells)) {
+                    return;
+                }
+                job.rowProcessed();
+
+                try {
+                    chunk.add(parseRow(cells, rowNum));
+                } catch (IllegalArgumentException e) {
+                    job.addError("第" + rowNum + "行：" + e.getMessage());
+                    return;
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    flushChunk(chunk, importedEmpIds, job, stats);
+                }
+            });
+            flushChunk(chunk, importedEmpIds, job, stats);
+            job.markCompleted();
+        } finally {
+            stats.elapsedMs = System.currentTimeMillis() - start;
+        }
+
+        logger.info("Employee import finished: rows={}, success={}, errors={}, {} rows/s, hash {} ms, insert {} ms",
+            job.getProcessedRows(), job.getSuccessCount(), job.getErrorCount(), job.getRowsPerSecond(),
+            stats.hashNanos / 1_000_000, stats.insertNanos / 1_000_000);
+    }
+
+    /**
+     * 校验、加密并写入一批员工，完成后清空该批次。
+     * 整批只查一次库校验工号是否已存在；文件内重复的工号通过 importedEmpIds 检出，先出现的行有效
+     */
+    private void flushChunk(List<ImportRow> chunk, Set<String> importedEmpIds, ImportJob job, ImportStats stats) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<ImportRow> candidates = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (!importedEmpIds.add(row.employee().getEmpId())) {
+                job.addError("第" + row.rowNum() + "行：员工工号 " + row.employee().getEmpId() + " 在文件中重复");
+                continue;
+            }
+            candidates.add(row);
+        }
+        chunk.clear();
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Set<String> existingEmpIds = employeeMapper.selectObjs(
+                new QueryWrapper<Employee>().select("emp_id")
+                    .in("emp_id", candidates.stream().map(row -> row.employee().getEmpId()).collect(Collectors.toSet()))
+            ).stream()
+            .map(String::valueOf)
+            .collect(Collectors.toSet());
+        List<ImportRow> fresh = new ArrayList<>(candidates.size());
+        for (ImportRow row : candidates) {
+            if (existingEmpIds.contains(row.employee().getEmpId())) {
+                job.addError("第" + row.rowNum() + "行：员工工号 " + row.employee().getEmpId() + " 已存在");
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        // 并行加密：BCrypt 是整个导入中最耗时的部分
+        long hashStart = System.nanoTime();
+        List<Future<String>> hashes = new ArrayList<>(fresh.size());
+        for (ImportRow row : fresh) {
+            String rawPassword = row.rawPassword();
+            hashes.add(hashExecutor.submit(() -> passwordEncoder.encode(rawPassword)));
+        }
+        List<Employee> employees = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            try {
+                Employee employee = fresh.get(i).employee();
+                employee.setPwd(hashes.get(i).get());
+                employees.add(employee);
+            } catch (InterruptedException e) {
+                hashes.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("密码加密被中断", e);
+            } catch (ExecutionException e) {
+                job.addError("第" + fresh.get(i).rowNum() + "行：密码加密失败 - " + e.getCause().getMessage());
+            }
+        }
+        stats.hashNanos += System.nanoTime() - hashStart;
+
+        // 每批在独立事务中提交，失败时只回滚当前批次
+        long insertStart = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < employees.size(); from += batchSize) {
+                    employeeMapper.insertBatchValues(employees.subList(from, Math.min(from + batchSize, employees.size())));
+                }
+                employeeDirectory.onSavedAll(employees);
+                // 清除可能存在的"用户不存在"缓存
+                employees.forEach(employee -> userDetailsService.invalidate(employee.getEmpId()));
+            });
+            job.addSuccess(employees.size());
+        } catch (RuntimeException e) {
+            // 例如其他请求在校验之后插入了相同工号，整批回滚
+            logger.warn("Employee import chunk of {} rows failed: {}", employees.size(), e.getMessage());
+            for (ImportRow row : fresh) {
+                if (row.employee().getPwd() != null) {
+                    job.addError("第" + row.rowNum() + "行：写入失败，本批次已回滚 - " + e.getMessage());
+                }
+            }
+        } finally {
+            stats.insertNanos += System.nanoTime() - insertStart;
+        }
+    }
+
+    /**
+     * 解析一行，校验规则与单个新增员工相同
+     * @throws IllegalArgumentException 数据不合法
+     */
+    private ImportRow parseRow(List<String> cells, int rowNum) {
+        String empId = cellText(cells, 0);
+        if (empId.isEmpty()) {
+            throw new IllegalArgumentException("员工工号不能为空");
+        }
+        if (empId.length() > MAX_EMP_ID_LENGTH) {
+            throw new IllegalArgumentException("员工工号不能超过" + MAX_EMP_ID_LENGTH + "个字符");
+        }
+        String name = cellText(cells, 1);
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("姓名不能为空");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("姓名不能超过" + MAX_NAME_LENGTH + "个字符");
+        }
+        String rawPassword = cellText(cells, 4);
+        if (rawPassword.isEmpty()) {
+            throw new IllegalArgumentException("员工密码不能为空");
+        }
+
+        Employee employee = new Employee();
+        employee.setEmpId(empId);
+        employee.setName(name);
+        employee.setDept(emptyToNull(cellText(cells, 2)));
+        employee.setPos(emptyToNull(cellText(cells, 3)));
+        String role = cellText(cells, 5);
+        employee.setRole(!role.isEmpty() ? role : "EMPLOYEE");
+        String entryTime = cellText(cells, 6);
+        employee.setEntryTime(!entryTime.isEmpty() ? parseDate(entryTime) : LocalDate.now());
+        String status = cellText(cells, 7);
+        employee.setStatus(!status.isEmpty() ? status : "在职");
+        return new ImportRow(rowNum, employee, rawPassword);
+    }
+
+    /**
+     * 支持 yyyy-MM-dd 文本和 Excel 日期单元格（读出的是日期序列号）
+     */
+    private LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            try {
+                double serial = Double.parseDouble(value);
+                if (DateUtil.isValidExcelDate(serial)) {
+                    return DateUtil.getLocalDateTime(serial).toLocalDate();
+                }
+            } catch (NumberFormatException ignored) {
+                // 既不是日期文本也不是日期序列号
+            }
+            throw new IllegalArgumentException("入职时间格式错误，应为yyyy-MM-dd格式，如：2024-01-15");
+        }
+    }
+
+    private String cellText(List<String> cells, int column) {
+        String value = column < cells.size() ? cells.get(column) : null;
+        return value != null ? value.trim() : "";
+    }
+
+    private String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private boolean isBlankRow(List<String> cells) {
+        for (String cell : cells) {
+            if (cell != null && !cell.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 已解析、待校验的一行：行号、员工（密码尚未加密）和明文密码
+     */
+    private record ImportRow(int rowNum, Employee employee, String rawPassword) {
+    }
+
+    /**
+     * 单次导入的耗时统计，加密和写入分开计时，只由导入线程访问
+     */
+    private static final class ImportStats {
+        long hashNanos;
+        long insertNanos;
+        long elapsedMs;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdownNow();
+    }
+}
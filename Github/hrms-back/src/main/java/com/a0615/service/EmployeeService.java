@@ -1,39 +1,115 @@
 package com.a0615.service;
 
+import com.a0615.cache.EmployeeDirectory;
+import com.a0615.cache.EmployeeFacetIndex;
+import com.a0615.cache.EmployeeNameIndex;
+import com.a0615.cache.TokenVersionRegistry;
 import com.a0615.entity.Employee;
 import com.a0615.mapper.EmployeeMapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.text.Collator;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
+import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.TreeMap;
+import java.util.function.Function;
 
 // !!! 确保导入这些 DTOs !!!
 import com.a0615.dto.EmployeeCreateDTO;
 import com.a0615.dto.EmployeeUpdateDTO;
+import com.a0615.dto.EmployeeBulkUpdateDTO;
+import com.a0615.dto.EmployeeFacetResultDTO;
+import com.a0615.dto.EmployeeSummaryDTO;
+import com.a0615.dto.KeysetPageDTO;
 
 @Service
 public class EmployeeService {
 
+    // 游标分页的默认和最大每页条数
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // 允许排序的字段（请求参数名 -> 列名），列名会直接拼入 SQL，只能取这里的值
+    private static final Map<String, String> SORT_COLUMNS = Map.of("id", "id", "empId", "emp_id", "name", "name");
+
+    /**
+     * 内存中排序和比较游标用的排序规则，与 employee 表的 utf8mb4_0900_ai_ci 一致：
+     * Unicode 排序算法，只比较基本字符（不区分大小写和重音）。
+     * 否则同一游标在内存路径和 SQL 路径之间切换时会重复或漏掉记录。RuleBasedCollator 的比较方法带锁，每次查询复制一份使用
+     */
+    private static final Collator SORT_COLLATOR = createSortCollator();
+
     @Autowired
     private EmployeeMapper employeeMapper;
 
     @Autowired
     private PasswordEncoder passwordEncoder; // 注入密码编码器接口
 
+    @Autowired
+    private SalaryService salaryService;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private EmployeeDirectory employeeDirectory;
+
+    @Autowired
+    private EmployeeNameIndex employeeNameIndex;
+
+    @Autowired
+    private EmployeeFacetIndex employeeFacetIndex;
+
+    /**
+     * 批量修改时每条 UPDATE ... WHERE emp_id IN (...) 包含的工号数
+     */
+    @Value("${employee.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    /**
+     * 一次批量修改最多包含的工号数
+     */
+    @Value("${employee.bulk.max-size:10000}")
+    private int bulkMaxSize;
+
     /**
      * 获取所有员工列表。
      * 此方法本身不进行权限检查，权限检查由Controller层的@PreAuthorize完成。
      * @return 员工列表。
      */
     public List<Employee> getAllEmployees() {
-        return employeeMapper.selectList(null);
+        List<Employee> employees = employeeDirectory.all(); // 优先读取内存目录，返回的列表不可修改
+        return employees != null ? employees : employeeMapper.selectList(null);
+    }
+
+    /**
+     * 员工总数，目录就绪时为 O(1)
+     * @return 员工数量。
+     */
+    public int getEmployeeCount() {
+        int count = employeeDirectory.count();
+        return count >= 0 ? count : Math.toIntExact(employeeMapper.selectCount(null));
     }
 
     /**
@@ -43,6 +119,16 @@ public class EmployeeService {
      * @return 员工对象，如果不存在则返回null。
      */
     public Employee getEmployeeByEmpId(String empId) {
+        if (employeeDirectory.isReady()) {
+            return employeeDirectory.get(empId); // 目录中的对象是共享的，只读
+        }
+        return selectByEmpId(empId);
+    }
+
+    /**
+     * 直接从数据库查询员工，写操作使用，得到的实体可以安全修改
+     */
+    private Employee selectByEmpId(String empId) {
         QueryWrapper<Employee> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("emp_id", empId);
         return employeeMapper.selectOne(queryWrapper);
@@ -56,8 +142,8 @@ public class EmployeeService {
      */
     @Transactional // 事务管理
     public void addEmployee(EmployeeCreateDTO createDto) { // <-- 参数类型改为 EmployeeCreateDTO
-        // 检查 empId 是否已存在
-        if (getEmployeeByEmpId(createDto.getEmpId()) != null) {
+        // 检查 empId 是否已存在（写操作以数据库为准）
+        if (selectByEmpId(createDto.getEmpId()) != null) {
             throw new IllegalArgumentException("员工工号 " + createDto.getEmpId() + " 已存在。");
         }
 
@@ -86,70 +172,175 @@ public class EmployeeService {
         employee.setStatus(createDto.getStatus() != null && !createDto.getStatus().isEmpty() ? createDto.getStatus() : "在职");
 
         employeeMapper.insert(employee);
+        employeeDirectory.onSaved(employee);
+        userDetailsService.invalidate(employee.getEmpId()); // 清除可能存在的"用户不存在"缓存
     }
 
     /**
      * 根据员工工号更新员工信息。
-     * 从 DTO 接收更新数据，并应用到现有实体。
+     * 只写入调用方传入的字段：传入的字段放入一个只含这些字段的实体，直接生成一条
+     * UPDATE employee SET <传入的列> WHERE emp_id = ?，不先读取整行（以数据库为准，不会因内存目录落后而漏写字段）。
+     * 只有调岗时为移动薪资汇总需要原部门，才加锁读取该员工的部门一列。
+     * 传入的密码只加密一次，不与原密码比较。
      * @param empId 待更新员工的工号。
      * @param updateDto 包含更新信息的员工 DTO。
-     * @return 如果更新成功返回true，否则返回false（员工不存在或未作任何修改）。
+     * @return 如果更新成功返回true，否则返回false（未传入任何字段）。
      * @throws IllegalArgumentException 如果员工不存在。
      */
     @Transactional
     public boolean updateEmployeeByEmpId(String empId, EmployeeUpdateDTO updateDto) { // <-- 参数类型改为 EmployeeUpdateDTO
-        Employee existingEmployee = getEmployeeByEmpId(empId);
-        if (existingEmployee == null) {
-            throw new IllegalArgumentException("员工工号 " + empId + " 不存在。");
+        Employee changes = new Employee(); // 只有传入的字段非空，MyBatis-Plus 只为非空字段生成 SET
+        changes.setName(updateDto.getName());
+        changes.setPos(updateDto.getPos());
+        changes.setEntryTime(updateDto.getEntryTime());
+        // 状态更新：此处不再进行角色判断，由Controller层的@PreAuthorize保证只有管理员能调用此方法。
+        // Service层只负责执行传入的状态更新。
+        changes.setStatus(updateDto.getStatus());
+        // 角色更新：通常只由管理员修改，这里Service层负责执行。
+        changes.setRole(updateDto.getRole());
+        // 密码更新：前端发送明文密码，加密一次后写入，已签发的令牌随之失效
+        boolean passwordChanged = updateDto.getPwd() != null && !updateDto.getPwd().isEmpty();
+        if (passwordChanged) {
+            changes.setPwd(passwordEncoder.encode(updateDto.getPwd()));
+        }
+
+        // 调岗时薪资汇总要把该员工的历史月份从原部门移到新部门，此时才需要原值
+        String previousDept = null;
+        if (updateDto.getDept() != null) {
+            Employee current = selectDeptForUpdate(empId);
+            if (current == null) {
+                throw new IllegalArgumentException("员工工号 " + empId + " 不存在。");
+            }
+            if (!updateDto.getDept().equals(current.getDept())) {
+                changes.setDept(updateDto.getDept());
+                previousDept = current.getDept();
+            }
+        }
+
+        if (changes.getName() == null && changes.getDept() == null && changes.getPos() == null && changes.getPwd() == null
+                && changes.getEntryTime() == null && changes.getStatus() == null && changes.getRole() == null) {
+            return false; // 没有字段被修改
         }
 
-        boolean changed = false; // 标记是否有字段被修改
+        // 状态变化（例如离职）后已签发的令牌需要失效；目录中没有该员工或状态不同都按变化处理
+        Employee cached = employeeDirectory.isReady() ? employeeDirectory.get(empId) : null;
+        boolean statusChanged = changes.getStatus() != null
+            && (cached == null || !changes.getStatus().equals(cached.getStatus()));
 
-        // 仅当新值与旧值不同时才更新并标记为修改
-        if (updateDto.getName() != null && !Objects.equals(updateDto.getName(), existingEmployee.getName())) {
-            existingEmployee.setName(updateDto.getName());
-            changed = true;
+        // 返回匹配的行数（数据源固定 useAffectedRows=false），值未变的行也计入，为 0 说明员工不存在
+        int rowsAffected = employeeMapper.update(changes, new UpdateWrapper<Employee>().eq("emp_id", empId));
+        if (rowsAffected == 0) {
+            throw new IllegalArgumentException("员工工号 " + empId + " 不存在。");
         }
-        if (updateDto.getDept() != null && !Objects.equals(updateDto.getDept(), existingEmployee.getDept())) {
-            existingEmployee.setDept(updateDto.getDept());
-            changed = true;
+        userDetailsService.invalidate(empId); // 密码、角色等变化立即对登录和认证生效
+        employeeDirectory.onUpdated(empId, changes);
+        if (passwordChanged || statusChanged) {
+            tokenVersionRegistry.revoke(TokenVersionRegistry.TYPE_EMPLOYEE, empId);
         }
-        if (updateDto.getPos() != null && !Objects.equals(updateDto.getPos(), existingEmployee.getPos())) {
-            existingEmployee.setPos(updateDto.getPos());
-            changed = true;
+        if (previousDept != null) {
+            Map<String, String> previousDeptByEmpId = new HashMap<>();
+            previousDeptByEmpId.put(empId, previousDept);
+            salaryService.onEmployeeDeptChanged(previousDeptByEmpId);
         }
-        // 密码更新：只有当新密码不为空且与旧密码不同时才更新并加密
-        // 注意：这里需要判断传入的密码是否已经加密过，通常前端会发送明文密码
-        if (updateDto.getPwd() != null && !updateDto.getPwd().isEmpty()) {
-            // 只有当新密码与旧的加密密码不匹配时才重新加密和更新
-            // 如果 existingEmployee.getPwd() 为 null 或空，则直接加密新密码
-            if (existingEmployee.getPwd() == null || existingEmployee.getPwd().isEmpty() || !passwordEncoder.matches(updateDto.getPwd(), existingEmployee.getPwd())) {
-                existingEmployee.setPwd(passwordEncoder.encode(updateDto.getPwd()));
-                changed = true;
-            }
+        return true;
+    }
+
+    /**
+     * 只读取员工的部门并锁住该行直到事务结束，员工不存在时返回 null
+     */
+    private Employee selectDeptForUpdate(String empId) {
+        return employeeMapper.selectOne(new QueryWrapper<Employee>().select("dept").eq("emp_id", empId).last("FOR UPDATE"));
+    }
+
+    /**
+     * 批量修改员工的部门、职位、状态或角色（组织调整、批量离职等）。
+     * 工号按批拆分，每批一次 SELECT ... IN 取出现有员工、一次 UPDATE employee SET <修改的列> WHERE emp_id IN (...)，
+     * 全部在一个事务内；内存目录在提交后整体刷新一次，而不是每个员工刷新一次。
+     * @param bulkDto 工号列表和要修改的字段。
+     * @return 汇总：请求的工号数、更新的员工数、不存在的工号。
+     * @throws IllegalArgumentException 如果工号列表为空、超过上限，或没有指定要修改的字段。
+     */
+    @Transactional
+    public Map<String, Object> bulkUpdateEmployees(EmployeeBulkUpdateDTO bulkDto) {
+        if (bulkDto.getEmpIds() == null || bulkDto.getEmpIds().isEmpty()) {
+            throw new IllegalArgumentException("员工工号列表不能为空。");
         }
-        if (updateDto.getEntryTime() != null && !Objects.equals(updateDto.getEntryTime(), existingEmployee.getEntryTime())) {
-            existingEmployee.setEntryTime(updateDto.getEntryTime());
-            changed = true;
+        Employee changes = new Employee(); // 只有要修改的字段非空，MyBatis-Plus 只为非空字段生成 SET
+        changes.setDept(blankToNull(bulkDto.getDept()));
+        changes.setPos(blankToNull(bulkDto.getPos()));
+        changes.setStatus(blankToNull(bulkDto.getStatus()));
+        changes.setRole(blankToNull(bulkDto.getRole()));
+        if (changes.getDept() == null && changes.getPos() == null && changes.getStatus() == null && changes.getRole() == null) {
+            throw new IllegalArgumentException("至少需要指定部门、职位、状态或角色中的一项。");
         }
-        // 状态更新：此处不再进行角色判断，由Controller层的@PreAuthorize保证只有管理员能调用此方法。
-        // Service层只负责执行传入的状态更新。
-        if (updateDto.getStatus() != null && !Objects.equals(updateDto.getStatus(), existingEmployee.getStatus())) {
-            existingEmployee.setStatus(updateDto.getStatus());
-            changed = true;
+        Set<String> empIds = new LinkedHashSet<>();
+        for (String empId : bulkDto.getEmpIds()) {
+            if (empId != null && !empId.trim().isEmpty()) {
+                empIds.add(empId.trim());
+            }
         }
-        // 角色更新：通常只由管理员修改，这里Service层负责执行。
-        if (updateDto.getRole() != null && !Objects.equals(updateDto.getRole(), existingEmployee.getRole())) {
-            existingEmployee.setRole(updateDto.getRole());
-            changed = true;
+        if (empIds.size() > bulkMaxSize) {
+            throw new IllegalArgumentException("一次最多修改 " + bulkMaxSize + " 名员工。");
         }
 
+        long start = System.currentTimeMillis();
+        List<String> orderedIds = new ArrayList<>(empIds);
+        List<Employee> updatedEmployees = new ArrayList<>(orderedIds.size());
+        List<String> notFound = new ArrayList<>();
+        Map<String, String> previousDeptByEmpId = new HashMap<>(); // 调岗的员工 -> 原部门，用于移动薪资汇总
+        int updated = 0;
+        for (int from = 0; from < orderedIds.size(); from += bulkChunkSize) {
+            List<String> chunk = orderedIds.subList(from, Math.min(from + bulkChunkSize, orderedIds.size()));
+            List<Employee> existing = employeeMapper.selectList(new QueryWrapper<Employee>().in("emp_id", chunk).last("FOR UPDATE"));
+            Set<String> existingIds = new HashSet<>();
+            for (Employee employee : existing) {
+                existingIds.add(employee.getEmpId());
+                updatedEmployees.add(withChanges(employee, changes));
+                if (changes.getDept() != null && !changes.getDept().equals(employee.getDept())) {
+                    previousDeptByEmpId.put(employee.getEmpId(), employee.getDept());
+                }
+            }
+            for (String empId : chunk) {
+                if (!existingIds.contains(empId)) {
+                    notFound.add(empId);
+                }
+            }
+            if (existingIds.isEmpty()) {
+                continue;
+            }
 
-        if (changed) {
-            int rowsAffected = employeeMapper.updateById(existingEmployee); // 使用 updateById 更新整个实体
-            return rowsAffected > 0;
+            updated += employeeMapper.update(changes, new UpdateWrapper<Employee>().in("emp_id", existingIds));
+            if (changes.getStatus() != null) {
+                tokenVersionRegistry.revokeAll(TokenVersionRegistry.TYPE_EMPLOYEE, existingIds); // 离职等状态变化使已签发的令牌失效
+            }
+            existingIds.forEach(userDetailsService::invalidate);
         }
-        return false; // 没有字段被修改
+        salaryService.onEmployeeDeptChanged(previousDeptByEmpId); // 同一事务内重算原部门和新部门的薪资汇总组
+        employeeDirectory.onSavedAll(updatedEmployees);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requested", orderedIds.size());
+        result.put("updated", updated);
+        result.put("notFound", notFound);
+        result.put("elapsedMs", System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 当前员工叠加已修改字段后的新实体，用于更新目录，不修改 current
+     */
+    private Employee withChanges(Employee current, Employee changes) {
+        Employee updated = new Employee();
+        updated.setId(current.getId());
+        updated.setEmpId(current.getEmpId());
+        updated.setName(changes.getName() != null ? changes.getName() : current.getName());
+        updated.setDept(changes.getDept() != null ? changes.getDept() : current.getDept());
+        updated.setPos(changes.getPos() != null ? changes.getPos() : current.getPos());
+        updated.setPwd(changes.getPwd() != null ? changes.getPwd() : current.getPwd());
+        updated.setRole(changes.getRole() != null ? changes.getRole() : current.getRole());
+        updated.setEntryTime(changes.getEntryTime() != null ? changes.getEntryTime() : current.getEntryTime());
+        updated.setStatus(changes.getStatus() != null ? changes.getStatus() : current.getStatus());
+        return updated;
     }
 
 
@@ -161,13 +352,20 @@ public class EmployeeService {
      */
     @Transactional
     public boolean deleteResignedEmployee(String empId) {
-        Employee employeeToDelete = getEmployeeByEmpId(empId);
+        Employee employeeToDelete = selectByEmpId(empId);
         if (employeeToDelete == null) {
             throw new IllegalArgumentException("员工工号 " + empId + " 不存在，无法删除。");
         }
         // 检查员工状态是否为"离职"
         if ("离职".equals(employeeToDelete.getStatus())) {
+            // 先通过 SalaryService 删除其薪资记录，使薪资汇总表和内存索引同步更新（否则只会被外键级联删除）
+            salaryService.removeByEmpId(empId);
             int rowsAffected = employeeMapper.deleteById(employeeToDelete.getId());
+            userDetailsService.invalidate(empId);
+            employeeDirectory.onDeleted(empId);
+            if (rowsAffected > 0) {
+                tokenVersionRegistry.revoke(TokenVersionRegistry.TYPE_EMPLOYEE, empId);
+            }
             return rowsAffected > 0;
         } else {
             throw new IllegalArgumentException("只有状态为'离职'的员工才能被删除，当前员工状态为: " + employeeToDelete.getStatus());
@@ -181,6 +379,11 @@ public class EmployeeService {
      * @return 符合条件的员工列表。
      */
     public List<Employee> searchEmployees(String name, String dept) {
+        // 优先使用内存中的姓名 n-gram/拼音索引，同时支持拼音和首字母；索引未就绪时回退到 LIKE 查询
+        List<Employee> indexed = employeeNameIndex.search(name, dept);
+        if (indexed != null) {
+            return indexed;
+        }
         QueryWrapper<Employee> queryWrapper = new QueryWrapper<>();
         if (name != null && !name.isEmpty()) {
             queryWrapper.like("name", name); // 姓名模糊查询
@@ -191,11 +394,294 @@ public class EmployeeService {
         return employeeMapper.selectList(queryWrapper);
     }
 
+    /**
+     * 游标分页查询员工列表，只查询列表需要的列，不读取密码。
+     * @param dept 部门（精确匹配，可选）。
+     * @param status 员工状态（精确匹配，可选）。
+     * @param sort 排序字段：id、empId 或 name，默认 id。
+     * @param order asc 或 desc，默认 asc。
+     * @param size 每页条数，默认 20，最大 200。
+     * @param cursor 上一页返回的 nextCursor，第一页不传。
+     * @return 当前页及下一页的游标。
+     * @throws IllegalArgumentException 如果排序参数或游标无效。
+     */
+    public KeysetPageDTO<EmployeeSummaryDTO> listEmployeeSummaries(String dept, String status, String sort, String order,
+                                                                  Integer size, String cursor) {
+        return selectSummaryPage(null, dept, status, sort, order, size, cursor);
+    }
+
+    /**
+     * 游标分页搜索员工，参数含义同 {@link #listEmployeeSummaries}。
+     * 姓名索引就绪时在内存中匹配（同样支持拼音和首字母），否则回退到 LIKE 查询。
+     * @param name 姓名关键词（可选）。
+     */
+    public KeysetPageDTO<EmployeeSummaryDTO> searchEmployeeSummaries(String name, String dept, String status, String sort,
+                                                                    String order, Integer size, String cursor) {
+        String keyword = blankToNull(name != null ? name.trim() : null);
+        if (keyword == null) {
+            return listEmployeeSummaries(dept, status, sort, order, size, cursor);
+        }
+        List<Employee> indexed = employeeNameIndex.search(keyword, blankToNull(dept));
+        if (indexed == null) {
+            return selectSummaryPage(keyword, dept, status, sort, order, size, cursor);
+        }
+
+        String sortColumn = sortColumn(sort);
+        boolean descending = isDescending(order);
+        int limit = pageSize(size);
+        String[] position = decodeCursor(cursor);
+        String statusFilter = blankToNull(status);
+        Function<Employee, String> sortKey = switch (sortColumn) {
+            case "emp_id" -> Employee::getEmpId;
+            case "name" -> Employee::getName;
+            default -> null;
+        };
+
+        // 与 SQL 分页相同的顺序：排序字段（按数据库的排序规则比较），其次主键
+        Collator collator = (Collator) SORT_COLLATOR.clone();
+        Comparator<Employee> comparator = Comparator.comparing(Employee::getId);
+        if (sortKey != null) {
+            comparator = Comparator.comparing(sortKey, Comparator.nullsFirst(collator::compare))
+                .thenComparing(comparator);
+        }
+        if (descending) {
+            comparator = comparator.reversed();
+        }
+        List<Employee> matched = new ArrayList<>();
+        for (Employee employee : indexed) {
+            if (statusFilter == null || statusFilter.equals(employee.getStatus())) {
+                matched.add(employee);
+            }
+        }
+        if (sortKey != null || descending) {
+            matched.sort(comparator); // 索引结果已按主键升序，只有其他顺序才需要排序
+        }
+
+        List<EmployeeSummaryDTO> items = new ArrayList<>(Math.min(limit, matched.size()));
+        boolean hasMore = false;
+        for (Employee employee : matched) {
+            if (position != null && !isAfterCursor(employee, sortKey, collator, position, descending)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            items.add(toSummary(employee));
+        }
+        return toPage(items, hasMore, sortColumn);
+    }
+
+    /**
+     * 按部门、职位、角色、状态组合筛选员工，同时返回各维度每个取值的人数。
+     * 位图索引就绪时全部由位图运算完成；未就绪时遍历员工列表得到相同的结果。
+     * @param filters 维度 -> 可选取值，同一维度内为"或"，维度之间为"且"。
+     * @param size 每页条数，默认 20，最大 200。
+     * @param cursor 上一页返回的 nextCursor，第一页不传。结果按主键升序。
+     * @return 当前页员工、总人数和各维度人数。
+     * @throws IllegalArgumentException 如果筛选字段、每页条数或游标无效。
+     */
+    public EmployeeFacetResultDTO filterEmployees(Map<String, ? extends Collection<String>> filters, Integer size, String cursor) {
+        int limit = pageSize(size);
+        String[] position = decodeCursor(cursor);
+        Integer afterId = position != null ? Integer.valueOf(position[1]) : null;
+
+        EmployeeFacetIndex.Result result = employeeFacetIndex.query(filters, afterId, limit);
+        if (result == null) {
+            result = filterWithoutIndex(filters, afterId, limit);
+        }
+
+        List<EmployeeSummaryDTO> items = new ArrayList<>(result.employees().size());
+        for (Employee employee : result.employees()) {
+            items.add(toSummary(employee));
+        }
+        EmployeeFacetResultDTO response = new EmployeeFacetResultDTO();
+        response.setPage(toPage(items, result.hasMore(), "id"));
+        response.setTotal(result.total());
+        response.setFacets(result.facetCounts());
+        return response;
+    }
+
+    /**
+     * 位图索引未就绪时的回退：逐个员工判断条件
+     */
+    private EmployeeFacetIndex.Result filterWithoutIndex(Map<String, ? extends Collection<String>> filters, Integer afterId, int limit) {
+        for (String facet : filters.keySet()) {
+            if (!EmployeeFacetIndex.FACETS.containsKey(facet)) {
+                throw new IllegalArgumentException("不支持的筛选字段: " + facet);
+            }
+        }
+        Map<String, Map<String, Integer>> facetCounts = new LinkedHashMap<>();
+        EmployeeFacetIndex.FACETS.keySet().forEach(facet -> facetCounts.put(facet, new TreeMap<>()));
+        List<Employee> employees = new ArrayList<>();
+        int total = 0;
+        boolean hasMore = false;
+
+        List<Employee> all = new ArrayList<>(getAllEmployees());
+        all.sort(Comparator.comparing(Employee::getId));
+        for (Employee employee : all) {
+            String failedFacet = null; // 不满足的维度，超过一个时记为空串
+            for (Map.Entry<String, ? extends Collection<String>> filter : filters.entrySet()) {
+                Collection<String> values = filter.getValue();
+                if (values != null && !values.isEmpty()
+                        && !values.contains(EmployeeFacetIndex.FACETS.get(filter.getKey()).apply(employee))) {
+                    failedFacet = failedFacet == null ? filter.getKey() : "";
+                }
+            }
+            // 某维度的人数只应用其他维度的条件
+            for (Map.Entry<String, Function<Employee, String>> facet : EmployeeFacetIndex.FACETS.entrySet()) {
+                String value = facet.getValue().apply(employee);
+                if (value != null && !value.isEmpty() && (failedFacet == null || failedFacet.equals(facet.getKey()))) {
+                    facetCounts.get(facet.getKey()).merge(value, 1, Integer::sum);
+                }
+            }
+            if (failedFacet == null) {
+                total++;
+                if (afterId == null || employee.getId() > afterId) {
+                    if (employees.size() < limit) {
+                        employees.add(employee);
+                    } else {
+                        hasMore = true;
+                    }
+                }
+            }
+        }
+        return new EmployeeFacetIndex.Result(employees, total, hasMore, facetCounts);
+    }
+
+    private KeysetPageDTO<EmployeeSummaryDTO> selectSummaryPage(String nameLike, String dept, String status, String sort,
+                                                              String order, Integer size, String cursor) {
+        String sortColumn = sortColumn(sort);
+        int limit = pageSize(size);
+        String[] position = decodeCursor(cursor);
+        // 多取一行判断是否还有下一页
+        List<EmployeeSummaryDTO> rows = employeeMapper.selectSummaryPage(blankToNull(dept), blankToNull(status), nameLike,
+            sortColumn, isDescending(order),
+            position != null ? position[0] : null, position != null ? Integer.valueOf(position[1]) : null, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        return toPage(hasMore ? rows.subList(0, limit) : rows, hasMore, sortColumn);
+    }
+
+    private KeysetPageDTO<EmployeeSummaryDTO> toPage(List<EmployeeSummaryDTO> items, boolean hasMore, String sortColumn) {
+        String nextCursor = null;
+        if (hasMore && !items.isEmpty()) {
+            EmployeeSummaryDTO last = items.get(items.size() - 1);
+            String value = switch (sortColumn) {
+                case "emp_id" -> last.getEmpId();
+                case "name" -> last.getName();
+                default -> "";
+            };
+            nextCursor = encodeCursor(value, last.getId());
+        }
+        return new KeysetPageDTO<>(new ArrayList<>(items), nextCursor, hasMore);
+    }
+
+    private boolean isAfterCursor(Employee employee, Function<Employee, String> sortKey, Collator collator,
+                                  String[] position, boolean descending) {
+        int cmp = 0;
+        if (sortKey != null) {
+            String value = sortKey.apply(employee);
+            cmp = value == null ? -1 : collator.compare(value, position[0]);
+        }
+        if (cmp == 0) {
+            cmp = Integer.compare(employee.getId(), Integer.parseInt(position[1]));
+        }
+        return descending ? cmp < 0 : cmp > 0;
+    }
+
+    private EmployeeSummaryDTO toSummary(Employee employee) {
+        EmployeeSummaryDTO summary = new EmployeeSummaryDTO();
+        summary.setId(employee.getId());
+        summary.setEmpId(employee.getEmpId());
+        summary.setName(employee.getName());
+        summary.setDept(employee.getDept());
+        summary.setPos(employee.getPos());
+        summary.setRole(employee.getRole());
+        summary.setEntryTime(employee.getEntryTime());
+        summary.setStatus(employee.getStatus());
+        return summary;
+    }
+
+    private String sortColumn(String sort) {
+        if (sort == null || sort.isEmpty()) {
+            return "id";
+        }
+        String column = SORT_COLUMNS.get(sort);
+        if (column == null) {
+            throw new IllegalArgumentException("不支持的排序字段: " + sort + "，可选值为 id、empId、name。");
+        }
+        return column;
+    }
+
+    private boolean isDescending(String order) {
+        if (order == null || order.isEmpty() || "asc".equalsIgnoreCase(order)) {
+            return false;
+        }
+        if ("desc".equalsIgnoreCase(order)) {
+            return true;
+        }
+        throw new IllegalArgumentException("排序方向只能是 asc 或 desc。");
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("每页条数必须大于 0。");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 游标是"排序字段值|主键"的 Base64URL 编码，按主键排序时字段值为空
+     */
+    private String encodeCursor(String value, Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((value + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return [排序字段值, 主键]，cursor 为空时返回 null
+     */
+    private String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            String id = decoded.substring(separator + 1);
+            Integer.parseInt(id);
+            return new String[] {decoded.substring(0, separator), id};
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("无效的分页游标。");
+        }
+    }
+
+    private static Collator createSortCollator() {
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.PRIMARY);
+        return collator;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
     /**
      * 获取部门统计数据
      * @return 各部门的员工数量统计
      */
     public Map<String, Integer> getDepartmentStats() {
+        Map<String, Integer> indexedStats = employeeFacetIndex.counts("dept");
+        if (indexedStats != null) {
+            return new HashMap<>(indexedStats); // 部门位图的基数
+        }
+        Map<String, Integer> cachedStats = employeeDirectory.deptCounts();
+        if (cachedStats != null) {
+            return new HashMap<>(cachedStats); // 目录中预先计算的部门人数
+        }
         List<Employee> allEmployees = getAllEmployees();
         Map<String, Integer> departmentStats = new HashMap<>();
         
@@ -1,13 +1,25 @@
 package com.a0615.service;
 
+import com.a0615.cache.EmployeeDirectory;
+import com.a0615.cache.LeaveCalendar;
+import com.a0615.cache.LeaveCalendar.Leave;
+import com.a0615.dto.LeaveCalendarDayDTO;
+import com.a0615.entity.Employee;
 import com.a0615.entity.LeaveApplication;
+import com.a0615.mapper.EmployeeMapper;
 import com.a0615.mapper.LeaveApplicationMapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 请假申请服务类，处理请假申请相关的业务逻辑。
@@ -15,19 +27,61 @@ import java.util.List;
 @Service
 public class LeaveApplicationService {
 
+    // 请假日历一次最多查询的天数
+    private static final int MAX_CALENDAR_DAYS = 366;
+    // 未指定结束日期时查询的天数
+    private static final int DEFAULT_CALENDAR_DAYS = 30;
+
     @Autowired
     private LeaveApplicationMapper leaveApplicationMapper;
 
+    @Autowired
+    private LeaveCalendar leaveCalendar;
+
+    @Autowired
+    private EmployeeDirectory employeeDirectory;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
     /**
      * 提交新的请假申请。
      * 在插入数据库之前，将请假申请的状态设置为"待审核"。
+     * 与本人已批准或待审批的请假日期重叠时拒绝提交：请假日历就绪时在区间树上检查，否则查询数据库。
      *
      * @param leaveApplication 待提交的请假申请实体
+     * @throws IllegalArgumentException 如果日期无效或与已有请假重叠
      */
     @Transactional
     public void submitLeaveApplication(LeaveApplication leaveApplication) {
+        if (leaveApplication.getStartDate() == null || leaveApplication.getEndDate() == null
+            || leaveApplication.getStartDate().isAfter(leaveApplication.getEndDate())) {
+            throw new IllegalArgumentException("请假日期无效");
+        }
         leaveApplication.setStatus("待审核"); // PENDING -> 待审核
+
+        boolean indexed = leaveCalendar.isReady();
+        if (indexed) {
+            // 先检查一次，常见的重叠提交不必插入再回滚
+            Leave overlap = leaveCalendar.findOverlap(leaveApplication.getEmpId(),
+                leaveApplication.getStartDate(), leaveApplication.getEndDate(), null);
+            if (overlap != null) {
+                throw overlapError(overlap);
+            }
+        } else if (leaveApplicationMapper.selectCount(overlapQuery(leaveApplication)) > 0) {
+            throw new IllegalArgumentException("与已有请假申请的日期重叠");
+        }
+
         leaveApplicationMapper.insert(leaveApplication);
+        if (indexed) {
+            // 检查与加入索引是原子的，并发提交的重叠申请在这里被拒绝，抛出异常使插入回滚
+            Leave overlap = leaveCalendar.addIfNoOverlap(leaveApplication);
+            if (overlap != null) {
+                throw overlapError(overlap);
+            }
+        } else {
+            leaveCalendar.onSaved(leaveApplication);
+        }
     }
 
     /**
@@ -104,6 +158,7 @@ public class LeaveApplicationService {
         int result = leaveApplicationMapper.updateById(existingApplication);
         
         if (result > 0) {
+            leaveCalendar.onSaved(existingApplication); // 未批准的申请从日历移除
             System.out.println("请假申请ID: " + id + " 审核成功，状态已更新为: " + newStatus);
         } else {
             System.out.println("请假申请ID: " + id + " 审核失败，数据库更新失败。");
@@ -121,6 +176,9 @@ public class LeaveApplicationService {
     @Transactional
     public boolean deleteLeaveApplication(Long id) {
         int result = leaveApplicationMapper.deleteById(id);
+        if (result > 0) {
+            leaveCalendar.onDeleted(id);
+        }
         return result > 0;
     }
 
@@ -135,4 +193,143 @@ public class LeaveApplicationService {
         queryWrapper.in("status", "待审批", "待审核");
         return Math.toIntExact(leaveApplicationMapper.selectCount(queryWrapper));
     }
-}
\ No newline at end of file
+
+    /**
+     * 请假日历：指定日期范围内每天的在职人数、请假人数和可出勤人数。
+     * 请假日历就绪时只取区间树中与该范围重叠的请假，否则查询数据库。
+     *
+     * @param dept 部门，为空时统计全体员工
+     * @param from 开始日期，为空时为今天
+     * @param to   结束日期（含），为空时为开始日期后 30 天
+     * @return 每天一条，按日期升序
+     * @throws IllegalArgumentException 如果结束日期早于开始日期或范围超过 366 天
+     */
+    public List<LeaveCalendarDayDTO> getLeaveCalendar(String dept, LocalDate from, LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusDays(DEFAULT_CALENDAR_DAYS - 1);
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("结束日期不能早于开始日期");
+        }
+        int days = Math.toIntExact(ChronoUnit.DAYS.between(start, end)) + 1;
+        if (days > MAX_CALENDAR_DAYS) {
+            throw new IllegalArgumentException("日期范围不能超过 " + MAX_CALENDAR_DAYS + " 天");
+        }
+        String deptFilter = dept != null && !dept.trim().isEmpty() ? dept.trim() : null;
+
+        List<Employee> employees;
+        if (employeeDirectory.isReady()) {
+            employees = deptFilter != null ? employeeDirectory.byDept(deptFilter) : employeeDirectory.all();
+        } else {
+            employees = employeeMapper.selectList(deptFilter != null ? new QueryWrapper<Employee>().eq("dept", deptFilter) : null);
+        }
+        int headcount = (int) employees.stream().filter(employee -> "在职".equals(employee.getStatus())).count();
+
+        List<Leave> leaves = leaveCalendar.overlapping(deptFilter, start, end);
+        if (leaves == null) {
+            leaves = overlappingWithoutIndex(employees, deptFilter != null, start, end);
+        }
+
+        // 按员工合并同一状态下相互重叠的请假后用差分数组累加，每人每天最多计一次
+        int[] onLeave = new int[days + 1];
+        int[] pending = new int[days + 1];
+        Map<String, List<Leave>> approvedByEmpId = new HashMap<>();
+        Map<String, List<Leave>> pendingByEmpId = new HashMap<>();
+        for (Leave leave : leaves) {
+            (leave.approved() ? approvedByEmpId : pendingByEmpId)
+                .computeIfAbsent(leave.empId(), key -> new ArrayList<>()).add(leave);
+        }
+        approvedByEmpId.values().forEach(list -> accumulate(onLeave, list, start, end));
+        pendingByEmpId.values().forEach(list -> accumulate(pending, list, start, end));
+
+        List<LeaveCalendarDayDTO> calendar = new ArrayList<>(days);
+        int onLeaveCount = 0;
+        int pendingCount = 0;
+        for (int i = 0; i < days; i++) {
+            onLeaveCount += onLeave[i];
+            pendingCount += pending[i];
+            LeaveCalendarDayDTO day = new LeaveCalendarDayDTO();
+            day.setDate(start.plusDays(i));
+            day.setHeadcount(headcount);
+            day.setOnLeave(onLeaveCount);
+            day.setPending(pendingCount);
+            day.setAvailable(Math.max(0, headcount - onLeaveCount));
+            calendar.add(day);
+        }
+        return calendar;
+    }
+
+    /**
+     * 请假日历未就绪时的回退：按日期范围（和部门员工）查询占用日期的请假
+     */
+    private List<Leave> overlappingWithoutIndex(List<Employee> employees, boolean byDept, LocalDate start, LocalDate end) {
+        QueryWrapper<LeaveApplication> queryWrapper = new QueryWrapper<LeaveApplication>()
+            .in("status", LeaveCalendar.ACTIVE_STATUSES)
+            .le("start_date", end)
+            .ge("end_date", start);
+        if (byDept) {
+            if (employees.isEmpty()) {
+                return List.of();
+            }
+            queryWrapper.in("emp_id", employees.stream().map(Employee::getEmpId).toList());
+        }
+        List<Leave> leaves = new ArrayList<>();
+        for (LeaveApplication application : leaveApplicationMapper.selectList(queryWrapper)) {
+            Leave leave = Leave.of(application);
+            if (leave != null) {
+                leaves.add(leave);
+            }
+        }
+        return leaves;
+    }
+
+    /**
+     * 把同一员工的请假合并成互不重叠的区间，截取到查询范围后记入差分数组
+     */
+    private void accumulate(int[] diff, List<Leave> leaves, LocalDate start, LocalDate end) {
+        leaves.sort(Comparator.comparing(Leave::startDate));
+        LocalDate runStart = null;
+        LocalDate runEnd = null;
+        for (Leave leave : leaves) {
+            if (runEnd != null && !leave.startDate().isAfter(runEnd.plusDays(1))) {
+                if (leave.endDate().isAfter(runEnd)) {
+                    runEnd = leave.endDate();
+                }
+                continue;
+            }
+            if (runStart != null) {
+                mark(diff, runStart, runEnd, start, end);
+            }
+            runStart = leave.startDate();
+            runEnd = leave.endDate();
+        }
+        if (runStart != null) {
+            mark(diff, runStart, runEnd, start, end);
+        }
+    }
+
+    private void mark(int[] diff, LocalDate from, LocalDate to, LocalDate start, LocalDate end) {
+        LocalDate clippedFrom = from.isBefore(start) ? start : from;
+        LocalDate clippedTo = to.isAfter(end) ? end : to;
+        if (clippedFrom.isAfter(clippedTo)) {
+            return;
+        }
+        diff[(int) ChronoUnit.DAYS.between(start, clippedFrom)]++;
+        diff[(int) ChronoUnit.DAYS.between(start, clippedTo) + 1]--;
+    }
+
+    /**
+     * 与申请日期重叠的本人已批准或待审批的请假
+     */
+    private QueryWrapper<LeaveApplication> overlapQuery(LeaveApplication application) {
+        return new QueryWrapper<LeaveApplication>()
+            .eq("emp_id", application.getEmpId())
+            .in("status", LeaveCalendar.ACTIVE_STATUSES)
+            .le("start_date", application.getEndDate())
+            .ge("end_date", application.getStartDate());
+    }
+
+    private IllegalArgumentException overlapError(Leave overlap) {
+        return new IllegalArgumentException("与已有请假申请（ID " + overlap.id() + "，" + overlap.startDate()
+            + " 至 " + overlap.endDate() + "）的日期重叠");
+    }
+}
@@ -0,0 +1,142 @@
+package com.a0615.service;
+
+import com.a0615.model.ImportJob;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 薪资导入任务管理。
+ * 上传的文件先落盘，再交给固定大小的线程池后台导入，请求立即返回任务ID；
+ * 同步导入也经过同一线程池，请求线程只等待任务结束。
+ * 同时运行的任务数受限，避免多个大文件导入占满数据库连接池。
+ */
+@Service
+public class SalaryImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalaryImportJobService.class);
+
+    @Autowired
+    private SalaryService salaryService;
+
+    /**
+     * 已结束的任务保留多久后清理（毫秒）
+     */
+    @Value("${salary.import.job-retention-ms:3600000}")
+    private long jobRetentionMs;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    public SalaryImportJobService(@Value("${salary.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                  @Value("${salary.import.queue-capacity:4}") int queueCapacity) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "salary-import-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 提交导入任务
+     * @return 新建的任务
+     * @throws RejectedExecutionException 运行中和排队的任务都已满
+     */
+    public ImportJob submit(MultipartFile file) throws IOException {
+        ImportJob job = new ImportJob(file.getOriginalFilename());
+        enqueue(job, file);
+        return job;
+    }
+
+    /**
+     * 提交导入任务并等待其结束，与异步任务共用线程池和并发上限
+     * @return 已结束的任务
+     * @throws RejectedExecutionException 运行中和排队的任务都已满
+     */
+    public ImportJob submitAndWait(MultipartFile file) throws IOException, InterruptedException {
+        ImportJob job = new ImportJob(file.getOriginalFilename());
+        Future<?> future = enqueue(job, file);
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            job.markFailed(e.getCause().getMessage()); // run 已捕获全部异常，不会到达这里
+        }
+        return job;
+    }
+
+    /**
+     * 查询任务，不存在或已被清理时返回 null
+     */
+    public ImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private Future<?> enqueue(ImportJob job, MultipartFile file) throws IOException {
+        evictFinishedJobs();
+
+        File tempFile = File.createTempFile("salary-import-", ".tmp");
+        Future<?> future;
+        try {
+            file.transferTo(tempFile);
+            jobs.put(job.getJobId(), job);
+            future = executor.submit(() -> run(job, tempFile, file.getOriginalFilename()));
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(job.getJobId());
+            deleteQuietly(tempFile);
+            throw e;
+        }
+
+        logger.info("Salary import job {} queued for file {}", job.getJobId(), file.getOriginalFilename());
+        return future;
+    }
+
+    private void run(ImportJob job, File tempFile, String fileName) {
+        try {
+            salaryService.importSalaryRecords(tempFile, fileName, job);
+        } catch (Exception e) {
+            logger.error("Salary import job {} failed", job.getJobId(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            deleteQuietly(tempFile);
+            logger.info("Salary import job {} {}: rows={}, success={}, errors={}",
+                job.getJobId(), job.getStatus(), job.getProcessedRows(), job.getSuccessCount(), job.getErrorCount());
+        }
+    }
+
+    private void evictFinishedJobs() {
+        long expireBefore = System.currentTimeMillis() - jobRetentionMs;
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < expireBefore);
+    }
+
+    private void deleteQuietly(File file) {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
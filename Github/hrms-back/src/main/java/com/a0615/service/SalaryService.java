@@ -37,6 +37,16 @@ public interface SalaryService extends IService<Salary> {
      */
     BigDecimal getMonthlySalaryTotal(String month);
 
+    /**
+     * 薪资统计：统计卡片和部门统计（departmentStats）一次遍历得出
+     */
+    Map<String, Object> getSalaryStatistics();
+
+    /**
+     * 获取基于员工最新薪资的统计概览（总额、平均、最高、人数）
+     */
+    Map<String, Object> getSalaryOverview();
+
     /**
      * 获取部门薪资统计数据
      */
@@ -49,11 +59,54 @@ public interface SalaryService extends IService<Salary> {
 
     /**
      * 获取薪资等级分布数据
+     * @param bounds 升序的区间上界，为空时使用默认区间
+     * @param month  为空时按每个员工的最新薪资统计，否则统计该月的全部薪资记录
+     */
+    List<Map<String, Object>> getSalaryLevelDistribution(List<Integer> bounds, String month);
+
+    /**
+     * 按月份或部门分组的薪资分项汇总
+     * @param groupBy month 或 dept
+     * @param month   月份过滤，可为空
+     * @param dept    部门过滤，可为空
+     */
+    List<Map<String, Object>> getSalaryAnalytics(String groupBy, String month, String dept);
+
+    /**
+     * 批量写入薪资记录，按批生成多行 INSERT，总薪资在服务端重新计算
+     * @param upsert false 时已存在的 (员工, 月份) 跳过；true 时覆盖已存在记录的金额和状态
+     * @return inserted / updated / skipped 条数，由加锁读取的已有记录比较得出；upsert 时值未变化的记录计为跳过
+     * @throws IllegalArgumentException 如果记录数超过上限、工号不存在，或缺少工号、月份、基本工资
+     */
+    Map<String, Object> bulkSave(List<Salary> salaries, boolean upsert);
+
+    /**
+     * 删除指定员工的全部薪资记录（同步维护汇总表和内存索引）
+     */
+    boolean removeByEmpId(String empId);
+
+    /**
+     * 员工调岗后调用（与员工表的修改在同一事务内）：这些员工有薪资的每个月份，原部门和新部门的汇总组都按 salaries 重新聚合，
+     * 列式存储中这些员工的行在提交后按新部门修补
+     * @param previousDeptByEmpId 员工工号 -> 调岗前的部门（可为 null）
+     */
+    void onEmployeeDeptChanged(Map<String, String> previousDeptByEmpId);
+
+    /**
+     * 从薪资表全量重建月度/部门汇总表（用于修复汇总漂移）
+     */
+    Map<String, Object> rebuildSalarySummaries();
+
+    /**
+     * 流式导出薪资记录到输出流
+     * @param format xlsx 或 csv
+     * @param month  月份（YYYY-MM），为空时不过滤
+     * @param dept   部门，为空时不过滤
      */
-    List<Map<String, Object>> getSalaryLevelDistribution();
+    void exportSalaries(String format, String month, String dept, java.io.OutputStream out) throws java.io.IOException;
 
     /**
-     * 导入薪资记录
+     * 从已落盘的文件导入薪资记录，每批单独提交，进度和错误写入 job
      */
-    Map<String, Object> importSalaryRecords(org.springframework.web.multipart.MultipartFile file);
+    void importSalaryRecords(java.io.File file, String fileName, com.a0615.model.ImportJob job);
 }
\ No newline at end of file
@@ -5,43 +5,121 @@ import com.a0615.entity.Employee;
 import com.a0615.mapper.AdminMapper;
 import com.a0615.mapper.EmployeeMapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.a0615.util.TransactionUtils;
+import com.a0615.util.TtlCache;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
+/**
+ * 登录和 JWT 认证共用的用户加载服务。
+ * 查询结果按用户名缓存（包括"用户不存在"），条目按 TTL 失效并受容量限制；
+ * 账号被修改或删除时由 EmployeeService/AdminService 调用 {@link #invalidate(String)} 立即清除。
+ */
 @Service // 标记这是一个 Spring Service 组件
 public class UserDetailsServiceImpl implements UserDetailsService {
 
+    /**
+     * 登录和认证使用的账号：除用户名、密码哈希和权限外，还带有角色和不含密码的账号资料（Admin 或 Employee），
+     * 登录时一次加载即可校验密码并返回用户信息
+     */
+    public static final class Account extends org.springframework.security.core.userdetails.User {
+
+        private final String role;
+        private final transient Object profile;
+
+        private Account(CachedUser cached) {
+            super(cached.username(), cached.password(), List.of(new SimpleGrantedAuthority("ROLE_" + cached.role())));
+            this.role = cached.role();
+            this.profile = cached.profile();
+        }
+
+        /**
+         * ADMIN 或 EMPLOYEE
+         */
+        public String getRole() {
+            return role;
+        }
+
+        /**
+         * 不含密码的账号资料，各次加载共享，只能读取
+         */
+        public Object getProfile() {
+            return profile;
+        }
+    }
+
+    /**
+     * 缓存的账号快照。每次返回新的 Account 对象，因为认证完成后 Spring Security 会擦除其中的密码
+     */
+    private record CachedUser(String username, String password, String role, Object profile) {
+    }
+
+    // 负缓存标记：用户名既不是管理员也不是员工
+    private static final CachedUser NOT_FOUND = new CachedUser(null, null, null, null);
+
     @Autowired // 自动注入 AdminMapper
     private AdminMapper adminMapper;
 
     @Autowired // 自动注入 EmployeeMapper
     private EmployeeMapper employeeMapper;
 
+    @Value("${security.user-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${security.user-cache.negative-ttl-ms:60000}")
+    private long negativeTtlMs;
+
+    private final TtlCache<String, CachedUser> cache;
+
+    public UserDetailsServiceImpl(@Value("${security.user-cache.max-size:10000}") int maxSize) {
+        this.cache = new TtlCache<>(maxSize);
+    }
+
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    public Account loadUserByUsername(String username) throws UsernameNotFoundException {
+        CachedUser cached = cache.get(username);
+        if (cached == null) {
+            cached = loadFromDatabase(username);
+            long ttl = cached == NOT_FOUND ? negativeTtlMs : ttlMs;
+            cache.put(username, cached, System.currentTimeMillis() + ttl);
+        }
+
+        if (cached == NOT_FOUND) {
+            // 如果管理员和员工都找不到，抛出异常
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
+        // 返回 Spring Security 的 User 对象，附带角色和账号资料
+        return new Account(cached);
+    }
+
+    /**
+     * 清除用户名对应的缓存条目。立即清除一次，事务提交后再清除一次，
+     * 防止提交前并发的加载把旧数据重新放回缓存
+     */
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.invalidate(username);
+        TransactionUtils.afterCommit(() -> cache.invalidate(username));
+    }
+
+    private CachedUser loadFromDatabase(String username) {
         // 首先尝试作为管理员加载 (管理员使用 username 登录)
         QueryWrapper<Admin> adminQueryWrapper = new QueryWrapper<>();
         adminQueryWrapper.eq("username", username);
         Admin admin = adminMapper.selectOne(adminQueryWrapper);
 
         if (admin != null) {
-            List<GrantedAuthority> authorities = new ArrayList<>();
-            authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN")); // 为管理员添加 ROLE_ADMIN 权限
-            // 返回 Spring Security 的 User 对象
-            return new org.springframework.security.core.userdetails.User(
-                    admin.getUsername(),
-                    admin.getPwd(), // 使用 getPwd() 方法获取密码
-                    authorities
-            );
+            String pwd = admin.getPwd();
+            admin.setPwd(null); // 资料中不保留密码哈希
+            return new CachedUser(admin.getUsername(), pwd, "ADMIN", admin); // 为管理员添加 ROLE_ADMIN 权限
         }
 
         // 如果不是管理员，再尝试作为员工加载 (员工使用 emp_id 登录)
@@ -50,17 +128,11 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         Employee employee = employeeMapper.selectOne(employeeQueryWrapper);
 
         if (employee != null) {
-            List<GrantedAuthority> authorities = new ArrayList<>();
-            authorities.add(new SimpleGrantedAuthority("ROLE_EMPLOYEE")); // 为员工添加 ROLE_EMPLOYEE 权限
-            // 返回 Spring Security 的 User 对象
-            return new org.springframework.security.core.userdetails.User(
-                    employee.getEmpId(), // UserDetails 的 username 应该是员工的 empId
-                    employee.getPwd(), // 使用 getPwd() 方法获取密码
-                    authorities
-            );
+            // UserDetails 的 username 应该是员工的 empId
+            String pwd = employee.getPwd();
+            employee.setPwd(null);
+            return new CachedUser(employee.getEmpId(), pwd, "EMPLOYEE", employee); // 为员工添加 ROLE_EMPLOYEE 权限
         }
-
-        // 如果管理员和员工都找不到，抛出异常
-        throw new UsernameNotFoundException("User not found with username: " + username);
+        return NOT_FOUND;
     }
-}
\ No newline at end of file
+}
@@ -2,21 +2,43 @@ package com.a0615.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.a0615.cache.LatestSalaryIndex;
+import com.a0615.cache.LatestSalaryIndex.LatestSalary;
+import com.a0615.cache.SalaryCube;
 import com.a0615.entity.Salary;
 import com.a0615.entity.Employee;
+import com.a0615.entity.SalaryMonthDeptSummary;
+import com.a0615.entity.SalaryMonthSummary;
 import com.a0615.mapper.SalaryMapper;
 import com.a0615.mapper.EmployeeMapper;
+import com.a0615.mapper.SalaryMonthDeptSummaryMapper;
+import com.a0615.mapper.SalaryMonthSummaryMapper;
+import com.a0615.model.ImportJob;
 import com.a0615.service.SalaryService;
+import com.a0615.util.ExcelRowReader;
+import com.a0615.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
-import java.io.InputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -27,9 +49,67 @@ import java.util.stream.Collectors;
 @Service
 public class SalaryServiceImpl extends ServiceImpl<SalaryMapper, Salary> implements SalaryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SalaryServiceImpl.class);
+
+    /**
+     * 默认薪资等级区间上界：3K以下、3K-5K、5K-8K、8K-12K、12K-20K、20K以上
+     */
+    private static final List<Integer> DEFAULT_LEVEL_BOUNDS = Arrays.asList(3000, 5000, 8000, 12000, 20000);
+
+    private static final int MAX_LEVEL_BOUNDS = 20;
+
+    /**
+     * 导出列，前七列与导入模板一致，导出的文件可以直接再导入
+     */
+    private static final String[] EXPORT_COLUMNS = {
+        "empId", "month", "baseSalary", "allowance", "bonus", "deduction", "status", "totalSalary", "empName", "dept"
+    };
+
+    private static final String[] EXPORT_HEADERS = {
+        "员工工号", "月份", "基本工资", "津贴", "奖金", "扣除", "状态", "总薪资", "姓名", "部门"
+    };
+
+    /**
+     * 导出 xlsx 时内存中保留的行数
+     */
+    private static final int EXPORT_ROW_WINDOW = 100;
+
+    /**
+     * 批量写入时每条多行 INSERT 包含的记录数
+     */
+    @Value("${salary.bulk.batch-size:500}")
+    private int bulkBatchSize;
+
+    /**
+     * 一次批量写入最多包含的记录数
+     */
+    @Value("${salary.bulk.max-size:10000}")
+    private int bulkMaxSize;
+
+    /**
+     * 导入时每批校验、入库的行数
+     */
+    @Value("${salary.import.chunk-size:1000}")
+    private int importChunkSize;
+
     @Autowired
     private EmployeeMapper employeeMapper;
 
+    @Autowired
+    private SalaryMonthDeptSummaryMapper deptSummaryMapper;
+
+    @Autowired
+    private SalaryMonthSummaryMapper monthSummaryMapper;
+
+    @Autowired
+    private LatestSalaryIndex latestSalaryIndex;
+
+    @Autowired
+    private SalaryCube salaryCube;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
     public List<Salary> getSalaryByEmpId(String empId) {
         QueryWrapper<Salary> queryWrapper = new QueryWrapper<>();
@@ -63,376 +143,924 @@ public class SalaryServiceImpl extends ServiceImpl<SalaryMapper, Salary> impleme
 
     @Override
     public BigDecimal getMonthlySalaryTotal(String month) {
-        QueryWrapper<Salary> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("month", month);
-        List<Salary> salaries = this.list(queryWrapper);
-        
-        BigDecimal total = BigDecimal.ZERO;
-        for (Salary salary : salaries) {
-            if (salary.getTotalSalary() != null) {
-                total = total.add(salary.getTotalSalary());
-            }
-        }
-        
-        return total;
+        // 直接读取月度汇总表的一行，不再加载当月全部薪资记录
+        SalaryMonthSummary summary = monthSummaryMapper.selectOne(
+            new QueryWrapper<SalaryMonthSummary>().eq("month", month)
+        );
+        return summary != null && summary.getTotalSum() != null ? summary.getTotalSum() : BigDecimal.ZERO;
+    }
+
+    @Override
+    public Map<String, Object> getSalaryStatistics() {
+        // 统计卡片和部门统计在同一次遍历中完成
+        SalaryStatisticsAccumulator accumulator = collectSalaryStatistics();
+        Map<String, Object> statistics = accumulator.overview();
+        statistics.put("departmentStats", accumulator.departmentStats());
+        return statistics;
+    }
+
+    @Override
+    public Map<String, Object> getSalaryOverview() {
+        return collectSalaryStatistics().overview();
     }
 
     @Override
     public List<Map<String, Object>> getDepartmentSalaryStatistics() {
-        // 获取所有员工和薪资数据
-        List<Employee> allEmployees = employeeMapper.selectList(null);
-        List<Salary> allSalaries = this.list();
-        
-        System.out.println("=== 部门薪资统计调试开始 ===");
-        System.out.println("总员工数: " + allEmployees.size());
-        System.out.println("总薪资记录数: " + allSalaries.size());
-        
-        // 获取每个员工的最新薪资记录
-        Map<String, Salary> latestSalariesByEmployee = new HashMap<>();
-        for (Salary salary : allSalaries) {
-            String empId = salary.getEmpId();
-            Salary existing = latestSalariesByEmployee.get(empId);
-            if (existing == null || salary.getMonth().compareTo(existing.getMonth()) > 0) {
-                latestSalariesByEmployee.put(empId, salary);
-            }
-        }
-        
-        System.out.println("有最新薪资记录的员工数: " + latestSalariesByEmployee.size());
-        
-        // 计算总薪资用于计算比例
-        BigDecimal totalAllLatestSalary = latestSalariesByEmployee.values().stream()
-            .map(Salary::getTotalSalary)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // 按部门分组统计员工
-        Map<String, List<Employee>> employeesByDept = allEmployees.stream()
-            .filter(emp -> emp.getDept() != null && !emp.getDept().trim().isEmpty())
-            .filter(emp -> "在职".equals(emp.getStatus())) // 只统计在职员工
-            .collect(Collectors.groupingBy(Employee::getDept));
-        
-        List<Map<String, Object>> departmentStats = new ArrayList<>();
-        
-        for (Map.Entry<String, List<Employee>> entry : employeesByDept.entrySet()) {
-            String department = entry.getKey();
-            List<Employee> deptEmployees = entry.getValue();
-            
-            // 获取该部门员工的最新薪资记录
-            List<Salary> deptLatestSalaries = deptEmployees.stream()
-                .map(Employee::getEmpId)
-                .map(empId -> latestSalariesByEmployee.get(empId))
-                .filter(salary -> salary != null)
-                .collect(Collectors.toList());
-            
-            if (!deptLatestSalaries.isEmpty()) {
-                Map<String, Object> deptStat = new HashMap<>();
-                
-                // 基础统计
-                BigDecimal totalSalary = deptLatestSalaries.stream()
-                    .map(Salary::getTotalSalary)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                
+        return collectSalaryStatistics().departmentStats();
+    }
+
+    /**
+     * 逐个员工累加其最新薪资，不物化员工列表或薪资列表：
+     * 索引就绪时流式读取员工的部门和状态并在索引中查最新薪资；
+     * 否则用一条"员工 LEFT JOIN 最新薪资"的查询逐行回调
+     */
+    private SalaryStatisticsAccumulator collectSalaryStatistics() {
+        SalaryStatisticsAccumulator accumulator = new SalaryStatisticsAccumulator();
+        if (latestSalaryIndex.isReady()) {
+            Map<String, LatestSalary> latestByEmpId = latestSalaryIndex.snapshotByEmpId();
+            employeeMapper.streamDeptAndStatus(context -> {
+                Employee employee = context.getResultObject();
+                LatestSalary latest = latestByEmpId.get(employee.getEmpId());
+                accumulator.accept(employee.getDept(), employee.getStatus(), latest != null ? latest.totalCents() : null);
+            });
+        } else {
+            this.baseMapper.streamEmployeeLatestSalaries(context -> {
+                Map<String, Object> row = context.getResultObject();
+                boolean hasSalary = ((Number) row.get("hasSalary")).intValue() == 1;
+                BigDecimal total = (BigDecimal) row.get("totalSalary");
+                accumulator.accept((String) row.get("dept"), (String) row.get("status"),
+                    hasSalary ? (total != null ? total.movePointRight(2).longValue() : 0L) : null);
+            });
+        }
+        return accumulator;
+    }
+
+    /**
+     * 统计卡片与部门统计的累加器，金额以分为单位
+     */
+    private static final class SalaryStatisticsAccumulator {
+
+        private long totalCents = 0;
+        private long highestCents = Long.MIN_VALUE;
+        private int totalEmployees = 0;
+        private final Map<String, DeptAccumulator> depts = new HashMap<>();
+
+        private static final class DeptAccumulator {
+            int employeeCount = 0;
+            int withSalary = 0;
+            long totalCents = 0;
+            long highestCents = Long.MIN_VALUE;
+            long lowestCents = Long.MAX_VALUE;
+        }
+
+        /**
+         * @param latestCents 该员工最新薪资（分），没有薪资记录时为 null
+         */
+        void accept(String dept, String status, Long latestCents) {
+            if (latestCents != null) {
+                totalCents += latestCents;
+                highestCents = Math.max(highestCents, latestCents);
+                totalEmployees++;
+            }
+
+            // 部门统计只统计有部门的在职员工
+            if (dept == null || dept.trim().isEmpty() || !"在职".equals(status)) {
+                return;
+            }
+            DeptAccumulator deptAcc = depts.computeIfAbsent(dept, key -> new DeptAccumulator());
+            deptAcc.employeeCount++;
+            if (latestCents != null) {
+                deptAcc.withSalary++;
+                deptAcc.totalCents += latestCents;
+                deptAcc.highestCents = Math.max(deptAcc.highestCents, latestCents);
+                deptAcc.lowestCents = Math.min(deptAcc.lowestCents, latestCents);
+            }
+        }
+
+        Map<String, Object> overview() {
+            Map<String, Object> overview = new HashMap<>();
+            BigDecimal totalLatestSalary = BigDecimal.valueOf(totalCents, 2);
+            overview.put("totalSalary", totalEmployees == 0 ? BigDecimal.ZERO : totalLatestSalary);
+            // 平均薪资基于员工数量，而不是薪资记录数量
+            overview.put("averageSalary", totalEmployees == 0 ? BigDecimal.ZERO :
+                totalLatestSalary.divide(BigDecimal.valueOf(totalEmployees), 2, RoundingMode.HALF_UP));
+            overview.put("highestSalary", totalEmployees == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(highestCents, 2));
+            overview.put("totalEmployees", totalEmployees);
+            return overview;
+        }
+
+        List<Map<String, Object>> departmentStats() {
+            List<Map<String, Object>> departmentStats = new ArrayList<>();
+            if (totalEmployees == 0) {
+                return departmentStats;
+            }
+
+            for (Map.Entry<String, DeptAccumulator> entry : depts.entrySet()) {
+                DeptAccumulator deptAcc = entry.getValue();
+                if (deptAcc.withSalary == 0) {
+                    continue;
+                }
+
+                BigDecimal totalSalary = BigDecimal.valueOf(deptAcc.totalCents, 2);
                 BigDecimal averageSalary = totalSalary.divide(
-                    BigDecimal.valueOf(deptLatestSalaries.size()), 2, RoundingMode.HALF_UP);
-                
-                BigDecimal highestSalary = deptLatestSalaries.stream()
-                    .map(Salary::getTotalSalary)
-                    .max(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
-                
-                BigDecimal lowestSalary = deptLatestSalaries.stream()
-                    .map(Salary::getTotalSalary)
-                    .min(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
-                
+                    BigDecimal.valueOf(deptAcc.withSalary), 2, RoundingMode.HALF_UP);
+
                 // 计算薪资占比
                 BigDecimal salaryRatio = BigDecimal.ZERO;
-                if (totalAllLatestSalary.compareTo(BigDecimal.ZERO) > 0) {
+                if (totalCents > 0) {
                     salaryRatio = totalSalary.multiply(BigDecimal.valueOf(100))
-                        .divide(totalAllLatestSalary, 1, RoundingMode.HALF_UP);
+                        .divide(BigDecimal.valueOf(totalCents, 2), 1, RoundingMode.HALF_UP);
                 }
-                
-                deptStat.put("department", department);
-                deptStat.put("employeeCount", deptEmployees.size());
+
+                Map<String, Object> deptStat = new HashMap<>();
+                deptStat.put("department", entry.getKey());
+                deptStat.put("employeeCount", deptAcc.employeeCount);
                 deptStat.put("totalSalary", totalSalary.intValue());
                 deptStat.put("averageSalary", averageSalary.intValue());
-                deptStat.put("highestSalary", highestSalary.intValue());
-                deptStat.put("lowestSalary", lowestSalary.intValue());
+                deptStat.put("highestSalary", BigDecimal.valueOf(deptAcc.highestCents, 2).intValue());
+                deptStat.put("lowestSalary", BigDecimal.valueOf(deptAcc.lowestCents, 2).intValue());
                 deptStat.put("salaryRatio", salaryRatio.intValue());
-                
-                System.out.println("部门: " + department + 
-                    ", 员工数: " + deptEmployees.size() + 
-                    ", 有薪资记录员工数: " + deptLatestSalaries.size() +
-                    ", 总薪资: " + totalSalary.intValue());
-                
                 departmentStats.add(deptStat);
             }
+
+            // 按总薪资降序排序
+            departmentStats.sort((a, b) ->
+                Integer.compare((Integer) b.get("totalSalary"), (Integer) a.get("totalSalary")));
+            return departmentStats;
         }
-        
-        // 按总薪资降序排序
-        departmentStats.sort((a, b) -> 
-            Integer.compare((Integer) b.get("totalSalary"), (Integer) a.get("totalSalary")));
-        
-        System.out.println("=== 部门薪资统计调试结束，共" + departmentStats.size() + "个部门 ===");
-        
-        return departmentStats;
     }
 
     @Override
     public List<Map<String, Object>> getMonthlySalaryTrend() {
-        List<Salary> allSalaries = this.list();
-        
-        System.out.println("=== 月度薪资趋势调试开始 ===");
-        System.out.println("总薪资记录数: " + allSalaries.size());
-        
-        // 按月份分组统计
-        Map<String, List<Salary>> salariesByMonth = allSalaries.stream()
-            .filter(salary -> salary.getMonth() != null)
-            .collect(Collectors.groupingBy(Salary::getMonth));
-        
-        System.out.println("按月份分组后的月份数: " + salariesByMonth.size());
-        
         List<Map<String, Object>> trendData = new ArrayList<>();
-        
-        for (Map.Entry<String, List<Salary>> entry : salariesByMonth.entrySet()) {
-            String month = entry.getKey();
-            List<Salary> monthSalaries = entry.getValue();
-            
-            BigDecimal totalSalary = monthSalaries.stream()
-                .map(Salary::getTotalSalary)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            BigDecimal averageSalary = totalSalary.divide(
-                BigDecimal.valueOf(monthSalaries.size()), 2, RoundingMode.HALF_UP);
-            
-            Map<String, Object> monthData = new HashMap<>();
-            monthData.put("month", month);
-            monthData.put("totalSalary", totalSalary.intValue());
-            monthData.put("averageSalary", averageSalary.intValue());
-            monthData.put("employeeCount", monthSalaries.size());
-            
-            System.out.println("月份: " + month + 
-                ", 员工数: " + monthSalaries.size() + 
-                ", 总薪资: " + totalSalary.intValue() +
-                ", 平均薪资: " + averageSalary.intValue());
-            
-            trendData.add(monthData);
-        }
-        
-        // 按月份排序
-        trendData.sort(Comparator.comparing(data -> (String) data.get("month")));
-        
-        System.out.println("=== 月度薪资趋势调试结束，共" + trendData.size() + "个月份 ===");
-        
+        List<SalaryCube.Aggregate> aggregates = salaryCube.aggregate(SalaryCube.GroupBy.MONTH, null, null);
+        if (aggregates != null) {
+            // 列式存储就绪时在内存中按月份聚合
+            for (SalaryCube.Aggregate aggregate : aggregates) {
+                trendData.add(monthTrendItem(aggregate.key(), BigDecimal.valueOf(aggregate.totalCents(), 2), aggregate.count()));
+            }
+            return trendData;
+        }
+
+        // 每个月份只有一行汇总，十年历史也只有一百多行
+        List<SalaryMonthSummary> monthSummaries = monthSummaryMapper.selectList(
+            new QueryWrapper<SalaryMonthSummary>().orderByAsc("month")
+        );
+        for (SalaryMonthSummary summary : monthSummaries) {
+            if (summary.getRecordCount() == null || summary.getRecordCount() == 0) {
+                continue;
+            }
+            trendData.add(monthTrendItem(summary.getMonth(), summary.getTotalSum(), summary.getRecordCount()));
+        }
+
         return trendData;
     }
 
+    private Map<String, Object> monthTrendItem(String month, BigDecimal totalSalary, int recordCount) {
+        BigDecimal averageSalary = totalSalary.divide(
+            BigDecimal.valueOf(recordCount), 2, RoundingMode.HALF_UP);
+
+        Map<String, Object> monthData = new HashMap<>();
+        monthData.put("month", month);
+        monthData.put("totalSalary", totalSalary.intValue());
+        monthData.put("averageSalary", averageSalary.intValue());
+        monthData.put("employeeCount", recordCount);
+        return monthData;
+    }
+
     @Override
-    public List<Map<String, Object>> getSalaryLevelDistribution() {
-        // 获取所有员工的最新薪资记录（每个员工只取一条最新记录）
-        List<Employee> allEmployees = employeeMapper.selectList(null);
-        
-        System.out.println("=== 薪资等级分布调试开始 ===");
-        System.out.println("总员工数: " + allEmployees.size());
-        
-        // 为每个员工获取最新薪资
-        Map<String, BigDecimal> employeeLatestSalary = new HashMap<>();
-        for (Employee employee : allEmployees) {
-            QueryWrapper<Salary> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("emp_id", employee.getEmpId());
-            queryWrapper.orderByDesc("month");
-            queryWrapper.last("LIMIT 1");
-            
-            Salary latestSalary = this.getOne(queryWrapper);
-            if (latestSalary != null && latestSalary.getTotalSalary() != null) {
-                employeeLatestSalary.put(employee.getEmpId(), latestSalary.getTotalSalary());
-            }
-        }
-        
-        System.out.println("有最新薪资记录的员工数: " + employeeLatestSalary.size());
-        
-        // 定义薪资等级区间
+    public List<Map<String, Object>> getSalaryAnalytics(String groupBy, String month, String dept) {
+        SalaryCube.GroupBy group;
+        if ("month".equalsIgnoreCase(groupBy)) {
+            group = SalaryCube.GroupBy.MONTH;
+        } else if ("dept".equalsIgnoreCase(groupBy)) {
+            group = SalaryCube.GroupBy.DEPT;
+        } else {
+            throw new IllegalArgumentException("groupBy 只能为 month 或 dept");
+        }
+
+        List<SalaryCube.Aggregate> aggregates = salaryCube.aggregate(group, month, dept);
+        if (aggregates == null) {
+            // 列式存储加载完成前：由数据库分组聚合
+            aggregates = new ArrayList<>();
+            for (Map<String, Object> row : this.baseMapper.aggregateSalaries(group == SalaryCube.GroupBy.DEPT, month, dept)) {
+                aggregates.add(new SalaryCube.Aggregate(String.valueOf(row.get("groupKey")),
+                    ((Number) row.get("cnt")).intValue(), cents(row.get("baseSum")), cents(row.get("allowanceSum")),
+                    cents(row.get("bonusSum")), cents(row.get("deductionSum")), cents(row.get("totalSum")),
+                    cents(row.get("minTotal")), cents(row.get("maxTotal"))));
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SalaryCube.Aggregate aggregate : aggregates) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put(group == SalaryCube.GroupBy.MONTH ? "month" : "department", aggregate.key());
+            item.put("recordCount", aggregate.count());
+            item.put("baseSalary", BigDecimal.valueOf(aggregate.baseCents(), 2));
+            item.put("allowance", BigDecimal.valueOf(aggregate.allowanceCents(), 2));
+            item.put("bonus", BigDecimal.valueOf(aggregate.bonusCents(), 2));
+            item.put("deduction", BigDecimal.valueOf(aggregate.deductionCents(), 2));
+            item.put("totalSalary", BigDecimal.valueOf(aggregate.totalCents(), 2));
+            item.put("averageSalary", BigDecimal.valueOf(aggregate.totalCents(), 2)
+                .divide(BigDecimal.valueOf(aggregate.count()), 2, RoundingMode.HALF_UP));
+            item.put("highestSalary", BigDecimal.valueOf(aggregate.maxTotalCents(), 2));
+            item.put("lowestSalary", BigDecimal.valueOf(aggregate.minTotalCents(), 2));
+            result.add(item);
+        }
+        return result;
+    }
+
+    private static long cents(Object amount) {
+        return amount != null ? new BigDecimal(amount.toString()).movePointRight(2).longValue() : 0L;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Map<String, Object> rebuildSalarySummaries() {
+        // 先清空再从 salaries 全量聚合，用于修复员工调岗等原因造成的汇总漂移
+        deptSummaryMapper.deleteAllRows();
+        monthSummaryMapper.deleteAllRows();
+        int deptRows = deptSummaryMapper.rebuildAll();
+        int monthRows = monthSummaryMapper.rebuildAll();
+        TransactionUtils.afterCommit(() -> {
+            latestSalaryIndex.reload();
+            salaryCube.refresh(); // 后台重新加载，加载期间沿用旧数据
+        });
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("deptSummaryRows", deptRows);
+        result.put("monthSummaryRows", monthRows);
+        return result;
+    }
+
+    // ==================== 写入路径：在同一事务内维护汇总表 ====================
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean save(Salary salary) {
+        boolean saved = super.save(salary);
+        if (saved) {
+            mergeIntoSummaries(Collections.singletonList(salary));
+            notifySaved(Collections.singletonList(salary));
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean saveBatch(Collection<Salary> entityList, int batchSize) {
+        boolean saved = super.saveBatch(entityList, batchSize);
+        if (saved) {
+            mergeIntoSummaries(entityList);
+            notifySaved(entityList);
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateById(Salary salary) {
+        Salary before = salary.getId() != null ? this.getById(salary.getId()) : null;
+        boolean updated = super.updateById(salary);
+        if (updated && before != null) {
+            Salary after = this.getById(salary.getId());
+            refreshSummaryGroups(Arrays.asList(before, after));
+            notifyChanged(Arrays.asList(before.getEmpId(), after != null ? after.getEmpId() : null));
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeById(Serializable id) {
+        Salary before = this.getById(id);
+        boolean removed = super.removeById(id);
+        if (removed && before != null) {
+            refreshSummaryGroups(Collections.singletonList(before));
+            notifyChanged(Collections.singletonList(before.getEmpId()));
+        }
+        return removed;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeByIds(Collection<?> list) {
+        if (list == null || list.isEmpty()) {
+            return false;
+        }
+        List<Salary> before = this.getBaseMapper().selectByIds(list.stream()
+            .map(id -> (Serializable) id)
+            .collect(Collectors.toList()));
+        boolean removed = super.removeByIds(list);
+        if (removed && !before.isEmpty()) {
+            refreshSummaryGroups(before);
+            notifyChanged(before.stream().map(Salary::getEmpId).collect(Collectors.toSet()));
+        }
+        return removed;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeByEmpId(String empId) {
+        List<Object> ids = this.baseMapper.selectObjs(
+            new QueryWrapper<Salary>().select("id").eq("emp_id", empId)
+        );
+        return !ids.isEmpty() && this.removeByIds(ids);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Map<String, Object> bulkSave(List<Salary> salaries, boolean upsert) {
+        if (salaries.size() > bulkMaxSize) {
+            throw new IllegalArgumentException("一次最多写入 " + bulkMaxSize + " 条薪资记录");
+        }
+        // 同一批内 (emp_id, month) 重复时只保留一条：插入模式保留第一条，upsert 模式以最后一条为准
+        Map<String, Salary> byKey = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Salary salary : salaries) {
+            if (salary.getEmpId() == null || salary.getEmpId().isEmpty() || salary.getMonth() == null || salary.getMonth().isEmpty()) {
+                throw new IllegalArgumentException("员工工号和月份不能为空");
+            }
+            if (salary.getBaseSalary() == null) {
+                throw new IllegalArgumentException("员工 " + salary.getEmpId() + " 在 " + salary.getMonth() + " 的基本工资不能为空");
+            }
+            // 总薪资以服务端计算为准，不信任请求中的值
+            salary.setAllowance(salary.getAllowance() != null ? salary.getAllowance() : BigDecimal.ZERO);
+            salary.setBonus(salary.getBonus() != null ? salary.getBonus() : BigDecimal.ZERO);
+            salary.setDeduction(salary.getDeduction() != null ? salary.getDeduction() : BigDecimal.ZERO);
+            salary.setTotalSalary(salary.getBaseSalary().add(salary.getAllowance()).add(salary.getBonus()).subtract(salary.getDeduction()));
+            if (salary.getCreatedAt() == null) {
+                salary.setCreatedAt(now);
+            }
+            if (salary.getUpdatedAt() == null) {
+                salary.setUpdatedAt(now);
+            }
+            String key = empMonthKey(salary.getEmpId(), salary.getMonth());
+            if (upsert) {
+                byKey.remove(key);
+                byKey.put(key, salary);
+            } else {
+                byKey.putIfAbsent(key, salary);
+            }
+        }
+
+        // 一条 SELECT ... IN 校验全部工号
+        Set<String> empIds = byKey.values().stream().map(Salary::getEmpId).collect(Collectors.toSet());
+        Set<String> unknown = new TreeSet<>(empIds);
+        employeeMapper.selectObjs(new QueryWrapper<Employee>().select("emp_id").in("emp_id", empIds))
+            .forEach(empId -> unknown.remove(String.valueOf(empId)));
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("员工工号不存在: " + String.join(", ", unknown));
+        }
+
+        int skipped = salaries.size() - byKey.size();
+        int inserted = 0;
+        int updated = 0;
+
+        // 每批先用一条锁定读查出已存在的 (员工, 月份)，条数由比较得出，不依赖驱动返回的影响行数：
+        // 不存在的行多行插入；已存在的行在 upsert 模式下只写入金额或状态确有变化的，其余计为跳过
+        List<Salary> newSalaries = new ArrayList<>();
+        List<Salary> changedSalaries = new ArrayList<>(); // 覆盖了已有记录，按组重算汇总
+        List<Salary> unique = new ArrayList<>(byKey.values());
+        for (int from = 0; from < unique.size(); from += bulkBatchSize) {
+            List<Salary> batch = unique.subList(from, Math.min(from + bulkBatchSize, unique.size()));
+            Map<String, Salary> existing = new HashMap<>();
+            for (Salary salary : this.baseMapper.selectByEmpMonthsForUpdate(batch)) {
+                existing.put(empMonthKey(salary.getEmpId(), salary.getMonth()), salary);
+            }
+            List<Salary> fresh = new ArrayList<>();
+            List<Salary> changed = new ArrayList<>();
+            for (Salary salary : batch) {
+                Salary current = existing.get(empMonthKey(salary.getEmpId(), salary.getMonth()));
+                if (current == null) {
+                    fresh.add(salary);
+                } else if (upsert && !sameValues(current, salary)) {
+                    salary.setId(current.getId());
+                    changed.add(salary);
+                } else {
+                    skipped++;
+                }
+            }
+            if (!fresh.isEmpty()) {
+                this.baseMapper.insertBatchValuesIfAbsent(fresh);
+                inserted += fresh.size();
+                newSalaries.addAll(fresh);
+            }
+            if (!changed.isEmpty()) {
+                this.baseMapper.upsertBatchValues(changed);
+                updated += changed.size();
+                changedSalaries.addAll(changed);
+            }
+        }
+
+        // 先按增量合并新行，再整组重算被覆盖的记录所在的组（重算结果已包含同组的新行）
+        mergeIntoSummaries(newSalaries);
+        notifySaved(newSalaries);
+        if (!changedSalaries.isEmpty()) {
+            refreshSummaryGroups(changedSalaries);
+            notifyChanged(changedSalaries.stream().map(Salary::getEmpId).collect(Collectors.toSet()));
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("mode", upsert ? "upsert" : "insert");
+        result.put("inserted", inserted);
+        result.put("updated", updated);
+        result.put("skipped", skipped);
+        return result;
+    }
+
+    /**
+     * 金额（按数值比较，不计小数位数）和状态都相同
+     */
+    private boolean sameValues(Salary current, Salary incoming) {
+        return sameAmount(current.getBaseSalary(), incoming.getBaseSalary())
+            && sameAmount(current.getAllowance(), incoming.getAllowance())
+            && sameAmount(current.getBonus(), incoming.getBonus())
+            && sameAmount(current.getDeduction(), incoming.getDeduction())
+            && sameAmount(current.getTotalSalary(), incoming.getTotalSalary())
+            && Objects.equals(current.getStatus(), incoming.getStatus());
+    }
+
+    private boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * 新增记录后同步内存索引和列式存储（事务提交后生效）
+     */
+    private void notifySaved(Collection<Salary> salaries) {
+        latestSalaryIndex.onSaved(salaries);
+        salaryCube.onSaved(salaries);
+    }
+
+    /**
+     * 修改/删除记录后按员工刷新内存索引和列式存储（事务提交后生效）
+     */
+    private void notifyChanged(Collection<String> empIds) {
+        latestSalaryIndex.onChanged(empIds);
+        salaryCube.onChanged(empIds);
+    }
+
+    /**
+     * 新增记录：在内存中按 (月份, 部门) 合并出增量，再用一条多行 upsert 写入汇总表
+     */
+    private void mergeIntoSummaries(Collection<Salary> salaries) {
+        if (salaries == null || salaries.isEmpty()) {
+            return;
+        }
+        Map<String, String> deptByEmpId = loadDeptByEmpId(salaries);
+
+        Map<String, SalaryMonthDeptSummary> deltas = new LinkedHashMap<>();
+        for (Salary salary : salaries) {
+            if (salary.getMonth() == null) {
+                continue;
+            }
+            String dept = deptByEmpId.getOrDefault(salary.getEmpId(), "");
+            SalaryMonthDeptSummary delta = deltas.computeIfAbsent(salary.getMonth() + "|" + dept, key -> {
+                SalaryMonthDeptSummary d = new SalaryMonthDeptSummary();
+                d.setMonth(salary.getMonth());
+                d.setDept(dept);
+                d.setTotalSum(BigDecimal.ZERO);
+                d.setRecordCount(0);
+                return d;
+            });
+            BigDecimal total = salary.getTotalSalary();
+            delta.setRecordCount(delta.getRecordCount() + 1);
+            if (total != null) {
+                delta.setTotalSum(delta.getTotalSum().add(total));
+                delta.setMinTotal(delta.getMinTotal() == null ? total : delta.getMinTotal().min(total));
+                delta.setMaxTotal(delta.getMaxTotal() == null ? total : delta.getMaxTotal().max(total));
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        deptSummaryMapper.mergeDeltas(new ArrayList<>(deltas.values()));
+        refreshMonthSummaries(deltas.values().stream()
+            .map(SalaryMonthDeptSummary::getMonth)
+            .collect(Collectors.toCollection(TreeSet::new)));
+    }
+
+    /**
+     * 修改/删除记录：受影响的 (月份, 部门) 组按 salaries 重新聚合
+     */
+    private void refreshSummaryGroups(Collection<Salary> affected) {
+        Map<String, String> deptByEmpId = loadDeptByEmpId(affected);
+
+        Map<String, String[]> groups = new LinkedHashMap<>();
+        for (Salary salary : affected) {
+            if (salary == null || salary.getMonth() == null) {
+                continue;
+            }
+            String dept = deptByEmpId.getOrDefault(salary.getEmpId(), "");
+            groups.putIfAbsent(salary.getMonth() + "|" + dept, new String[]{salary.getMonth(), dept});
+        }
+        rebuildGroups(groups);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void onEmployeeDeptChanged(Map<String, String> previousDeptByEmpId) {
+        if (previousDeptByEmpId == null || previousDeptByEmpId.isEmpty()) {
+            return;
+        }
+        // 汇总按员工当前部门归组：调岗后该员工的历史月份要从原部门组移到新部门组，两边都按 salaries 重新聚合
+        List<String> empIds = new ArrayList<>(previousDeptByEmpId.keySet());
+        Map<String, String[]> groups = new LinkedHashMap<>();
+        for (int from = 0; from < empIds.size(); from += bulkBatchSize) {
+            List<Salary> months = this.baseMapper.selectList(new QueryWrapper<Salary>()
+                .select("emp_id", "month")
+                .in("emp_id", empIds.subList(from, Math.min(from + bulkBatchSize, empIds.size()))));
+            Map<String, String> currentDeptByEmpId = loadDeptByEmpId(months);
+            for (Salary salary : months) {
+                if (salary.getMonth() == null) {
+                    continue;
+                }
+                String previousDept = previousDeptByEmpId.get(salary.getEmpId());
+                String oldDept = previousDept != null ? previousDept : "";
+                String newDept = currentDeptByEmpId.getOrDefault(salary.getEmpId(), "");
+                groups.putIfAbsent(salary.getMonth() + "|" + oldDept, new String[]{salary.getMonth(), oldDept});
+                groups.putIfAbsent(salary.getMonth() + "|" + newDept, new String[]{salary.getMonth(), newDept});
+            }
+        }
+        rebuildGroups(groups);
+        salaryCube.onChanged(empIds); // 列式存储中的部门列同样取员工当前部门
+    }
+
+    private void rebuildGroups(Map<String, String[]> groups) {
+        Set<String> months = new TreeSet<>();
+        for (String[] group : groups.values()) {
+            deptSummaryMapper.deleteGroup(group[0], group[1]);
+            deptSummaryMapper.rebuildGroup(group[0], group[1]);
+            months.add(group[0]);
+        }
+        refreshMonthSummaries(months);
+    }
+
+    private void refreshMonthSummaries(Set<String> months) {
+        if (months.isEmpty()) {
+            return;
+        }
+        monthSummaryMapper.deleteMonths(months);
+        monthSummaryMapper.rebuildMonths(months);
+    }
+
+    /**
+     * 一次 IN 查询取回本批次涉及员工的部门
+     */
+    private Map<String, String> loadDeptByEmpId(Collection<Salary> salaries) {
+        Set<String> empIds = salaries.stream()
+            .filter(Objects::nonNull)
+            .map(Salary::getEmpId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<String, String> deptByEmpId = new HashMap<>();
+        if (empIds.isEmpty()) {
+            return deptByEmpId;
+        }
+        List<Employee> employees = employeeMapper.selectList(
+            new QueryWrapper<Employee>().select("emp_id", "dept").in("emp_id", empIds)
+        );
+        for (Employee employee : employees) {
+            deptByEmpId.put(employee.getEmpId(), employee.getDept() != null ? employee.getDept() : "");
+        }
+        return deptByEmpId;
+    }
+
+    @Override
+    public List<Map<String, Object>> getSalaryLevelDistribution(List<Integer> bounds, String month) {
+        List<Integer> levelBounds = normalizeLevelBounds(bounds);
+
+        long[] counts = new long[levelBounds.size() + 1];
+        if (month != null && !month.isEmpty()) {
+            // 指定月份时统计该月全部薪资记录，由列式存储扫描 total 列完成
+            long[] boundCents = levelBounds.stream().mapToLong(bound -> bound * 100L).toArray();
+            counts = salaryCube.levelCounts(month, null, boundCents);
+            if (counts == null) {
+                // 列式存储加载完成前：一条 SQL 按区间分组计数
+                counts = new long[levelBounds.size() + 1];
+                for (Map<String, Object> row : this.baseMapper.countSalaryLevelsByMonth(levelBounds, month)) {
+                    counts[((Number) row.get("bucket")).intValue()] = ((Number) row.get("cnt")).longValue();
+                }
+            }
+        } else if (latestSalaryIndex.isReady()) {
+            // 内存索引就绪时直接按最新薪资归类，区间上界换算成分后二分查找
+            long[] boundCents = levelBounds.stream().mapToLong(bound -> bound * 100L).toArray();
+            for (LatestSalary latest : latestSalaryIndex.snapshot()) {
+                int position = Arrays.binarySearch(boundCents, latest.totalCents());
+                counts[position >= 0 ? position + 1 : -position - 1]++;
+            }
+        } else {
+            // 索引加载完成前：一条 SQL 完成"每人最新薪资 + 区间归类 + 分组计数"
+            List<Map<String, Object>> bucketCounts = this.baseMapper.countLatestSalaryLevels(levelBounds);
+            for (Map<String, Object> row : bucketCounts) {
+                int bucket = ((Number) row.get("bucket")).intValue();
+                counts[bucket] = ((Number) row.get("cnt")).longValue();
+            }
+        }
+        long totalEmployees = Arrays.stream(counts).sum();
+
         List<Map<String, Object>> levels = new ArrayList<>();
-        
-        String[] levelNames = {"3K以下", "3K-5K", "5K-8K", "8K-12K", "12K-20K", "20K以上"};
-        int[][] levelRanges = {{0, 3000}, {3000, 5000}, {5000, 8000}, {8000, 12000}, {12000, 20000}, {20000, Integer.MAX_VALUE}};
-        
-        for (int i = 0; i < levelNames.length; i++) {
-            String levelName = levelNames[i];
-            int minSalary = levelRanges[i][0];
-            int maxSalary = levelRanges[i][1];
-            
-            long count = employeeLatestSalary.values().stream()
-                .filter(salary -> {
-                    int salaryValue = salary.intValue();
-                    return salaryValue >= minSalary && (maxSalary == Integer.MAX_VALUE || salaryValue < maxSalary);
-                })
-                .count();
-            
+        for (int i = 0; i < counts.length; i++) {
             Map<String, Object> levelData = new HashMap<>();
-            levelData.put("level", levelName);
-            levelData.put("count", (int) count);
-            levelData.put("percentage", employeeLatestSalary.isEmpty() ? 0 : 
-                Math.round((double) count * 100 / employeeLatestSalary.size()));
-            
-            System.out.println("等级: " + levelName + 
-                ", 薪资范围: " + minSalary + "-" + (maxSalary == Integer.MAX_VALUE ? "无上限" : maxSalary) +
-                ", 人数: " + count + 
-                ", 占比: " + (employeeLatestSalary.isEmpty() ? 0 : Math.round((double) count * 100 / employeeLatestSalary.size())) + "%");
-            
+            levelData.put("level", levelName(levelBounds, i));
+            levelData.put("count", (int) counts[i]);
+            levelData.put("percentage", totalEmployees == 0 ? 0 :
+                Math.round((double) counts[i] * 100 / totalEmployees));
             levels.add(levelData);
         }
-        
-        System.out.println("=== 薪资等级分布调试结束 ===");
-        
         return levels;
     }
 
+    /**
+     * 校验区间上界：为空时使用默认区间，否则去重并升序排列
+     */
+    private List<Integer> normalizeLevelBounds(List<Integer> bounds) {
+        if (bounds == null || bounds.isEmpty()) {
+            return DEFAULT_LEVEL_BOUNDS;
+        }
+        List<Integer> normalized = bounds.stream()
+            .filter(Objects::nonNull)
+            .distinct()
+            .sorted()
+            .collect(Collectors.toList());
+        if (normalized.isEmpty() || normalized.get(0) <= 0) {
+            throw new IllegalArgumentException("薪资区间上界必须为正数");
+        }
+        if (normalized.size() > MAX_LEVEL_BOUNDS) {
+            throw new IllegalArgumentException("薪资区间最多 " + (MAX_LEVEL_BOUNDS + 1) + " 个");
+        }
+        return normalized;
+    }
+
+    /**
+     * 生成区间名称，如 "3K以下"、"3K-5K"、"20K以上"
+     */
+    private String levelName(List<Integer> bounds, int index) {
+        if (index == 0) {
+            return formatLevelBound(bounds.get(0)) + "以下";
+        }
+        if (index == bounds.size()) {
+            return formatLevelBound(bounds.get(index - 1)) + "以上";
+        }
+        return formatLevelBound(bounds.get(index - 1)) + "-" + formatLevelBound(bounds.get(index));
+    }
+
+    private String formatLevelBound(int bound) {
+        return bound % 1000 == 0 ? (bound / 1000) + "K" : String.valueOf(bound);
+    }
+
     @Override
-    public Map<String, Object> importSalaryRecords(MultipartFile file) {
-        Map<String, Object> result = new HashMap<>();
-        List<String> errorMessages = new ArrayList<>();
-        List<Salary> successSalaries = new ArrayList<>();
-        int totalRows = 0;
-        int successCount = 0;
-        int errorCount = 0;
-
-        try (InputStream inputStream = file.getInputStream()) {
-            Workbook workbook;
-            String fileName = file.getOriginalFilename();
-            
-            // 根据文件扩展名创建对应的工作簿
-            if (fileName != null && fileName.toLowerCase().endsWith(".xlsx")) {
-                workbook = new XSSFWorkbook(inputStream);
+    @Transactional(readOnly = true)
+    public void exportSalaries(String format, String month, String dept, OutputStream out) throws IOException {
+        try (Cursor<Map<String, Object>> cursor = this.baseMapper.streamSalaryExport(month, dept)) {
+            if ("csv".equalsIgnoreCase(format)) {
+                writeSalaryCsv(cursor, out);
             } else {
-                workbook = new HSSFWorkbook(inputStream);
+                writeSalaryXlsx(cursor, out);
             }
+        }
+    }
 
-            Sheet sheet = workbook.getSheetAt(0);
-            totalRows = sheet.getPhysicalNumberOfRows();
+    /**
+     * SXSSF 只在内存中保留最近 EXPORT_ROW_WINDOW 行，其余行写入临时文件
+     */
+    private void writeSalaryXlsx(Cursor<Map<String, Object>> cursor, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("薪资记录");
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < EXPORT_HEADERS.length; i++) {
+                header.createCell(i).setCellValue(EXPORT_HEADERS[i]);
+            }
 
-            // 跳过标题行
-            for (int i = 1; i < totalRows; i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) {
-                    continue;
+            int rowIndex = 1;
+            for (Map<String, Object> record : cursor) {
+                Row row = sheet.createRow(rowIndex++);
+                for (int i = 0; i < EXPORT_COLUMNS.length; i++) {
+                    Object value = record.get(EXPORT_COLUMNS[i]);
+                    if (value instanceof BigDecimal amount) {
+                        row.createCell(i).setCellValue(amount.doubleValue());
+                    } else if (value != null) {
+                        row.createCell(i).setCellValue(value.toString());
+                    }
                 }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.close();
+        }
+    }
+
+    private void writeSalaryCsv(Cursor<Map<String, Object>> cursor, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        // BOM：Excel 直接打开时按 UTF-8 识别中文
+        writer.write('\uFEFF');
+        writer.write(String.join(",", EXPORT_HEADERS));
+        writer.write("\r\n");
+        for (Map<String, Object> record : cursor) {
+            for (int i = 0; i < EXPORT_COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = record.get(EXPORT_COLUMNS[i]);
+                if (value instanceof BigDecimal amount) {
+                    writer.write(amount.toPlainString());
+                } else if (value != null) {
+                    writer.write(escapeCsv(value.toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    private String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public void importSalaryRecords(File file, String fileName, ImportJob job) {
+        job.markRunning();
+        List<ImportRow> chunk = new ArrayList<>(importChunkSize);
+
+        try {
+            ExcelRowReader.read(file, fileName, (rowNum, cells) -> {
+                // 跳过标题行和空行
+                if (rowNum == 1 || isBlankRow(cells)) {
+                    return;
+                }
+                job.rowProcessed();
 
                 try {
-                    Salary salary = parseRowToSalary(row, i + 1);
-                    if (salary != null) {
-                        // 验证员工是否存在
-                        Employee employee = employeeMapper.selectOne(
-                            new QueryWrapper<Employee>().eq("emp_id", salary.getEmpId())
-                        );
-                        if (employee == null) {
-                            errorMessages.add("第" + (i + 1) + "行：员工工号 " + salary.getEmpId() + " 不存在");
-                            errorCount++;
-                            continue;
-                        }
-
-                        // 检查是否已存在相同员工相同月份的薪资记录
-                        Salary existingSalary = this.getSalaryByEmpIdAndMonth(salary.getEmpId(), salary.getMonth());
-                        if (existingSalary != null) {
-                            errorMessages.add("第" + (i + 1) + "行：员工 " + salary.getEmpId() + " 在 " + salary.getMonth() + " 的薪资记录已存在");
-                            errorCount++;
-                            continue;
-                        }
-
-                        // 设置默认值
-                        salary.setCreatedAt(LocalDateTime.now());
-                        salary.setUpdatedAt(LocalDateTime.now());
-                        if (salary.getStatus() == null || salary.getStatus().trim().isEmpty()) {
-                            salary.setStatus("草稿");
-                        }
-
-                        successSalaries.add(salary);
-                        successCount++;
-                    }
+                    chunk.add(new ImportRow(rowNum, parseRowToSalary(cells, rowNum)));
                 } catch (Exception e) {
-                    errorMessages.add("第" + (i + 1) + "行：数据解析错误 - " + e.getMessage());
-                    errorCount++;
+                    job.addError("第" + rowNum + "行：数据解析错误 - " + e.getMessage());
+                    return;
                 }
+
+                // 每批单独提交，进度查询能看到已入库的行数
+                if (chunk.size() >= importChunkSize) {
+                    flushImportChunk(chunk, job);
+                }
+            });
+            flushImportChunk(chunk, job);
+            job.markCompleted();
+
+            logger.info("薪资记录导入完成: {}, 总行数={}, 成功={}, 失败={}",
+                fileName, job.getProcessedRows(), job.getSuccessCount(), job.getErrorCount());
+
+        } catch (Exception e) {
+            logger.error("导入薪资记录时发生异常: {}", fileName, e);
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    /**
+     * 校验并保存一批已解析的记录，保存后清空该批次。
+     * 整批只查两次库：一次 emp_id IN 校验员工存在，一次 (emp_id, month) IN 校验记录是否已存在。
+     * 不在内存中记录整个文件已导入的键：与前面批次重复的行已经入库，由本批的存在性检查检出；
+     * 批次之间并发写入的同一记录由唯一键 uk_emp_month 兜底，写入时跳过
+     */
+    private void flushImportChunk(List<ImportRow> chunk, ImportJob job) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        // 本批内重复的行直接判错，不参与后续查询，先出现的行有效
+        Set<String> chunkKeys = new HashSet<>(chunk.size() * 2);
+        List<ImportRow> candidates = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            Salary salary = row.salary();
+            if (!chunkKeys.add(empMonthKey(salary.getEmpId(), salary.getMonth()))) {
+                job.addError("第" + row.rowNum() + "行：员工 " + salary.getEmpId() + " 在 " + salary.getMonth() + " 的薪资记录在文件中重复");
+                continue;
             }
+            candidates.add(row);
+        }
+        chunk.clear();
+        if (candidates.isEmpty()) {
+            return;
+        }
 
-            workbook.close();
+        // 验证员工是否存在
+        Set<String> empIds = candidates.stream()
+            .map(row -> row.salary().getEmpId())
+            .collect(Collectors.toSet());
+        Set<String> existingEmpIds = employeeMapper.selectObjs(
+                new QueryWrapper<Employee>().select("emp_id").in("emp_id", empIds)
+            ).stream()
+            .map(String::valueOf)
+            .collect(Collectors.toSet());
 
-            // 批量保存成功的记录
-            if (!successSalaries.isEmpty()) {
-                this.saveBatch(successSalaries);
+        // 检查是否已存在相同员工相同月份的薪资记录
+        List<Salary> keys = candidates.stream()
+            .map(ImportRow::salary)
+            .filter(salary -> existingEmpIds.contains(salary.getEmpId()))
+            .collect(Collectors.toList());
+        Set<String> existingKeys = keys.isEmpty() ? Collections.emptySet()
+            : this.baseMapper.selectExistingEmpMonths(keys).stream()
+                .map(salary -> empMonthKey(salary.getEmpId(), salary.getMonth()))
+                .collect(Collectors.toSet());
+
+        List<Salary> validSalaries = new ArrayList<>(candidates.size());
+        for (ImportRow row : candidates) {
+            Salary salary = row.salary();
+            if (!existingEmpIds.contains(salary.getEmpId())) {
+                job.addError("第" + row.rowNum() + "行：员工工号 " + salary.getEmpId() + " 不存在");
+                continue;
+            }
+            if (existingKeys.contains(empMonthKey(salary.getEmpId(), salary.getMonth()))) {
+                job.addError("第" + row.rowNum() + "行：员工 " + salary.getEmpId() + " 在 " + salary.getMonth() + " 的薪资记录已存在");
+                continue;
             }
 
-            result.put("success", true);
-            result.put("message", "导入完成");
-            result.put("totalRows", totalRows - 1); // 减去标题行
-            result.put("successCount", successCount);
-            result.put("errorCount", errorCount);
-            result.put("errorMessages", errorMessages);
+            salary.setCreatedAt(LocalDateTime.now());
+            salary.setUpdatedAt(LocalDateTime.now());
+            validSalaries.add(salary);
+        }
+
+        if (!validSalaries.isEmpty()) {
+            // 每批在独立事务中提交，失败时只回滚当前批次
+            Map<String, Object> saved = transactionTemplate.execute(status -> this.bulkSave(validSalaries, false));
+            int inserted = (Integer) saved.get("inserted");
+            job.addSuccess(inserted);
+            if (inserted < validSalaries.size()) {
+                job.addError((validSalaries.size() - inserted) + " 条记录在写入时已存在（并发写入），已跳过");
+            }
+        }
+    }
 
-            System.out.println("薪资记录导入完成：总行数=" + (totalRows - 1) + "，成功=" + successCount + "，失败=" + errorCount);
+    private String empMonthKey(String empId, String month) {
+        return empId + "|" + month;
+    }
 
-        } catch (Exception e) {
-            System.err.println("导入薪资记录时发生异常：" + e.getMessage());
-            e.printStackTrace();
-            result.put("success", false);
-            result.put("message", "导入失败：" + e.getMessage());
-            result.put("totalRows", 0);
-            result.put("successCount", 0);
-            result.put("errorCount", 0);
-            result.put("errorMessages", Arrays.asList("文件解析失败：" + e.getMessage()));
+    private boolean isBlankRow(List<String> cells) {
+        for (String cell : cells) {
+            if (cell != null && !cell.trim().isEmpty()) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        return result;
+    /**
+     * 导入中已解析、待校验的一行及其在Excel中的行号
+     */
+    private record ImportRow(int rowNum, Salary salary) {
     }
 
     /**
      * 解析Excel行数据为Salary对象
      */
-    private Salary parseRowToSalary(Row row, int rowNum) throws Exception {
+    private Salary parseRowToSalary(List<String> cells, int rowNum) throws Exception {
         Salary salary = new Salary();
 
         try {
             // 员工工号 (A列)
-            Cell empIdCell = row.getCell(0);
-            if (empIdCell == null || getCellStringValue(empIdCell).trim().isEmpty()) {
+            String empId = getCellText(cells, 0);
+            if (empId.isEmpty()) {
                 throw new Exception("员工工号不能为空");
             }
-            salary.setEmpId(getCellStringValue(empIdCell).trim());
+            salary.setEmpId(empId);
 
             // 月份 (B列) - 格式：YYYY-MM
-            Cell monthCell = row.getCell(1);
-            if (monthCell == null || getCellStringValue(monthCell).trim().isEmpty()) {
+            String monthValue = getCellText(cells, 1);
+            if (monthValue.isEmpty()) {
                 throw new Exception("月份不能为空");
             }
-            String monthValue = getCellStringValue(monthCell).trim();
             if (!monthValue.matches("\\d{4}-\\d{2}")) {
                 throw new Exception("月份格式错误，应为YYYY-MM格式，如：2024-01");
             }
             salary.setMonth(monthValue);
 
             // 基本工资 (C列)
-            Cell baseSalaryCell = row.getCell(2);
-            if (baseSalaryCell == null) {
+            if (getCellText(cells, 2).isEmpty()) {
                 throw new Exception("基本工资不能为空");
             }
-            BigDecimal baseSalary = getCellNumericValue(baseSalaryCell);
+            BigDecimal baseSalary = getCellNumericValue(cells, 2);
             if (baseSalary.compareTo(BigDecimal.ZERO) < 0) {
                 throw new Exception("基本工资不能为负数");
             }
             salary.setBaseSalary(baseSalary);
 
             // 津贴 (D列)
-            Cell allowanceCell = row.getCell(3);
-            BigDecimal allowance = allowanceCell != null ? getCellNumericValue(allowanceCell) : BigDecimal.ZERO;
+            BigDecimal allowance = getCellNumericValue(cells, 3);
             salary.setAllowance(allowance);
 
             // 奖金 (E列)
-            Cell bonusCell = row.getCell(4);
-            BigDecimal bonus = bonusCell != null ? getCellNumericValue(bonusCell) : BigDecimal.ZERO;
+            BigDecimal bonus = getCellNumericValue(cells, 4);
             salary.setBonus(bonus);
 
             // 扣除 (F列)
-            Cell deductionCell = row.getCell(5);
-            BigDecimal deduction = deductionCell != null ? getCellNumericValue(deductionCell) : BigDecimal.ZERO;
+            BigDecimal deduction = getCellNumericValue(cells, 5);
             salary.setDeduction(deduction);
 
             // 计算总薪资
@@ -440,8 +1068,10 @@ public class SalaryServiceImpl extends ServiceImpl<SalaryMapper, Salary> impleme
             salary.setTotalSalary(totalSalary);
 
             // 状态 (G列) - 可选
-            Cell statusCell = row.getCell(6);
-            String status = statusCell != null ? getCellStringValue(statusCell).trim() : "草稿";
+            String status = getCellText(cells, 6);
+            if (status.isEmpty()) {
+                status = "草稿";
+            }
             if (!Arrays.asList("草稿", "已确认", "已发放").contains(status)) {
                 throw new Exception("状态值错误，应为：草稿、已确认、已发放");
             }
@@ -455,55 +1085,27 @@ public class SalaryServiceImpl extends ServiceImpl<SalaryMapper, Salary> impleme
     }
 
     /**
-     * 获取单元格的字符串值
+     * 获取单元格的字符串值（已去除首尾空白，缺失时为空串）
      */
-    private String getCellStringValue(Cell cell) {
-        if (cell == null) {
+    private String getCellText(List<String> cells, int column) {
+        if (column >= cells.size() || cells.get(column) == null) {
             return "";
         }
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    // 避免科学计数法
-                    return String.valueOf((long) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
-        }
+        return cells.get(column).trim();
     }
 
     /**
-     * 获取单元格的数值
+     * 获取单元格的数值，空单元格按 0 处理
      */
-    private BigDecimal getCellNumericValue(Cell cell) throws Exception {
-        if (cell == null) {
+    private BigDecimal getCellNumericValue(List<String> cells, int column) throws Exception {
+        String value = getCellText(cells, column);
+        if (value.isEmpty()) {
             return BigDecimal.ZERO;
         }
-        
-        switch (cell.getCellType()) {
-            case NUMERIC:
-                return BigDecimal.valueOf(cell.getNumericCellValue());
-            case STRING:
-                String value = cell.getStringCellValue().trim();
-                if (value.isEmpty()) {
-                    return BigDecimal.ZERO;
-                }
-                try {
-                    return new BigDecimal(value);
-                } catch (NumberFormatException e) {
-                    throw new Exception("数值格式错误：" + value);
-                }
-            default:
-                throw new Exception("单元格类型不支持转换为数值");
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new Exception("数值格式错误：" + value);
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,273 @@
+package com.a0615.util;
+
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 流式读取 Excel 第一个工作表（或 CSV 文件）的工具类。
+ * .xlsx 基于 XSSFReader + SAX 解析工作表 XML，.xls 基于 HSSF 记录事件模型，.csv 逐字符解析，
+ * 都不会构建整个工作簿对象，内存占用与文件行数无关。
+ * 每行以字符串列表回调，缺失的单元格为 null，数值单元格返回原始数值文本（不套用单元格格式）。
+ */
+public final class ExcelRowReader {
+
+    /**
+     * 行回调
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param rowNumber 行号，从 1 开始，与 Excel 中显示的行号一致
+         * @param cells     该行各列的值，下标即列号
+         */
+        void handleRow(int rowNumber, List<String> cells);
+    }
+
+    /**
+     * 数值单元格一律输出原始值，避免千分位等显示格式影响数值解析
+     */
+    private static final DataFormatter RAW_VALUE_FORMATTER = new DataFormatter() {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            return NumberToTextConverter.toText(value);
+        }
+    };
+
+    private ExcelRowReader() {
+    }
+
+    /**
+     * 按文件扩展名选择解析方式，逐行回调第一个工作表的内容
+     */
+    public static void read(File file, String fileName, RowHandler handler) throws Exception {
+        String lowerName = fileName != null ? fileName.toLowerCase() : "";
+        if (lowerName.endsWith(".xlsx")) {
+            readXlsx(file, handler);
+        } else if (lowerName.endsWith(".csv")) {
+            readCsv(file, handler);
+        } else {
+            readXls(file, handler);
+        }
+    }
+
+    private static void readXlsx(File file, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                    styles, strings, new XlsxRowCollector(handler), RAW_VALUE_FORMATTER, false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    private static void readXls(File file, RowHandler handler) throws Exception {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(new MissingRecordAwareHSSFListener(new XlsRowCollector(handler)));
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+    }
+
+    /**
+     * .csv：UTF-8 编码（可带 BOM），逗号分隔，双引号包围的字段内可以包含逗号、换行和成对的双引号。
+     * 空单元格为 null，行号按记录计数（引号内的换行不增加行号）
+     */
+    private static void readCsv(File file, RowHandler handler) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            List<String> cells = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean fieldStarted = false;
+            int rowNumber = 1;
+            int ch = reader.read();
+            if (ch == '\uFEFF') {
+                ch = reader.read(); // 跳过 BOM
+            }
+            for (; ch != -1; ch = reader.read()) {
+                if (quoted) {
+                    if (ch != '"') {
+                        field.append((char) ch);
+                        continue;
+                    }
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"'); // 转义的双引号
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else if (ch == '"' && field.length() == 0) {
+                    quoted = true;
+                    fieldStarted = true;
+                } else if (ch == ',') {
+                    cells.add(field.length() > 0 ? field.toString() : null);
+                    field.setLength(0);
+                    fieldStarted = true;
+                } else if (ch == '\n') {
+                    cells.add(field.length() > 0 ? field.toString() : null);
+                    handler.handleRow(rowNumber++, cells);
+                    cells = new ArrayList<>();
+                    field.setLength(0);
+                    fieldStarted = false;
+                } else if (ch != '\r') {
+                    field.append((char) ch);
+                    fieldStarted = true;
+                }
+            }
+            if (fieldStarted || field.length() > 0 || !cells.isEmpty()) {
+                cells.add(field.length() > 0 ? field.toString() : null);
+                handler.handleRow(rowNumber, cells);
+            }
+        }
+    }
+
+    /**
+     * .xlsx：把 SAX 单元格事件拼成行
+     */
+    private static final class XlsxRowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+        private List<String> cells = new ArrayList<>();
+
+        XlsxRowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells = new ArrayList<>();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.handleRow(rowNum + 1, cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : cells.size();
+            setCell(cells, column, formattedValue);
+        }
+    }
+
+    /**
+     * .xls：只处理第一个工作表的单元格记录，遇到行结束的占位记录时回调
+     */
+    private static final class XlsRowCollector implements HSSFListener {
+
+        private final RowHandler handler;
+        private SSTRecord sharedStrings;
+        private int sheetIndex = -1;
+        private boolean pendingFormulaString = false;
+        private int pendingFormulaColumn;
+        private List<String> cells = new ArrayList<>();
+
+        XlsRowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (record instanceof BOFRecord bof) {
+                if (bof.getType() == BOFRecord.TYPE_WORKSHEET) {
+                    sheetIndex++;
+                }
+                return;
+            }
+            if (record instanceof SSTRecord sst) {
+                sharedStrings = sst;
+                return;
+            }
+            if (sheetIndex != 0) {
+                return;
+            }
+
+            if (record instanceof LastCellOfRowDummyRecord lastCell) {
+                handler.handleRow(lastCell.getRow() + 1, cells);
+                cells = new ArrayList<>();
+                return;
+            }
+            if (record instanceof StringRecord stringRecord && pendingFormulaString) {
+                setCell(cells, pendingFormulaColumn, stringRecord.getString());
+                pendingFormulaString = false;
+                return;
+            }
+            if (!(record instanceof CellValueRecordInterface cell)) {
+                return;
+            }
+
+            String value = null;
+            if (record instanceof LabelSSTRecord label) {
+                value = sharedStrings != null ? sharedStrings.getString(label.getSSTIndex()).getString() : null;
+            } else if (record instanceof LabelRecord label) {
+                value = label.getValue();
+            } else if (record instanceof NumberRecord number) {
+                value = NumberToTextConverter.toText(number.getValue());
+            } else if (record instanceof BoolErrRecord boolErr && boolErr.isBoolean()) {
+                value = String.valueOf(boolErr.getBooleanValue());
+            } else if (record instanceof FormulaRecord formula) {
+                // 公式取缓存结果；字符串结果在随后的 StringRecord 中
+                if (formula.hasCachedResultString()) {
+                    pendingFormulaString = true;
+                    pendingFormulaColumn = cell.getColumn();
+                } else {
+                    value = NumberToTextConverter.toText(formula.getValue());
+                }
+            }
+            setCell(cells, cell.getColumn(), value);
+        }
+    }
+
+    private static void setCell(List<String> cells, int column, String value) {
+        while (cells.size() <= column) {
+            cells.add(null);
+        }
+        cells.set(column, value);
+    }
+}
@@ -1,10 +1,12 @@
 package com.a0615.util;
 
+import com.a0615.cache.TokenVersionRegistry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys; // 导入 Keys 类
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -12,9 +14,14 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey; // 导入 SecretKey
 import jakarta.annotation.PostConstruct; // 导入 PostConstruct
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component // 标记这是一个 Spring 组件
@@ -24,18 +31,46 @@ public class JwtUtil {
     @Value("${jwt.secret}") // 从配置文件中读取 jwt.secret
     private String secret;
 
-    // 从 application.properties 中读取 JWT 过期时间（毫秒）
+    // 从 application.properties 中读取 JWT 过期时间（毫秒），即访问令牌的有效期
     @Value("${jwt.expiration}") // 从配置文件中读取 jwt.expiration
     private Long expiration;
 
+    // 刷新令牌的有效期（毫秒）
+    @Value("${jwt.refresh-expiration:604800000}")
+    private Long refreshExpiration;
+
     // 用于生成和解析 JWT 的秘钥对象
     private SecretKey key;
 
+    // 令牌中的自定义声明：角色、用户类型（ADMIN/EMPLOYEE）、签发时的令牌版本号
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_PRINCIPAL_TYPE = "typ";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+    // 令牌用途：访问令牌只能用于访问接口，刷新令牌只能用于换取新令牌；没有该声明的旧令牌视为访问令牌
+    public static final String CLAIM_TOKEN_USE = "use";
+    public static final String TOKEN_USE_ACCESS = "access";
+    public static final String TOKEN_USE_REFRESH = "refresh";
+
+    @Autowired // 令牌版本号登记表，签发时写入当前版本
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    // 已验证令牌缓存的容量，按令牌摘要存放解析出的声明，条目在令牌过期时失效
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // 复用的解析器：JwtParser 构建后线程安全，不必每次校验都重新构建
+    private JwtParser parser;
+
+    // 已通过签名校验的令牌：摘要 -> 声明
+    private TtlCache<String, Claims> verifiedTokens;
+
     // 初始化方法，在所有字段注入完成后执行
     @PostConstruct
     public void init() {
         // 使用 Keys.hmacShaKeyFor 方法从字符串秘钥生成 SecretKey 对象
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verifiedTokens = new TtlCache<>(verifiedCacheSize);
     }
 
     // 从 JWT Token 中获取用户名
@@ -54,43 +89,83 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    // 解析并校验 Token（签名和过期时间），一次返回全部声明；无效时抛出 JwtException
+    // 同一个令牌在过期前再次校验时直接命中缓存，跳过 HMAC 验签
+    public Claims parseClaims(String token) {
+        String digest = digest(token);
+        Claims cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Date exp = claims.getExpiration();
+        if (exp != null) {
+            verifiedTokens.put(digest, claims, exp.getTime());
+        }
+        return claims;
+    }
+
     // 从 JWT Token 中获取所有声明
     private Claims extractAllClaims(String token) {
-        // 使用 Jwts.parserBuilder() 构建解析器，设置签名秘钥
-        return Jwts.parser()
-                .verifyWith(key) // key 是 SecretKey 类型
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parseClaims(token);
     }
 
-    // 检查 Token 是否过期
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // 令牌的 SHA-256 摘要，作为缓存键，避免在内存中长期保存令牌原文
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
     }
 
-    // 为用户生成 Token
+    // 检查声明中的过期时间
+    private Boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
+    // 为用户生成 Token（短期访问令牌）
     public String generateToken(UserDetails userDetails, String userRole) {
+        return createToken(buildClaims(userDetails.getUsername(), userRole, TOKEN_USE_ACCESS), userDetails.getUsername(), expiration);
+    }
+
+    // 为用户生成刷新令牌，用于在访问令牌过期后换取新的令牌对
+    public String generateRefreshToken(String username, String userRole) {
+        return createToken(buildClaims(username, userRole, TOKEN_USE_REFRESH), username, refreshExpiration);
+    }
+
+    // 判断声明是否属于刷新令牌
+    public boolean isRefreshToken(Claims claims) {
+        return TOKEN_USE_REFRESH.equals(claims.get(CLAIM_TOKEN_USE, String.class));
+    }
+
+    private Map<String, Object> buildClaims(String username, String userRole, String tokenUse) {
         Map<String, Object> claims = new HashMap<>();
         // 将用户角色添加到 JWT 的 claims 中
-        claims.put("role", userRole);
-        return createToken(claims, userDetails.getUsername());
+        claims.put(CLAIM_ROLE, userRole);
+        // 用户类型和令牌版本号：无状态认证时据此重建身份并判断是否已被吊销
+        claims.put(CLAIM_PRINCIPAL_TYPE, userRole);
+        claims.put(CLAIM_TOKEN_VERSION, tokenVersionRegistry.versionForIssue(userRole, username));
+        claims.put(CLAIM_TOKEN_USE, tokenUse);
+        return claims;
     }
 
-    // 创建 Token
-    private String createToken(Map<String, Object> claims, String subject) {
+    // 创建 Token，每个令牌带唯一的 jti，用于单独吊销
+    private String createToken(Map<String, Object> claims, String subject, long validityMs) {
         return Jwts.builder()
                 .setClaims(claims) // 设置声明
+                .setId(UUID.randomUUID().toString()) // 设置令牌ID
                 .setSubject(subject) // 设置主题（通常是用户名）
                 .setIssuedAt(new Date(System.currentTimeMillis())) // 设置签发时间
-                .setExpiration(new Date(System.currentTimeMillis() + expiration)) // 设置过期时间
+                .setExpiration(new Date(System.currentTimeMillis() + validityMs)) // 设置过期时间
                 .signWith(key, SignatureAlgorithm.HS256) // 使用秘钥和 HMAC SHA256 算法签名
                 .compact(); // 压缩生成 Token
     }
 
     // 验证 Token
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = parseClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims));
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.a0615.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按键限流的令牌桶，无锁实现。
+ * 每个桶只保存一个 long：下一个令牌的理论到达时间（GCRA 算法，与容量为 capacity、
+ * 每 interval 补充一个令牌的令牌桶等价），取令牌只是一次 CAS。
+ * 桶已补满的键等同于从未出现，定期顺带清理，不需要后台线程。
+ */
+public class TokenBucketRateLimiter {
+
+    // 每处理多少次请求顺带清理一次空闲的桶
+    private static final int SWEEP_INTERVAL = 4096;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger callsSinceSweep = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * @param capacity 桶容量，即允许的突发请求数
+     * @param refillPerMinute 每分钟补充的令牌数
+     * @param maxKeys 跟踪的键数上限，超出时更频繁地清理空闲的桶
+     */
+    public TokenBucketRateLimiter(int capacity, int refillPerMinute, int maxKeys) {
+        if (capacity <= 0 || refillPerMinute <= 0) {
+            throw new IllegalArgumentException("capacity 和 refillPerMinute 必须大于 0");
+        }
+        this.intervalNanos = 60_000_000_000L / refillPerMinute;
+        this.burstNanos = intervalNanos * capacity;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 为键取一个令牌
+     * @return 0 表示放行；否则为还需等待的纳秒数
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        maybeSweep(now);
+
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long tat = bucket.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                rejectedCount.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public int getTrackedKeys() {
+        return buckets.size();
+    }
+
+    private void maybeSweep(long now) {
+        // 键数超过上限时缩短清理间隔，但不在每次请求时都做全表扫描
+        int interval = buckets.size() >= maxKeys ? SWEEP_INTERVAL / 16 : SWEEP_INTERVAL;
+        if (callsSinceSweep.incrementAndGet() < interval) {
+            return;
+        }
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            callsSinceSweep.set(0);
+            // 理论到达时间已过去的桶已经补满，删除后再次访问会得到同样的满桶
+            buckets.values().removeIf(bucket -> bucket.get() <= now);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.a0615.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务相关的小工具
+ */
+public final class TransactionUtils {
+
+    private TransactionUtils() {
+    }
+
+    /**
+     * 在当前事务提交后执行操作；没有活动事务时立即执行。
+     * 用于更新内存索引，避免事务回滚后内存中留下脏数据。
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 在当前事务回滚后执行操作；没有活动事务时不执行。
+     * 用于撤销事务提交前就已写入内存索引的预占记录。
+     */
+    public static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
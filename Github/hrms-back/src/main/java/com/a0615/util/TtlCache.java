@@ -0,0 +1,96 @@
+package com.a0615.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 有容量上限、按条目过期时间失效的并发缓存。
+ * 读取时发现过期立即移除；写入超出容量时先清理过期条目，仍超出则淘汰最早过期的一批，
+ * 把大小压回容量的 90%，使淘汰的排序开销分摊到多次写入上。
+ */
+public class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    public TtlCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize 必须大于 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 取出未过期的值，不存在或已过期时返回 null
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * 写入条目
+     * @param expiresAt 过期时刻（毫秒时间戳），已过期的条目不会写入
+     */
+    public void put(K key, V value, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        // 同一时间只让一个线程做淘汰，其他线程照常写入，短暂超出容量无妨
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(entry -> entry.expiresAt() <= now);
+
+            int target = Math.max(1, maxSize * 9 / 10);
+            int excess = entries.size() - target;
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<K, Entry<V>>> snapshot = new ArrayList<>(entries.entrySet());
+            snapshot.sort(Comparator.comparingLong(e -> e.getValue().expiresAt()));
+            for (int i = 0; i < excess && i < snapshot.size(); i++) {
+                Map.Entry<K, Entry<V>> victim = snapshot.get(i);
+                entries.remove(victim.getKey(), victim.getValue());
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.a0615.cache;
+
+import com.a0615.cache.DepartmentTree.Rollup;
+import com.a0615.cache.LatestSalaryIndex.LatestSalary;
+import com.a0615.entity.Department;
+import com.a0615.entity.DepartmentClosure;
+import com.a0615.entity.Employee;
+import com.a0615.mapper.DepartmentMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * DepartmentTree 的闭包表运算（新增、移动子树的 detach/attach）、层级与祖先，以及子树汇总的全量和增量计算。
+ * 闭包表操作按 DepartmentMapper 中 SQL 的集合语义在内存中执行
+ */
+class DepartmentTreeTest {
+
+    private final Map<Integer, Department> departments = new LinkedHashMap<>();
+    private final List<DepartmentClosure> closures = new ArrayList<>();
+    private DepartmentTree tree;
+
+    @BeforeEach
+    void setUp() {
+        DepartmentMapper mapper = mock(DepartmentMapper.class);
+        when(mapper.selectList(null)).thenAnswer(invocation -> new ArrayList<>(departments.values()));
+        when(mapper.selectAllClosures()).thenAnswer(invocation -> new ArrayList<>(closures));
+        tree = new DepartmentTree();
+        ReflectionTestUtils.setField(tree, "departmentMapper", mapper);
+
+        create(1, "总部", null);
+        create(2, "研发", 1);
+        create(3, "后端", 2);
+        create(4, "市场", 1);
+        create(5, "数据库", 3);
+    }
+
+    @Test
+    void insertedClosuresGiveAncestorsAndLevels() {
+        tree.reload();
+
+        assertArrayEquals(new int[] {5, 3, 2, 1}, tree.node(5).ancestors()); // 按距离由近到远
+        assertEquals(3, tree.node(5).level());
+        assertEquals(0, tree.node(1).level());
+        assertEquals(List.of(2, 4), tree.node(1).children());
+        assertEquals(List.of(1, 4, 2, 3, 5), tree.nodes().stream().map(node -> node.department().getId()).toList()); // 同层按名称排序
+        assertEquals(12, closures.size()); // 每个部门的闭包行数为层级 + 1
+    }
+
+    @Test
+    void rollupsAggregateOwnAndSubtreeMembers() {
+        loadEmployees();
+        tree.reload();
+
+        assertTrue(tree.isReady());
+        assertEquals(new Rollup(2, 2, 2, 30000), tree.ownRollup(3));
+        assertEquals(new Rollup(3, 3, 2, 30000), tree.subtreeRollup(3)); // 含数据库组
+        assertEquals(new Rollup(4, 4, 2, 30000), tree.subtreeRollup(2));
+        assertEquals(new Rollup(1, 0, 0, 0), tree.ownRollup(4)); // 离职员工不计入在职和薪资
+        assertEquals(new Rollup(5, 4, 2, 30000), tree.subtreeRollup(1));
+        assertEquals("150.00", tree.subtreeRollup(3).averageSalary().toPlainString());
+    }
+
+    @Test
+    void movingASubtreeRewritesOnlyPathsToOutsideAncestors() {
+        loadEmployees();
+        tree.reload();
+        Set<String> inside = pathsWithin(Set.of(3, 5));
+
+        move(3, 4); // 后端（连同数据库组）移到市场之下
+        tree.reload();
+
+        assertEquals(inside, pathsWithin(Set.of(3, 5))); // 子树内部的闭包行不变
+        assertArrayEquals(new int[] {5, 3, 4, 1}, tree.node(5).ancestors());
+        assertEquals(2, tree.node(3).level());
+        assertEquals(List.of(), tree.node(2).children());
+        assertEquals(List.of(3), tree.node(4).children());
+        assertEquals(new Rollup(1, 1, 0, 0), tree.subtreeRollup(2));
+        assertEquals(new Rollup(4, 3, 2, 30000), tree.subtreeRollup(4));
+        assertEquals(new Rollup(5, 4, 2, 30000), tree.subtreeRollup(1)); // 根的汇总不变
+        assertEquals(12, closures.size()); // 后端和数据库组的层级不变，闭包行数也不变
+    }
+
+    @Test
+    void movingToTheTopOnlyDetaches() {
+        loadEmployees();
+        tree.reload();
+
+        move(3, null);
+        tree.reload();
+
+        assertArrayEquals(new int[] {5, 3}, tree.node(5).ancestors());
+        assertEquals(0, tree.node(3).level());
+        assertEquals(new Rollup(3, 3, 2, 30000), tree.subtreeRollup(3));
+        assertEquals(new Rollup(2, 1, 0, 0), tree.subtreeRollup(1));
+        assertEquals(8, closures.size()); // 后端、数据库组各少了与总部、研发之间的两行
+    }
+
+    @Test
+    void incrementalChangesUpdateTheDepartmentAndItsAncestors() {
+        loadEmployees();
+        tree.reload();
+
+        // E002 从研发调到数据库组，同时有了薪资
+        tree.onChanged(employee("E002", "研发", "在职"), employee("E002", "数据库", "在职"));
+        tree.onChanged("E002", new LatestSalary(9L, "E002", "2024-02", 5000));
+        // E005 离职
+        tree.onChanged(employee("E005", "数据库", "在职"), employee("E005", "数据库", "离职"));
+
+        assertEquals(new Rollup(0, 0, 0, 0), tree.ownRollup(2));
+        assertEquals(new Rollup(2, 1, 1, 5000), tree.ownRollup(5));
+        assertEquals(new Rollup(4, 3, 3, 35000), tree.subtreeRollup(3));
+        assertEquals(new Rollup(4, 3, 3, 35000), tree.subtreeRollup(2));
+        assertEquals(new Rollup(5, 3, 3, 35000), tree.subtreeRollup(1));
+        assertEquals(new Rollup(1, 0, 0, 0), tree.subtreeRollup(4));
+    }
+
+    @Test
+    void notReadyUntilEmployeesAreLoaded() {
+        tree.reload();
+
+        assertFalse(tree.isReady());
+        assertEquals(new Rollup(0, 0, 0, 0), tree.subtreeRollup(1));
+    }
+
+    /**
+     * E001、E004 在后端且有薪资，E002 在研发，E003 在市场已离职，E005 在数据库组
+     */
+    private void loadEmployees() {
+        tree.onReload(List.of(
+            employee("E001", "后端", "在职"),
+            employee("E002", "研发", "在职"),
+            employee("E003", "市场", "离职"),
+            employee("E004", "后端", "在职"),
+            employee("E005", "数据库", "在职")));
+        Map<String, LatestSalary> latest = new HashMap<>();
+        latest.put("E001", new LatestSalary(1L, "E001", "2024-01", 10000));
+        latest.put("E003", new LatestSalary(2L, "E003", "2024-01", 8000));
+        latest.put("E004", new LatestSalary(3L, "E004", "2024-01", 20000));
+        tree.onReload(latest);
+    }
+
+    /**
+     * 对应 DepartmentMapper.insertClosures：上级的每个祖先到新部门各一行，外加自身一行
+     */
+    private void create(int id, String name, Integer parentId) {
+        Department department = new Department();
+        department.setId(id);
+        department.setName(name);
+        department.setParentId(parentId);
+        departments.put(id, department);
+        if (parentId != null) {
+            for (DepartmentClosure row : List.copyOf(closures)) {
+                if (row.getDescendantId() == parentId) {
+                    closures.add(closure(row.getAncestorId(), id, row.getDepth() + 1));
+                }
+            }
+        }
+        closures.add(closure(id, id, 0));
+    }
+
+    /**
+     * 对应 DepartmentMapper.detachSubtree 和 attachSubtree
+     */
+    private void move(int id, Integer parentId) {
+        Set<Integer> subtree = closures.stream().filter(row -> row.getAncestorId() == id)
+            .map(DepartmentClosure::getDescendantId).collect(Collectors.toSet());
+        closures.removeIf(row -> subtree.contains(row.getDescendantId()) && !subtree.contains(row.getAncestorId()));
+        if (parentId != null) {
+            List<DepartmentClosure> added = new ArrayList<>();
+            for (DepartmentClosure p : closures) {
+                if (p.getDescendantId() != parentId.intValue()) {
+                    continue;
+                }
+                for (DepartmentClosure s : closures) {
+                    if (s.getAncestorId() == id) {
+                        added.add(closure(p.getAncestorId(), s.getDescendantId(), p.getDepth() + s.getDepth() + 1));
+                    }
+                }
+            }
+            closures.addAll(added);
+        }
+        departments.get(id).setParentId(parentId);
+    }
+
+    private Set<String> pathsWithin(Set<Integer> ids) {
+        return closures.stream()
+            .filter(row -> ids.contains(row.getAncestorId()) && ids.contains(row.getDescendantId()))
+            .map(row -> Arrays.toString(new int[] {row.getAncestorId(), row.getDescendantId(), row.getDepth()}))
+            .collect(Collectors.toSet());
+    }
+
+    private static DepartmentClosure closure(int ancestorId, int descendantId, int depth) {
+        DepartmentClosure closure = new DepartmentClosure();
+        closure.setAncestorId(ancestorId);
+        closure.setDescendantId(descendantId);
+        closure.setDepth(depth);
+        return closure;
+    }
+
+    private static Employee employee(String empId, String dept, String status) {
+        Employee employee = new Employee();
+        employee.setEmpId(empId);
+        employee.setDept(dept);
+        employee.setStatus(status);
+        return employee;
+    }
+}
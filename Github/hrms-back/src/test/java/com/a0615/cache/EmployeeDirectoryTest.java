@@ -0,0 +1,176 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Employee;
+import com.a0615.mapper.EmployeeMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * EmployeeDirectory 的增量快照（排序列表、工号和部门索引）与整体重建一致，以及定时刷新和批量修改时对监听器的通知方式
+ */
+class EmployeeDirectoryTest {
+
+    private static final List<String> DEPTS = List.of("研发", "市场", "财务", "");
+
+    private final Map<String, Employee> database = new LinkedHashMap<>();
+    private final RecordingListener listener = new RecordingListener();
+    private EmployeeDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        EmployeeMapper mapper = mock(EmployeeMapper.class);
+        when(mapper.selectList(any())).thenAnswer(invocation -> database.values().stream()
+            .sorted(Comparator.comparing(Employee::getId)).map(EmployeeDirectoryTest::copy).collect(Collectors.toList()));
+        directory = new EmployeeDirectory();
+        ReflectionTestUtils.setField(directory, "employeeMapper", mapper);
+        ReflectionTestUtils.setField(directory, "listeners", List.of(listener));
+        for (int id = 1; id <= 200; id++) {
+            save(employee(id, DEPTS.get(id % DEPTS.size()), "在职"));
+        }
+        directory.reload();
+        listener.reloads = 0;
+    }
+
+    @Test
+    void incrementalChangesMatchAFullRebuild() {
+        Random random = new Random(11);
+        int nextId = 201;
+        for (int i = 0; i < 500; i++) {
+            int action = random.nextInt(3);
+            if (action == 0) {
+                Employee added = employee(nextId++, DEPTS.get(random.nextInt(DEPTS.size())), "在职");
+                save(added);
+                directory.onSaved(added);
+            } else {
+                List<String> empIds = new ArrayList<>(database.keySet());
+                String empId = empIds.get(random.nextInt(empIds.size()));
+                if (action == 1) {
+                    Employee moved = copy(database.get(empId));
+                    moved.setDept(DEPTS.get(random.nextInt(DEPTS.size())));
+                    save(moved);
+                    directory.onSaved(moved);
+                } else {
+                    database.remove(empId);
+                    directory.onDeleted(empId);
+                }
+            }
+        }
+
+        List<Employee> expected = database.values().stream().sorted(Comparator.comparing(Employee::getId)).toList();
+        assertEquals(expected, directory.all());
+        assertEquals(expected.size(), directory.count());
+        Map<String, Integer> expectedCounts = new TreeMap<>();
+        for (Employee employee : expected) {
+            assertEquals(employee, directory.get(employee.getEmpId()));
+            if (!employee.getDept().isEmpty()) {
+                expectedCounts.merge(employee.getDept(), 1, Integer::sum);
+            }
+        }
+        assertEquals(expectedCounts, new TreeMap<>(directory.deptCounts()));
+        for (String dept : expectedCounts.keySet()) {
+            assertEquals(expected.stream().filter(employee -> dept.equals(employee.getDept())).toList(), directory.byDept(dept));
+        }
+        assertEquals(List.of(), directory.byDept(""));
+        assertEquals(0, listener.reloads);
+    }
+
+    @Test
+    void scheduledReloadWithoutChangesDoesNotNotify() {
+        directory.reload();
+
+        assertEquals(0, listener.reloads);
+        assertEquals(0, listener.changes);
+    }
+
+    @Test
+    void scheduledReloadAppliesFewChangesIncrementally() {
+        Employee resigned = copy(database.get("E0007"));
+        resigned.setStatus("离职");
+        save(resigned); // 绕过 EmployeeService 的库外修改
+        database.remove("E0008");
+
+        directory.reload();
+
+        assertEquals(0, listener.reloads);
+        assertEquals(2, listener.changes);
+        assertEquals("离职", directory.get("E0007").getStatus());
+        assertNull(directory.get("E0008"));
+        assertEquals(199, directory.count());
+    }
+
+    @Test
+    void bulkChangesNotifyPerEmployeeOnlyWhenFew() {
+        List<Employee> few = new ArrayList<>();
+        for (int id = 1; id <= 5; id++) {
+            Employee employee = copy(database.get(String.format("E%04d", id)));
+            employee.setPos("经理");
+            few.add(employee);
+        }
+        directory.onSavedAll(few);
+        assertEquals(0, listener.reloads);
+        assertEquals(5, listener.changes);
+
+        List<Employee> many = new ArrayList<>();
+        for (Employee employee : database.values()) {
+            Employee changed = copy(employee);
+            changed.setPos("专员");
+            many.add(changed);
+        }
+        directory.onSavedAll(many);
+        assertEquals(1, listener.reloads);
+        assertEquals("专员", directory.get("E0200").getPos());
+    }
+
+    private void save(Employee employee) {
+        database.put(employee.getEmpId(), copy(employee));
+    }
+
+    private static Employee employee(int id, String dept, String status) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setEmpId(String.format("E%04d", id));
+        employee.setName("员工" + id);
+        employee.setDept(dept);
+        employee.setStatus(status);
+        return employee;
+    }
+
+    private static Employee copy(Employee source) {
+        Employee copy = employee(source.getId(), source.getDept(), source.getStatus());
+        copy.setEmpId(source.getEmpId());
+        copy.setName(source.getName());
+        copy.setPos(source.getPos());
+        return copy;
+    }
+
+    private static final class RecordingListener implements EmployeeDirectory.ChangeListener {
+        int reloads;
+        int changes;
+
+        @Override
+        public void onReload(List<Employee> employees) {
+            reloads++;
+        }
+
+        @Override
+        public void onChanged(Employee before, Employee after) {
+            changes++;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Employee;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EmployeeFacetIndex 的组合筛选、各维度人数、分页和增量维护
+ */
+class EmployeeFacetIndexTest {
+
+    private EmployeeFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EmployeeFacetIndex();
+        index.onReload(List.of(
+            employee(1, "研发", "工程师", "EMPLOYEE", "在职"),
+            employee(2, "研发", "工程师", "EMPLOYEE", "离职"),
+            employee(3, "研发", "经理", "ADMIN", "在职"),
+            employee(4, "市场", "专员", "EMPLOYEE", "在职"),
+            employee(5, "市场", "经理", "EMPLOYEE", "在职"),
+            employee(6, "财务", "专员", "EMPLOYEE", "离职")));
+    }
+
+    @Test
+    void notReadyBeforeFirstLoad() {
+        assertNull(new EmployeeFacetIndex().query(Map.of(), null, 10));
+    }
+
+    @Test
+    void valuesAreOredWithinAFacetAndFacetsAreAnded() {
+        EmployeeFacetIndex.Result result = index.query(
+            Map.of("dept", List.of("研发", "市场"), "status", List.of("在职")), null, 10);
+
+        assertEquals(List.of(1, 3, 4, 5), ids(result));
+        assertEquals(4, result.total());
+        assertFalse(result.hasMore());
+    }
+
+    @Test
+    void eachFacetCountIgnoresItsOwnCondition() {
+        Map<String, Map<String, Integer>> counts = index.query(
+            Map.of("dept", List.of("研发", "市场"), "status", List.of("在职")), null, 10).facetCounts();
+
+        assertEquals(Map.of("研发", 2, "市场", 2, "财务", 0), counts.get("dept")); // 只应用状态条件
+        assertEquals(Map.of("在职", 4, "离职", 1), counts.get("status")); // 只应用部门条件
+        assertEquals(Map.of("工程师", 1, "经理", 2, "专员", 1), counts.get("pos"));
+        assertEquals(Map.of("EMPLOYEE", 3, "ADMIN", 1), counts.get("role"));
+        assertEquals(List.of("dept", "pos", "role", "status"), List.copyOf(counts.keySet()));
+    }
+
+    @Test
+    void withoutFiltersCountsAreValueCardinalities() {
+        EmployeeFacetIndex.Result result = index.query(Map.of("pos", List.of()), null, 10);
+
+        assertEquals(6, result.total());
+        assertEquals(Map.of("研发", 3, "市场", 2, "财务", 1), result.facetCounts().get("dept"));
+        assertEquals(index.counts("status"), result.facetCounts().get("status"));
+    }
+
+    @Test
+    void pagesByIdAfterTheCursor() {
+        Map<String, List<String>> filters = Map.of("status", List.of("在职"));
+
+        EmployeeFacetIndex.Result first = index.query(filters, null, 2);
+        EmployeeFacetIndex.Result second = index.query(filters, 3, 2);
+
+        assertEquals(List.of(1, 3), ids(first));
+        assertTrue(first.hasMore());
+        assertEquals(List.of(4, 5), ids(second));
+        assertFalse(second.hasMore());
+        assertEquals(4, second.total());
+    }
+
+    @Test
+    void unknownValuesMatchNothingAndUnknownFacetsAreRejected() {
+        assertEquals(0, index.query(Map.of("dept", List.of("不存在")), null, 10).total());
+        assertThrows(IllegalArgumentException.class, () -> index.query(Map.of("salary", List.of("1")), null, 10));
+    }
+
+    @Test
+    void incrementalChangesMoveBitsBetweenValues() {
+        EmployeeFacetIndex.Result before = index.query(Map.of(), null, 10);
+
+        index.onChanged(employee(4, "市场", "专员", "EMPLOYEE", "在职"), employee(4, "财务", "专员", "EMPLOYEE", "离职"));
+        index.onChanged(employee(6, "财务", "专员", "EMPLOYEE", "离职"), null);
+        index.onChanged(null, employee(7, "法务", "顾问", "EMPLOYEE", "在职"));
+
+        EmployeeFacetIndex.Result after = index.query(Map.of("dept", List.of("财务", "法务")), null, 10);
+        assertEquals(List.of(4, 7), ids(after));
+        assertEquals(Map.of("研发", 3, "市场", 1, "财务", 1, "法务", 1), after.facetCounts().get("dept"));
+        assertEquals(Map.of("在职", 1, "离职", 1), after.facetCounts().get("status"));
+        assertEquals("财务", after.employees().get(0).getDept());
+        // 旧快照的结果不受后续修改影响
+        assertEquals(Map.of("研发", 3, "市场", 2, "财务", 1), before.facetCounts().get("dept"));
+    }
+
+    @Test
+    void growsForIdsBeyondTheInitialCapacity() {
+        index.onChanged(null, employee(5000, "研发", "工程师", "EMPLOYEE", "在职"));
+        index.onChanged(employee(1, "研发", "工程师", "EMPLOYEE", "在职"), employee(1, "研发", "架构师", "EMPLOYEE", "在职"));
+
+        EmployeeFacetIndex.Result engineers = index.query(Map.of("pos", List.of("工程师")), null, 10);
+        assertEquals(List.of(2, 5000), ids(engineers));
+        assertEquals(1, index.counts("pos").get("架构师"));
+
+        index.onChanged(employee(5000, "研发", "工程师", "EMPLOYEE", "在职"), null);
+        assertEquals(List.of(2), ids(index.query(Map.of("pos", List.of("工程师")), null, 10)));
+        assertEquals(3, index.counts("dept").get("研发"));
+    }
+
+    private static List<Integer> ids(EmployeeFacetIndex.Result result) {
+        return result.employees().stream().map(Employee::getId).toList();
+    }
+
+    private static Employee employee(int id, String dept, String pos, String role, String status) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setEmpId(String.format("E%03d", id));
+        employee.setDept(dept);
+        employee.setPos(pos);
+        employee.setRole(role);
+        employee.setStatus(status);
+        return employee;
+    }
+}
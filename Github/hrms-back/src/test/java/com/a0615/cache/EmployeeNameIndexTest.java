@@ -0,0 +1,99 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Employee;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * EmployeeNameIndex 的汉字 n-gram、全拼前缀、首字母前缀和部门条件，以及增量维护
+ */
+class EmployeeNameIndexTest {
+
+    private EmployeeNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EmployeeNameIndex();
+        index.onReload(List.of(
+            employee(1, "E001", "张三", "研发"),
+            employee(2, "E002", "张三丰", "市场"),
+            employee(3, "E003", "李四", "研发"),
+            employee(4, "E004", "王小明", "研发"),
+            employee(5, "E005", "Alice Wong", "市场"),
+            employee(6, "E006", "司马相如欧阳", "财务")));
+    }
+
+    @Test
+    void notReadyBeforeFirstLoad() {
+        assertNull(new EmployeeNameIndex().search("张", null));
+    }
+
+    @Test
+    void matchesChineseSubstrings() {
+        assertEquals(List.of("E001", "E002"), empIds(index.search("三", null)));
+        assertEquals(List.of("E001", "E002"), empIds(index.search("张三", null)));
+        assertEquals(List.of("E002"), empIds(index.search("张三丰", null)));
+        assertEquals(List.of("E004"), empIds(index.search("小明", null)));
+        // 两个二元组都存在但姓名不连续包含关键词
+        assertEquals(List.of(), empIds(index.search("三小", null)));
+    }
+
+    @Test
+    void matchesFullPinyinAndInitialPrefixes() {
+        assertEquals(List.of("E001", "E002"), empIds(index.search("zhangsan", null)));
+        assertEquals(List.of("E002"), empIds(index.search("zhangsanf", null)));
+        assertEquals(List.of("E002"), empIds(index.search("zsf", null)));
+        assertEquals(List.of("E004"), empIds(index.search("WXM", null))); // 不区分大小写
+        assertEquals(List.of("E003"), empIds(index.search("lis", null)));
+    }
+
+    @Test
+    void pinyinLongerThanIndexedPrefixIsVerified() {
+        assertEquals(List.of("E006"), empIds(index.search("simaxiangruouyang", null)));
+        assertEquals(List.of(), empIds(index.search("simaxiangruouyanx", null)));
+    }
+
+    @Test
+    void latinNamesUseNgramsCaseInsensitively() {
+        assertEquals(List.of("E005"), empIds(index.search("ICE W", null)));
+        assertEquals(List.of("E005"), empIds(index.search("wong", null)));
+    }
+
+    @Test
+    void filtersByDepartment() {
+        assertEquals(List.of("E001"), empIds(index.search("张", "研发")));
+        assertEquals(List.of("E001", "E003", "E004"), empIds(index.search(null, "研发")));
+        assertEquals(6, index.search("", null).size());
+    }
+
+    @Test
+    void incrementalChangesReplaceOnlyTheAffectedKeys() {
+        Employee renamed = employee(3, "E003", "李五", "市场");
+        index.onChanged(employee(3, "E003", "李四", "研发"), renamed);
+        index.onChanged(employee(1, "E001", "张三", "研发"), null);
+        index.onChanged(null, employee(7, "E007", "张伟", "研发")); // 复用删除后空出的槽位
+
+        assertEquals(List.of(), empIds(index.search("四", null)));
+        assertEquals(List.of("E003"), empIds(index.search("liwu", "市场")));
+        assertEquals(List.of("E002", "E007"), empIds(index.search("张", null))); // 仍按主键排序
+        assertEquals(List.of("E004", "E007"), empIds(index.search(null, "研发")));
+    }
+
+    private static List<String> empIds(List<Employee> employees) {
+        return employees.stream().map(Employee::getEmpId).toList();
+    }
+
+    private static Employee employee(int id, String empId, String name, String dept) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setEmpId(empId);
+        employee.setName(name);
+        employee.setDept(dept);
+        return employee;
+    }
+}
@@ -0,0 +1,118 @@
+package com.a0615.cache;
+
+import com.a0615.cache.LatestSalaryIndex.LatestSalary;
+import com.a0615.entity.Salary;
+import com.a0615.mapper.SalaryMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * LatestSalaryIndex 的整体替换式加载，以及查询数据库期间的增量修改不会被较早的查询结果覆盖
+ */
+class LatestSalaryIndexTest {
+
+    private SalaryMapper mapper;
+    private LatestSalaryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(SalaryMapper.class);
+        index = new LatestSalaryIndex();
+        ReflectionTestUtils.setField(index, "salaryMapper", mapper);
+    }
+
+    @Test
+    void readersKeepTheOldIndexWhileReloading() {
+        when(mapper.selectLatestPerEmployee()).thenReturn(List.of(salary(1L, "E1", "2024-01", "100.00")));
+        index.reload();
+        doAnswer(invocation -> {
+            // 加载查询期间统计接口读取到的仍是完整的原索引
+            assertEquals(100_00, index.snapshotByEmpId().get("E1").totalCents());
+            return List.of(salary(1L, "E1", "2024-01", "100.00"), salary(2L, "E2", "2024-01", "80.00"));
+        }).when(mapper).selectLatestPerEmployee();
+
+        index.reload();
+
+        assertEquals(Set.of("E1", "E2"), index.snapshotByEmpId().keySet());
+    }
+
+    @Test
+    void reloadReplaysSalariesSavedDuringTheQuery() {
+        when(mapper.selectLatestPerEmployee()).thenAnswer(invocation -> {
+            index.onSaved(List.of(salary(3L, "E1", "2024-02", "120.00"))); // 查询结果中没有这条
+            return List.of(salary(1L, "E1", "2024-01", "100.00"));
+        });
+
+        index.reload();
+
+        assertTrue(index.isReady());
+        assertEquals("2024-02", index.snapshotByEmpId().get("E1").month());
+    }
+
+    @Test
+    void refreshDoesNotOverwriteANewerMonthSavedDuringTheQuery() {
+        when(mapper.selectLatestPerEmployee()).thenReturn(List.of(salary(2L, "E1", "2024-02", "120.00")));
+        index.reload();
+        when(mapper.selectLatestByEmpIds(any())).thenAnswer(invocation -> {
+            index.onSaved(List.of(salary(4L, "E1", "2024-03", "130.00")));
+            return List.of(salary(1L, "E1", "2024-01", "100.00")); // 2024-02 被删除后的查询结果
+        });
+
+        index.onChanged(List.of("E1"));
+
+        LatestSalary latest = index.snapshotByEmpId().get("E1");
+        assertEquals("2024-03", latest.month());
+        assertEquals(130_00, latest.totalCents());
+    }
+
+    @Test
+    void refreshMovesBackOrRemovesTheLatestSalary() {
+        when(mapper.selectLatestPerEmployee()).thenReturn(List.of(
+            salary(2L, "E1", "2024-02", "120.00"), salary(3L, "E2", "2024-02", "90.00")));
+        index.reload();
+        when(mapper.selectLatestByEmpIds(any())).thenReturn(List.of(salary(1L, "E1", "2024-01", "100.00")));
+
+        index.onChanged(List.of("E1", "E2"));
+
+        Map<String, LatestSalary> latest = index.snapshotByEmpId();
+        assertEquals("2024-01", latest.get("E1").month());
+        assertNull(latest.get("E2"));
+    }
+
+    @Test
+    void refreshDuringReloadIsReplayedOntoTheNewIndex() {
+        when(mapper.selectLatestByEmpIds(any())).thenReturn(List.of());
+        when(mapper.selectLatestPerEmployee()).thenAnswer(invocation -> {
+            index.onChanged(List.of("E1")); // E1 的记录在加载查询之后被删除
+            return List.of(salary(1L, "E1", "2024-01", "100.00"));
+        });
+
+        index.reload();
+
+        assertFalse(index.snapshotByEmpId().containsKey("E1"));
+    }
+
+    private static Salary salary(Long id, String empId, String month, String total) {
+        Salary salary = new Salary();
+        salary.setId(id);
+        salary.setEmpId(empId);
+        salary.setMonth(month);
+        salary.setTotalSalary(new BigDecimal(total));
+        return salary;
+    }
+}
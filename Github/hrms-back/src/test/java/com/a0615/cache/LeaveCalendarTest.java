@@ -0,0 +1,261 @@
+package com.a0615.cache;
+
+import com.a0615.cache.LeaveCalendar.Leave;
+import com.a0615.entity.Employee;
+import com.a0615.entity.LeaveApplication;
+import com.a0615.mapper.LeaveApplicationMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * LeaveCalendar 的区间树查询（与逐个比较的结果对照）、重叠预占、部门调动，以及加载期间的预占保留和修改重放
+ */
+class LeaveCalendarTest {
+
+    private static final LocalDate BASE = LocalDate.of(2024, 1, 1);
+    private static final List<String> DEPTS = List.of("研发", "市场", "财务");
+
+    private final List<LeaveApplication> stored = new ArrayList<>();
+    private LeaveApplicationMapper mapper;
+    private LeaveCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(LeaveApplicationMapper.class);
+        doAnswer(invocation -> new ArrayList<>(stored)).when(mapper).selectList(any());
+        calendar = new LeaveCalendar();
+        ReflectionTestUtils.setField(calendar, "leaveApplicationMapper", mapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void treeQueriesMatchBruteForce() {
+        Random random = new Random(42);
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            employees.add(employee("E" + i, DEPTS.get(i % DEPTS.size())));
+        }
+        calendar.onReload(employees);
+        Map<Long, LeaveApplication> live = new HashMap<>();
+        for (long id = 1; id <= 600; id++) {
+            int start = random.nextInt(365);
+            LeaveApplication application = application(id, "E" + random.nextInt(12), start, start + random.nextInt(10),
+                random.nextBoolean() ? "已批准" : "待审批");
+            stored.add(application);
+            live.put(id, application);
+        }
+        calendar.reload();
+        for (long id = 1; id <= 600; id += 3) {
+            calendar.onDeleted(id); // 没有活动事务，立即移除
+            live.remove(id);
+        }
+
+        for (int i = 0; i < 400; i++) {
+            int from = random.nextInt(380) - 5;
+            int to = from + random.nextInt(20);
+            String empId = "E" + random.nextInt(12);
+            Long excludeId = (long) (random.nextInt(600) + 1);
+            List<Long> expected = bruteForce(live, null, empId, from, to, excludeId);
+            Leave overlap = calendar.findOverlap(empId, BASE.plusDays(from), BASE.plusDays(to), excludeId);
+            if (expected.isEmpty()) {
+                assertNull(overlap);
+            } else {
+                assertTrue(expected.contains(overlap.id()), "findOverlap 返回了不重叠的申请 " + overlap.id());
+            }
+
+            String dept = DEPTS.get(random.nextInt(DEPTS.size()));
+            assertEquals(bruteForce(live, dept, null, from, to, null),
+                ids(calendar.overlapping(dept, BASE.plusDays(from), BASE.plusDays(to))));
+            assertEquals(bruteForce(live, null, null, from, to, null),
+                ids(calendar.overlapping(null, BASE.plusDays(from), BASE.plusDays(to))));
+        }
+    }
+
+    @Test
+    void findOverlapSkipsTheExcludedApplication() {
+        calendar.reload();
+        calendar.addIfNoOverlap(application(1L, "E1", 0, 4, "已批准"));
+        calendar.addIfNoOverlap(application(2L, "E1", 10, 12, "待审批"));
+
+        assertEquals(1L, calendar.findOverlap("E1", BASE.plusDays(3), BASE.plusDays(11), 2L).id());
+        assertEquals(2L, calendar.findOverlap("E1", BASE.plusDays(3), BASE.plusDays(11), 1L).id());
+        assertNull(calendar.findOverlap("E1", BASE.plusDays(2), BASE.plusDays(3), 1L));
+        assertNull(calendar.findOverlap("E1", BASE.plusDays(5), BASE.plusDays(9), null));
+        assertNull(calendar.findOverlap("E2", BASE, BASE.plusDays(20), null));
+    }
+
+    @Test
+    void addIfNoOverlapRejectsOverlapsAndIgnoresInactiveApplications() {
+        calendar.reload();
+
+        assertNull(calendar.addIfNoOverlap(application(1L, "E1", 0, 4, "待审批")));
+        Leave overlap = calendar.addIfNoOverlap(application(2L, "E1", 4, 6, "待审批")); // 首尾同一天也算重叠
+        assertNotNull(overlap);
+        assertEquals(1L, overlap.id());
+        assertNull(calendar.addIfNoOverlap(application(3L, "E1", 5, 6, "待审批")));
+        assertNull(calendar.addIfNoOverlap(application(4L, "E2", 0, 4, "已批准"))); // 其他员工不冲突
+        assertNull(calendar.addIfNoOverlap(application(5L, "E1", 0, 10, "拒绝"))); // 未占用日期，不进入索引
+
+        assertEquals(List.of(1L, 4L, 3L), ids(calendar.overlapping(null, BASE, BASE.plusDays(10))));
+        calendar.onSaved(application(1L, "E1", 0, 4, "拒绝")); // 审核驳回后让出日期
+        assertNull(calendar.addIfNoOverlap(application(6L, "E1", 2, 3, "待审批")));
+    }
+
+    @Test
+    void departmentQueriesFollowEmployeeMoves() {
+        calendar.reload();
+        calendar.addIfNoOverlap(application(1L, "E1", 0, 4, "已批准"));
+        calendar.addIfNoOverlap(application(2L, "E2", 1, 2, "已批准"));
+
+        assertNull(calendar.overlapping("研发", BASE, BASE.plusDays(5))); // 员工未加载时无法按部门查询
+        calendar.onReload(List.of(employee("E1", "研发"), employee("E2", "研发")));
+        assertEquals(List.of(1L, 2L), ids(calendar.overlapping("研发", BASE, BASE.plusDays(5))));
+
+        calendar.onChanged(employee("E1", "研发"), employee("E1", "市场"));
+        assertEquals(List.of(2L), ids(calendar.overlapping("研发", BASE, BASE.plusDays(5))));
+        assertEquals(List.of(1L), ids(calendar.overlapping("市场", BASE, BASE.plusDays(5))));
+
+        calendar.addIfNoOverlap(application(3L, "E1", 8, 10, "待审批"));
+        assertEquals(List.of(1L, 3L), ids(calendar.overlapping("市场", BASE, BASE.plusDays(30))));
+
+        calendar.onChanged(employee("E2", "研发"), null); // 员工删除，请假随之删除
+        assertEquals(List.of(), ids(calendar.overlapping("研发", BASE, BASE.plusDays(5))));
+        assertEquals(List.of(1L, 3L), ids(calendar.overlapping(null, BASE, BASE.plusDays(30))));
+    }
+
+    @Test
+    void notReadyUntilLoaded() {
+        assertFalse(calendar.isReady());
+        assertNull(calendar.overlapping(null, BASE, BASE.plusDays(5)));
+
+        doAnswer(invocation -> {
+            throw new IllegalStateException("connection refused");
+        }).when(mapper).selectList(any());
+        calendar.reload();
+        assertFalse(calendar.isReady());
+    }
+
+    @Test
+    void reloadKeepsReservationsOfOpenTransactionsUntilRollback() {
+        calendar.reload();
+        TransactionSynchronizationManager.initSynchronization();
+        assertNull(calendar.addIfNoOverlap(application(1L, "E1", 0, 4, "待审批")));
+
+        calendar.reload(); // 事务未提交，加载查询看不到这条申请
+        assertEquals(1L, calendar.findOverlap("E1", BASE.plusDays(2), BASE.plusDays(2), null).id());
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertNull(calendar.findOverlap("E1", BASE.plusDays(2), BASE.plusDays(2), null));
+        calendar.reload();
+        assertNull(calendar.findOverlap("E1", BASE.plusDays(2), BASE.plusDays(2), null));
+    }
+
+    @Test
+    void reloadReplaysChangesMadeDuringTheQuery() {
+        stored.add(application(1L, "E1", 0, 4, "已批准"));
+        stored.add(application(2L, "E2", 0, 4, "已批准"));
+        doAnswer(invocation -> {
+            List<LeaveApplication> snapshot = new ArrayList<>(stored);
+            // 查询返回之前，其他线程提交了新增、删除和驳回，查询结果中仍是旧数据
+            calendar.onSaved(application(3L, "E3", 0, 4, "待审批"));
+            calendar.onDeleted(1L);
+            calendar.onSaved(application(2L, "E2", 0, 4, "拒绝"));
+            return snapshot;
+        }).when(mapper).selectList(any());
+
+        calendar.reload();
+
+        assertTrue(calendar.isReady());
+        assertEquals(List.of(3L), ids(calendar.overlapping(null, BASE, BASE.plusDays(10))));
+    }
+
+    @Test
+    void reservationCommittedDuringTheQueryIsKept() {
+        calendar.reload();
+        TransactionSynchronizationManager.initSynchronization();
+        calendar.addIfNoOverlap(application(1L, "E1", 0, 4, "待审批"));
+        doAnswer(invocation -> {
+            complete(TransactionSynchronization.STATUS_COMMITTED); // 查询开始于提交之前，结果中没有这条申请
+            return List.of();
+        }).when(mapper).selectList(any());
+
+        calendar.reload();
+
+        Leave overlap = calendar.findOverlap("E1", BASE, BASE.plusDays(1), null);
+        assertNotNull(overlap);
+        assertEquals(1L, overlap.id());
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private List<Long> bruteForce(Map<Long, LeaveApplication> live, String dept, String empId, int from, int to, Long excludeId) {
+        LocalDate fromDate = BASE.plusDays(from);
+        LocalDate toDate = BASE.plusDays(to);
+        return live.values().stream()
+            .filter(application -> !application.getId().equals(excludeId))
+            .filter(application -> empId == null || empId.equals(application.getEmpId()))
+            .filter(application -> dept == null
+                || dept.equals(DEPTS.get(Integer.parseInt(application.getEmpId().substring(1)) % DEPTS.size())))
+            .filter(application -> !application.getStartDate().isAfter(toDate) && !application.getEndDate().isBefore(fromDate))
+            .sorted(Comparator.comparing(LeaveApplication::getStartDate).thenComparing(LeaveApplication::getId))
+            .map(LeaveApplication::getId)
+            .toList();
+    }
+
+    private static List<Long> ids(List<Leave> leaves) {
+        return leaves.stream().map(Leave::id).toList();
+    }
+
+    private static LeaveApplication application(Long id, String empId, int startDay, int endDay, String status) {
+        LeaveApplication application = new LeaveApplication();
+        application.setId(id);
+        application.setEmpId(empId);
+        application.setStartDate(BASE.plusDays(startDay));
+        application.setEndDate(BASE.plusDays(endDay));
+        application.setStatus(status);
+        return application;
+    }
+
+    private static Employee employee(String empId, String dept) {
+        Employee employee = new Employee();
+        employee.setEmpId(empId);
+        employee.setDept(dept);
+        return employee;
+    }
+}
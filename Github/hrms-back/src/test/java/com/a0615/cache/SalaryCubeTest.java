@@ -0,0 +1,224 @@
+package com.a0615.cache;
+
+import com.a0615.entity.Employee;
+import com.a0615.entity.Salary;
+import com.a0615.mapper.EmployeeMapper;
+import com.a0615.mapper.SalaryMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * SalaryCube 的加载、按员工修补和加载期间修补排队重放
+ */
+class SalaryCubeTest {
+
+    private SalaryMapper salaryMapper;
+    private EmployeeMapper employeeMapper;
+    private SalaryCube cube;
+
+    // 模拟的数据库内容
+    private final List<Salary> salaries = new ArrayList<>();
+    private final Map<String, String> deptByEmpId = new HashMap<>();
+    private Runnable duringStream;
+
+    @BeforeEach
+    void setUp() {
+        salaryMapper = mock(SalaryMapper.class);
+        employeeMapper = mock(EmployeeMapper.class);
+        cube = new SalaryCube();
+        ReflectionTestUtils.setField(cube, "salaryMapper", salaryMapper);
+        ReflectionTestUtils.setField(cube, "employeeMapper", employeeMapper);
+
+        doAnswer(invocation -> {
+            ResultHandler<Salary> handler = invocation.getArgument(0);
+            DefaultResultContext<Salary> context = new DefaultResultContext<>();
+            List<Salary> snapshot = new ArrayList<>(salaries);
+            for (int i = 0; i < snapshot.size(); i++) {
+                if (i == snapshot.size() / 2 && duringStream != null) {
+                    duringStream.run();
+                }
+                context.nextResultObject(snapshot.get(i));
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(salaryMapper).streamSalaryValues(any());
+        when(employeeMapper.selectList(any())).thenAnswer(invocation -> deptByEmpId.entrySet().stream()
+            .map(entry -> employee(entry.getKey(), entry.getValue()))
+            .collect(Collectors.toList()));
+        // onChanged 按员工重新读取：返回当前全部记录，SalaryCube 只关心其中被替换员工的行
+        when(salaryMapper.selectList(any())).thenAnswer(invocation -> new ArrayList<>(salaries));
+    }
+
+    @Test
+    void aggregatesLoadedRowsByMonthAndDept() {
+        deptByEmpId.put("E1", "研发");
+        deptByEmpId.put("E2", "销售");
+        salaries.add(salary(1L, "E1", "2024-01", "1000.50"));
+        salaries.add(salary(2L, "E1", "2024-02", "2000"));
+        salaries.add(salary(3L, "E2", "2024-01", "3000"));
+
+        assertNull(cube.aggregate(SalaryCube.GroupBy.MONTH, null, null), "加载前应回退到 SQL");
+        cube.reload();
+        assertTrue(cube.isReady());
+
+        Map<String, Long> byMonth = totals(cube.aggregate(SalaryCube.GroupBy.MONTH, null, null));
+        assertEquals(Map.of("2024-01", 400050L, "2024-02", 200000L), byMonth);
+        List<SalaryCube.Aggregate> byDept = cube.aggregate(SalaryCube.GroupBy.DEPT, null, null);
+        assertEquals("研发", byDept.get(0).key(), "按部门分组时按总额降序");
+        assertEquals(2, byDept.get(0).count());
+        assertEquals(100050L, byDept.get(0).minTotalCents());
+        assertEquals(Map.of("研发", 100050L), totals(cube.aggregate(SalaryCube.GroupBy.DEPT, "2024-01", "研发")));
+        assertArrayEquals(new long[] {1, 1, 1}, cube.levelCounts(null, null, new long[] {150000, 250000}));
+    }
+
+    @Test
+    void onChangedReplacesOnlyThatEmployeesRowsAndPicksUpTransfer() {
+        deptByEmpId.put("E1", "研发");
+        deptByEmpId.put("E2", "销售");
+        salaries.add(salary(1L, "E1", "2024-01", "1000"));
+        salaries.add(salary(2L, "E1", "2024-02", "2000"));
+        salaries.add(salary(3L, "E2", "2024-01", "3000"));
+        cube.reload();
+
+        // E1 删除一个月并调到销售部
+        salaries.removeIf(salary -> salary.getId() == 2L);
+        deptByEmpId.put("E1", "销售");
+        cube.onChanged(List.of("E1"));
+
+        assertEquals(Map.of("销售", 400000L), totals(cube.aggregate(SalaryCube.GroupBy.DEPT, null, null)));
+        assertEquals(Map.of("2024-01", 400000L), totals(cube.aggregate(SalaryCube.GroupBy.MONTH, null, null)));
+    }
+
+    @Test
+    void onSavedIsIdempotentById() {
+        deptByEmpId.put("E1", "研发");
+        salaries.add(salary(1L, "E1", "2024-01", "1000"));
+        cube.reload();
+
+        Salary updated = salary(1L, "E1", "2024-01", "1500");
+        cube.onSaved(List.of(updated));
+        cube.onSaved(List.of(updated));
+        cube.onSaved(List.of(salary(2L, "E1", "2024-02", "500")));
+
+        assertEquals(Map.of("2024-01", 150000L, "2024-02", 50000L),
+            totals(cube.aggregate(SalaryCube.GroupBy.MONTH, null, null)));
+    }
+
+    @Test
+    void writesCommittedDuringLoadAreReplayed() {
+        deptByEmpId.put("E1", "研发");
+        deptByEmpId.put("E2", "销售");
+        salaries.add(salary(1L, "E1", "2024-01", "1000"));
+        salaries.add(salary(2L, "E2", "2024-01", "2000"));
+        // 流式读取进行到一半时提交的新增和修改，读取结果中不包含它们
+        duringStream = () -> {
+            cube.onSaved(List.of(salary(3L, "E1", "2024-02", "700")));
+            salaries.removeIf(salary -> salary.getId() == 2L);
+            cube.onChanged(List.of("E2"));
+        };
+        cube.reload();
+
+        assertEquals(Map.of("2024-01", 100000L, "2024-02", 70000L),
+            totals(cube.aggregate(SalaryCube.GroupBy.MONTH, null, null)));
+        assertEquals(Map.of("研发", 170000L), totals(cube.aggregate(SalaryCube.GroupBy.DEPT, null, null)));
+    }
+
+    @Test
+    void writesBeforeAnyLoadAreLeftToTheLoad() {
+        cube.onSaved(List.of(salary(1L, "E1", "2024-01", "1000")));
+        cube.onChanged(List.of("E1"));
+        verify(employeeMapper, never()).selectList(any());
+        assertFalse(cube.isReady());
+    }
+
+    @Test
+    void compactionKeepsResultsAndEmployeeIndex() {
+        deptByEmpId.put("E1", "研发");
+        deptByEmpId.put("E2", "销售");
+        for (long id = 1; id <= 40; id++) {
+            salaries.add(salary(id, id % 2 == 0 ? "E2" : "E1", String.format("2024-%02d", (id % 12) + 1), "100"));
+        }
+        cube.reload();
+
+        // 反复整体替换 E1 的行，足以触发多次压缩
+        for (int round = 0; round < 5; round++) {
+            cube.onChanged(List.of("E1"));
+        }
+        salaries.removeIf(salary -> "E2".equals(salary.getEmpId()));
+        cube.onChanged(List.of("E2"));
+
+        List<SalaryCube.Aggregate> byDept = cube.aggregate(SalaryCube.GroupBy.DEPT, null, null);
+        assertEquals(1, byDept.size());
+        assertEquals(20, byDept.get(0).count());
+        assertEquals(200000L, byDept.get(0).totalCents());
+    }
+
+    @Test
+    void replacingManyRowsByIdKeepsTotals() {
+        deptByEmpId.put("E1", "研发");
+        Map<Long, Long> expected = new HashMap<>();
+        for (long id = 1; id <= 3000; id++) {
+            salaries.add(salary(id, "E1", String.format("2024-%02d", (id % 12) + 1), "1"));
+            expected.put(id, 100L);
+        }
+        cube.reload();
+
+        // 按 id 反复替换，行号表不断删除、插入和扩容，中间还会压缩
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            long id = random.nextInt(4000) + 1;
+            long cents = random.nextInt(100000);
+            cube.onSaved(List.of(salary(id, "E1", String.format("2024-%02d", (id % 12) + 1),
+                BigDecimal.valueOf(cents, 2).toPlainString())));
+            expected.put(id, cents);
+        }
+
+        List<SalaryCube.Aggregate> byDept = cube.aggregate(SalaryCube.GroupBy.DEPT, null, null);
+        assertEquals(expected.size(), byDept.get(0).count());
+        assertEquals(expected.values().stream().mapToLong(Long::longValue).sum(), byDept.get(0).totalCents());
+    }
+
+    private Map<String, Long> totals(List<SalaryCube.Aggregate> aggregates) {
+        return aggregates.stream().collect(Collectors.toMap(SalaryCube.Aggregate::key, SalaryCube.Aggregate::totalCents));
+    }
+
+    private static Salary salary(Long id, String empId, String month, String total) {
+        Salary salary = new Salary();
+        salary.setId(id);
+        salary.setEmpId(empId);
+        salary.setMonth(month);
+        salary.setBaseSalary(new BigDecimal(total));
+        salary.setTotalSalary(new BigDecimal(total));
+        return salary;
+    }
+
+    private static Employee employee(String empId, String dept) {
+        Employee employee = new Employee();
+        employee.setEmpId(empId);
+        employee.setDept(dept);
+        return employee;
+    }
+}
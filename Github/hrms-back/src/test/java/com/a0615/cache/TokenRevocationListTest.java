@@ -0,0 +1,120 @@
+package com.a0615.cache;
+
+import com.a0615.entity.RevokedToken;
+import com.a0615.mapper.RevokedTokenMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TokenRevocationList 的布隆过滤器分桶、数据库确认和过期桶丢弃
+ */
+class TokenRevocationListTest {
+
+    private static final long HOUR_MS = 3600_000L;
+
+    private RevokedTokenMapper mapper;
+    private TokenRevocationList list;
+    private long expiresAt;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(RevokedTokenMapper.class);
+        list = new TokenRevocationList(HOUR_MS, 65536);
+        ReflectionTestUtils.setField(list, "revokedTokenMapper", mapper);
+        ReflectionTestUtils.setField(list, "confirmCacheMs", 30000L);
+        when(mapper.selectActiveSince(anyLong(), any())).thenReturn(List.of());
+        expiresAt = System.currentTimeMillis() + HOUR_MS;
+    }
+
+    @Test
+    void confirmsAgainstDatabaseUntilFirstLoad() {
+        when(mapper.countByJti("jti-1")).thenReturn(1);
+
+        assertTrue(list.isRevoked("jti-1", expiresAt));
+        assertTrue(list.isRevoked("jti-1", expiresAt)); // 确认结果被缓存
+
+        verify(mapper, times(1)).countByJti("jti-1");
+    }
+
+    @Test
+    void bloomMissSkipsDatabaseOnceLoaded() {
+        list.refresh();
+
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(list.isRevoked("unknown-" + i, expiresAt));
+        }
+
+        verify(mapper, never()).countByJti(anyString());
+    }
+
+    @Test
+    void revokedTokensAreReportedAndRevokedOnlyOnce() {
+        list.refresh();
+        when(mapper.insertIgnore(eq("jti-2"), any())).thenReturn(1, 0);
+
+        assertTrue(list.revoke("jti-2", expiresAt));
+        assertTrue(list.isRevoked("jti-2", expiresAt));
+        assertFalse(list.revoke("jti-2", expiresAt)); // 刷新令牌重复使用时第二次吊销失败
+
+        verify(mapper, never()).countByJti(anyString()); // 本实例吊销的令牌已在确认缓存中
+    }
+
+    @Test
+    void expiredTokensAreNotRecorded() {
+        assertFalse(list.revoke("jti-old", System.currentTimeMillis() - 1));
+
+        verify(mapper, never()).insertIgnore(anyString(), any());
+    }
+
+    @Test
+    void refreshPicksUpTokensRevokedByOtherInstances() {
+        RevokedToken row = new RevokedToken();
+        row.setId(7L);
+        row.setJti("jti-remote");
+        row.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()));
+        when(mapper.selectActiveSince(eq(0L), any())).thenReturn(List.of(row));
+        when(mapper.countByJti("jti-remote")).thenReturn(1);
+
+        list.refresh();
+        list.refresh();
+
+        assertTrue(list.isRevoked("jti-remote", expiresAt)); // 布隆过滤器命中后由数据库确认
+        assertFalse(list.isRevoked("jti-local", expiresAt));
+        verify(mapper).selectActiveSince(eq(7L), any()); // 第二次只加载新增的记录
+        verify(mapper, never()).countByJti("jti-local");
+    }
+
+    @Test
+    void bucketsAreDroppedOnceAllTheirTokensExpired() throws Exception {
+        TokenRevocationList shortBuckets = new TokenRevocationList(50, 1024);
+        ReflectionTestUtils.setField(shortBuckets, "revokedTokenMapper", mapper);
+        ReflectionTestUtils.setField(shortBuckets, "confirmCacheMs", 30000L);
+        shortBuckets.refresh();
+        long soon = System.currentTimeMillis() + 20;
+        shortBuckets.revoke("jti-short", soon);
+
+        Thread.sleep(120);
+        shortBuckets.refresh();
+
+        assertFalse(shortBuckets.isRevoked("jti-short", soon));
+        verify(mapper, never()).countByJti(anyString());
+    }
+}
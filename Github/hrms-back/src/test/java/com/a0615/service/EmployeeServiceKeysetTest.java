@@ -0,0 +1,134 @@
+package com.a0615.service;
+
+import com.a0615.cache.EmployeeNameIndex;
+import com.a0615.dto.EmployeeSummaryDTO;
+import com.a0615.dto.KeysetPageDTO;
+import com.a0615.entity.Employee;
+import com.a0615.mapper.EmployeeMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 员工搜索的游标分页：游标编解码、内存路径的排序与数据库排序规则一致、游标可以在两条路径之间延续
+ */
+class EmployeeServiceKeysetTest {
+
+    private EmployeeService service;
+    private EmployeeMapper employeeMapper;
+    private EmployeeNameIndex nameIndex;
+
+    @BeforeEach
+    void setUp() {
+        employeeMapper = mock(EmployeeMapper.class);
+        nameIndex = new EmployeeNameIndex();
+        nameIndex.onReload(List.of(
+            employee(1, "Zara", "在职"),
+            employee(2, "Adam", "在职"),
+            employee(3, "adam", "在职"),
+            employee(4, "Ádam", "在职"),
+            employee(5, "Bart", "在职"),
+            employee(6, "Émma", "在职"),
+            employee(7, "Mara", "离职")));
+        service = new EmployeeService();
+        ReflectionTestUtils.setField(service, "employeeMapper", employeeMapper);
+        ReflectionTestUtils.setField(service, "employeeNameIndex", nameIndex);
+    }
+
+    @Test
+    void inMemoryPagesFollowAccentAndCaseInsensitiveOrder() {
+        // utf8mb4_0900_ai_ci 下 Adam、adam、Ádam 相等，按主键排列；É 与 E 相等，排在 B 之后
+        assertEquals(List.of(List.of(2, 3), List.of(4, 5), List.of(6, 1)), collectPages("name", "asc"));
+        assertEquals(List.of(List.of(1, 6), List.of(5, 4), List.of(3, 2)), collectPages("name", "desc"));
+    }
+
+    @Test
+    void idOrderUsesAnEmptySortValue() {
+        KeysetPageDTO<EmployeeSummaryDTO> first = service.searchEmployeeSummaries("a", null, "在职", null, null, 4, null);
+
+        assertEquals(List.of(1, 2, 3, 4), ids(first));
+        assertEquals(List.of(5, 6), ids(service.searchEmployeeSummaries("a", null, "在职", "id", "asc", 4, first.getNextCursor())));
+    }
+
+    @Test
+    void cursorFromTheIndexContinuesOnTheSqlPath() {
+        KeysetPageDTO<EmployeeSummaryDTO> first = service.searchEmployeeSummaries("a", null, "在职", "name", "asc", 2, null);
+        ReflectionTestUtils.setField(service, "employeeNameIndex", new EmployeeNameIndex()); // 索引不可用，回退到 LIKE 查询
+        when(employeeMapper.selectSummaryPage(any(), any(), any(), any(), anyBoolean(), any(), any(), anyInt()))
+            .thenReturn(new ArrayList<>());
+
+        KeysetPageDTO<EmployeeSummaryDTO> second = service.searchEmployeeSummaries("a", null, "在职", "name", "asc", 2, first.getNextCursor());
+
+        verify(employeeMapper).selectSummaryPage(null, "在职", "a", "name", false, "adam", 3, 3);
+        assertTrue(second.getItems().isEmpty());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void cursorValuesMayContainTheSeparator() {
+        nameIndex.onChanged(null, employee(8, "a|b", "在职"));
+        nameIndex.onChanged(null, employee(9, "a|b", "在职"));
+
+        KeysetPageDTO<EmployeeSummaryDTO> first = service.searchEmployeeSummaries("a|", null, null, "name", "asc", 1, null);
+        KeysetPageDTO<EmployeeSummaryDTO> second = service.searchEmployeeSummaries("a|", null, null, "name", "asc", 1, first.getNextCursor());
+
+        assertEquals(List.of(8), ids(first));
+        assertEquals(List.of(9), ids(second));
+        assertFalse(second.isHasMore());
+    }
+
+    @Test
+    void rejectsMalformedCursorsAndSortArguments() {
+        assertThrows(IllegalArgumentException.class,
+            () -> service.searchEmployeeSummaries("a", null, null, "name", "asc", 2, "not base64!"));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.searchEmployeeSummaries("a", null, null, "name", "asc", 2, "bm8tc2VwYXJhdG9y")); // "no-separator"
+        assertThrows(IllegalArgumentException.class,
+            () -> service.searchEmployeeSummaries("a", null, null, "salary", "asc", 2, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.searchEmployeeSummaries("a", null, null, "name", "up", 2, null));
+    }
+
+    /**
+     * 逐页读取在职员工的搜索结果，直到没有下一页
+     */
+    private List<List<Integer>> collectPages(String sort, String order) {
+        List<List<Integer>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetPageDTO<EmployeeSummaryDTO> page = service.searchEmployeeSummaries("a", null, "在职", sort, order, 2, cursor);
+            pages.add(ids(page));
+            cursor = page.getNextCursor();
+            assertEquals(cursor != null, page.isHasMore());
+        } while (cursor != null);
+        return pages;
+    }
+
+    private static List<Integer> ids(KeysetPageDTO<EmployeeSummaryDTO> page) {
+        return page.getItems().stream().map(EmployeeSummaryDTO::getId).toList();
+    }
+
+    private static Employee employee(int id, String name, String status) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setEmpId(String.format("E%03d", id));
+        employee.setName(name);
+        employee.setStatus(status);
+        return employee;
+    }
+}
@@ -0,0 +1,114 @@
+package com.a0615.util;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ExcelRowReader 对 .xlsx / .xls / .csv 的逐行解析
+ */
+class ExcelRowReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsXlsxRowsWithRawNumbersAndGaps() throws Exception {
+        File file = writeWorkbook(new XSSFWorkbook(), "salaries.xlsx");
+
+        Map<Integer, List<String>> rows = read(file, "salaries.xlsx");
+
+        assertWorkbookRows(rows);
+    }
+
+    @Test
+    void readsXlsRowsWithRawNumbersAndGaps() throws Exception {
+        File file = writeWorkbook(new HSSFWorkbook(), "salaries.xls");
+
+        Map<Integer, List<String>> rows = read(file, "salaries.xls");
+
+        assertWorkbookRows(rows);
+    }
+
+    @Test
+    void readsCsvWithBomQuotesAndEmbeddedNewlines() throws Exception {
+        Path path = tempDir.resolve("employees.csv");
+        Files.writeString(path, "﻿工号,姓名,备注\r\n"
+            + "E001,\"张,三\",\"第一行\n第二行\"\r\n"
+            + "E002,,\"说\"\"好\"\"\"\r\n"
+            + "E003,王五", StandardCharsets.UTF_8);
+
+        Map<Integer, List<String>> rows = read(path.toFile(), "EMPLOYEES.CSV");
+
+        assertEquals(4, rows.size());
+        assertEquals(Arrays.asList("工号", "姓名", "备注"), rows.get(1));
+        assertEquals(Arrays.asList("E001", "张,三", "第一行\n第二行"), rows.get(2)); // 引号内的换行不增加行号
+        assertEquals(Arrays.asList("E002", null, "说\"好\""), rows.get(3));
+        assertEquals(Arrays.asList("E003", "王五"), rows.get(4)); // 最后一行没有换行符
+    }
+
+    /**
+     * 第 1 行标题；第 2 行 A、B、D 列有值（C 列缺失），数值带千分位格式；第 4 行只有 B 列（第 3 行整行缺失）
+     */
+    private File writeWorkbook(Workbook workbook, String name) throws Exception {
+        try (workbook) {
+            Sheet sheet = workbook.createSheet("薪资");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("员工工号");
+            header.createCell(1).setCellValue("基本工资");
+            Row first = sheet.createRow(1);
+            first.createCell(0).setCellValue("E001");
+            first.createCell(1).setCellValue(12345.5);
+            first.getCell(1).setCellStyle(thousandsStyle(workbook));
+            first.createCell(3).setCellValue(8000);
+            sheet.createRow(3).createCell(1).setCellValue("仅B列");
+            workbook.createSheet("第二个工作表").createRow(0).createCell(0).setCellValue("不应读取");
+
+            File file = tempDir.resolve(name).toFile();
+            try (OutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+            return file;
+        }
+    }
+
+    private CellStyle thousandsStyle(Workbook workbook) {
+        CellStyle style = workbook.createCellStyle();
+        style.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+        return style;
+    }
+
+    private void assertWorkbookRows(Map<Integer, List<String>> rows) {
+        // .xls 的缺失行以空行回调，调用方按空行跳过
+        rows.values().removeIf(List::isEmpty);
+        assertEquals(List.of(1, 2, 4), new ArrayList<>(rows.keySet()));
+        assertEquals(Arrays.asList("员工工号", "基本工资"), rows.get(1));
+        assertEquals(Arrays.asList("E001", "12345.5", null, "8000"), rows.get(2));
+        assertEquals(Arrays.asList(null, "仅B列"), rows.get(4));
+    }
+
+    private Map<Integer, List<String>> read(File file, String fileName) throws Exception {
+        Map<Integer, List<String>> rows = new LinkedHashMap<>();
+        ExcelRowReader.read(file, fileName, (rowNumber, cells) -> rows.put(rowNumber, new ArrayList<>(cells)));
+        return rows;
+    }
+}
@@ -0,0 +1,98 @@
+package com.a0615.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TokenBucketRateLimiter 的突发容量、等待时间、按键隔离和空闲桶清理
+ */
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void allowsBurstUpToCapacityThenReportsWait() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1, 100); // 每分钟补充 1 个
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        long wait = limiter.tryAcquire("10.0.0.1");
+
+        assertTrue(wait > TimeUnit.SECONDS.toNanos(59) && wait <= TimeUnit.MINUTES.toNanos(1), "wait=" + wait);
+        assertEquals(1, limiter.getRejectedCount());
+        // 被拒绝的请求不消耗令牌，等待时间不会越来越长
+        assertTrue(limiter.tryAcquire("10.0.0.1") <= wait);
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 100);
+
+        assertEquals(0, limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice") > 0);
+        assertEquals(0, limiter.tryAcquire("bob"));
+        assertEquals(2, limiter.getTrackedKeys());
+    }
+
+    @Test
+    void concurrentCallersNeverExceedCapacity() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(50, 1, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        try {
+            for (int i = 0; i < 400; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (limiter.tryAcquire("shared") == 0) {
+                        granted.incrementAndGet();
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(50, granted.get());
+        assertEquals(350, limiter.getRejectedCount());
+    }
+
+    @Test
+    void refilledBucketsAreSweptAway() throws Exception {
+        // 每微秒补充一个令牌，1 毫秒后所有桶都已补满
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 60_000_000, 100);
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("user-" + i);
+        }
+        assertTrue(limiter.getTrackedKeys() >= 100);
+
+        Thread.sleep(5);
+        // 键数超过上限时每 256 次请求清理一次
+        for (int i = 0; i < 300; i++) {
+            limiter.tryAcquire("steady");
+        }
+
+        assertTrue(limiter.getTrackedKeys() <= 1, "tracked=" + limiter.getTrackedKeys());
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(0, 10, 100));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(5, 0, 100));
+    }
+}
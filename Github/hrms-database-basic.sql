@@ -79,7 +79,10 @@ CREATE TABLE `employee`  (
   `updated_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`) USING BTREE,
   UNIQUE INDEX `emp_id`(`emp_id` ASC) USING BTREE,
-  INDEX `idx_employee_emp_id`(`emp_id` ASC) USING BTREE
+  INDEX `idx_employee_emp_id`(`emp_id` ASC) USING BTREE,
+  INDEX `idx_employee_dept_status`(`dept` ASC, `status` ASC) USING BTREE,
+  INDEX `idx_employee_status`(`status` ASC) USING BTREE,
+  INDEX `idx_employee_name`(`name` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 4 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '员工表' ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -162,6 +165,126 @@ INSERT INTO `salaries` VALUES (7, 'E003', 7000.00, 900.00, 1500.00, 150.00, 9250
 INSERT INTO `salaries` VALUES (8, 'E003', 7000.00, 900.00, 1600.00, 160.00, 9340.00, '2024-11', '已发放', NOW(), NOW());
 INSERT INTO `salaries` VALUES (9, 'E003', 7000.00, 900.00, 2000.00, 200.00, 9700.00, '2024-12', '草稿', NOW(), NOW());
 
+-- ----------------------------
+-- Table structure for salary_month_dept_summary
+-- ----------------------------
+DROP TABLE IF EXISTS `salary_month_dept_summary`;
+CREATE TABLE `salary_month_dept_summary`  (
+  `id` int NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `month` varchar(7) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '工资月份 格式：YYYY-MM',
+  `dept` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL DEFAULT '' COMMENT '部门（无部门为空字符串）',
+  `total_sum` decimal(16, 2) NOT NULL DEFAULT 0.00 COMMENT '总工资合计',
+  `record_count` int NOT NULL DEFAULT 0 COMMENT '薪资记录数',
+  `min_total` decimal(10, 2) NULL DEFAULT NULL COMMENT '最低总工资',
+  `max_total` decimal(10, 2) NULL DEFAULT NULL COMMENT '最高总工资',
+  `updated_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_month_dept`(`month` ASC, `dept` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '月度部门薪资汇总表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for salary_month_summary
+-- ----------------------------
+DROP TABLE IF EXISTS `salary_month_summary`;
+CREATE TABLE `salary_month_summary`  (
+  `id` int NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `month` varchar(7) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '工资月份 格式：YYYY-MM',
+  `total_sum` decimal(16, 2) NOT NULL DEFAULT 0.00 COMMENT '总工资合计',
+  `record_count` int NOT NULL DEFAULT 0 COMMENT '薪资记录数',
+  `min_total` decimal(10, 2) NULL DEFAULT NULL COMMENT '最低总工资',
+  `max_total` decimal(10, 2) NULL DEFAULT NULL COMMENT '最高总工资',
+  `updated_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_month`(`month` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '月度薪资汇总表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of salary summaries
+-- ----------------------------
+-- 由示例薪资数据聚合生成，之后由应用在写入薪资时增量维护
+-- 如汇总出现漂移，可调用 POST /api/salaries/summary/rebuild 全量重建
+INSERT INTO `salary_month_dept_summary` (`month`, `dept`, `total_sum`, `record_count`, `min_total`, `max_total`)
+SELECT s.`month`, COALESCE(e.`dept`, ''), SUM(COALESCE(s.`total_salary`, 0)), COUNT(*), MIN(s.`total_salary`), MAX(s.`total_salary`)
+FROM `salaries` s LEFT JOIN `employee` e ON e.`emp_id` = s.`emp_id`
+GROUP BY s.`month`, COALESCE(e.`dept`, '');
+
+INSERT INTO `salary_month_summary` (`month`, `total_sum`, `record_count`, `min_total`, `max_total`)
+SELECT `month`, SUM(`total_sum`), SUM(`record_count`), MIN(`min_total`), MAX(`max_total`)
+FROM `salary_month_dept_summary`
+GROUP BY `month`;
+
+-- ----------------------------
+-- Table structure for token_version
+-- ----------------------------
+-- 每个用户的令牌版本号：修改密码、角色、状态或删除用户时加一，版本号小于当前值的 JWT 失效
+DROP TABLE IF EXISTS `token_version`;
+CREATE TABLE `token_version`  (
+  `id` int NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `principal_type` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '用户类型：ADMIN/EMPLOYEE',
+  `username` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '管理员用户名或员工工号',
+  `version` int NOT NULL DEFAULT 0 COMMENT '令牌版本号',
+  `updated_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_principal`(`principal_type` ASC, `username` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '令牌版本表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for revoked_token
+-- ----------------------------
+-- 已吊销的令牌ID（jti）：登出和刷新令牌轮换时写入，令牌过期后即可删除
+DROP TABLE IF EXISTS `revoked_token`;
+CREATE TABLE `revoked_token`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `jti` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '令牌ID',
+  `expires_at` datetime NOT NULL COMMENT '令牌过期时间，过期后记录可删除',
+  `created_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP COMMENT '吊销时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_jti`(`jti` ASC) USING BTREE,
+  INDEX `idx_expires_at`(`expires_at` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '已吊销令牌表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for department
+-- ----------------------------
+-- 部门名称与 employee.dept 对应；parent_id 为直接上级，完整的上下级关系见 department_closure
+DROP TABLE IF EXISTS `department_closure`;
+DROP TABLE IF EXISTS `department`;
+CREATE TABLE `department`  (
+  `id` int NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `name` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '部门名称',
+  `parent_id` int NULL DEFAULT NULL COMMENT '上级部门ID，顶级部门为空',
+  `created_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_department_name`(`name` ASC) USING BTREE,
+  INDEX `idx_department_parent`(`parent_id` ASC) USING BTREE,
+  CONSTRAINT `fk_department_parent` FOREIGN KEY (`parent_id`) REFERENCES `department` (`id`)
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '部门表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for department_closure
+-- ----------------------------
+-- 闭包表：每对（祖先, 后代）一行，含自身到自身（depth = 0），查询整个子树或全部祖先都只需一次索引查找
+CREATE TABLE `department_closure`  (
+  `ancestor_id` int NOT NULL COMMENT '祖先部门ID',
+  `descendant_id` int NOT NULL COMMENT '后代部门ID',
+  `depth` int NOT NULL COMMENT '层级差，自身为 0',
+  PRIMARY KEY (`ancestor_id`, `descendant_id`) USING BTREE,
+  INDEX `idx_closure_descendant`(`descendant_id` ASC, `depth` ASC) USING BTREE,
+  CONSTRAINT `fk_closure_ancestor` FOREIGN KEY (`ancestor_id`) REFERENCES `department` (`id`) ON DELETE CASCADE,
+  CONSTRAINT `fk_closure_descendant` FOREIGN KEY (`descendant_id`) REFERENCES `department` (`id`) ON DELETE CASCADE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '部门闭包表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of department
+-- ----------------------------
+-- 由示例员工的部门生成，初始均为顶级部门，之后通过 PUT /api/departments/{id}/parent 调整上下级
+INSERT INTO `department` (`name`)
+SELECT DISTINCT `dept` FROM `employee` WHERE `dept` IS NOT NULL AND `dept` <> '';
+
+INSERT INTO `department_closure` (`ancestor_id`, `descendant_id`, `depth`)
+SELECT `id`, `id`, 0 FROM `department`;
+
 SET FOREIGN_KEY_CHECKS = 1;
 
 -- ----------------------------
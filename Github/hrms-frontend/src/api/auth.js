@@ -16,7 +16,11 @@ export const employeeLogin = async (employeeId, password) => {
     });
     
     console.log('✅ 登录API响应:', response);
-    const { token, role, username, user } = response;
+    const { token, role, username, user, refreshToken } = response;
+    
+    if (refreshToken) {
+      localStorage.setItem('refresh_token', refreshToken);
+    }
     
     if (role !== 'employee') {
       throw new Error('此账号不是员工账号，请使用员工登录入口');
@@ -89,6 +93,7 @@ export const employeeLogin = async (employeeId, password) => {
         
         // 清除可能不完整的存储信息
         localStorage.removeItem('auth_token');
+        localStorage.removeItem('refresh_token');
         localStorage.removeItem('user_role');
         localStorage.removeItem('user_employee_id');
         
@@ -118,7 +123,11 @@ export const adminLogin = async (username, password) => {
     
     // 解析响应数据
     console.log('管理员登录响应数据:', response);
-    const { token, role, username: loginUsername, user } = response;
+    const { token, role, username: loginUsername, user, refreshToken } = response;
+    
+    if (refreshToken) {
+      localStorage.setItem('refresh_token', refreshToken);
+    }
     
     // 角色检查 - 支持大小写不敏感
     if (role && role.toLowerCase() !== 'admin') {
@@ -279,16 +288,27 @@ export const getCurrentUser = async (token) => {
  */
 export const logout = async () => {
   try {
+    // 通知后端吊销当前的访问令牌和刷新令牌，失败时不影响本地退出
+    const refreshToken = localStorage.getItem('refresh_token');
+    if (localStorage.getItem('auth_token') || refreshToken) {
+      try {
+        await request.post('/auth/logout', { refreshToken });
+      } catch (revokeError) {
+        console.warn('吊销令牌失败，继续本地退出:', revokeError);
+      }
+    }
+    
     // 清除本地存储的认证信息
     localStorage.removeItem('auth_token');
+    localStorage.removeItem('refresh_token');
     localStorage.removeItem('user_info');
     
-    // 后端可能没有专门的登出接口，这里只做本地清理
     return { message: '退出登录成功' };
   } catch (error) {
     console.error('退出登录失败:', error);
     // 即使失败也要清除本地信息
     localStorage.removeItem('auth_token');
+    localStorage.removeItem('refresh_token');
     localStorage.removeItem('user_info');
     throw error;
   }
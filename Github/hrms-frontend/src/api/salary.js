@@ -183,6 +183,16 @@ export function importSalaryRecords(file) {
   })
 }
 
+/**
+ * 查询导入任务进度，任务结束后 result 中为导入结果
+ */
+export function getImportJob(jobId) {
+  return request({
+    url: `/salaries/import/${jobId}`,
+    method: 'get'
+  })
+}
+
 /**
  * 获取薪资统计数据
  */
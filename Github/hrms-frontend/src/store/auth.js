@@ -75,6 +75,7 @@ export const useAuthStore = defineStore('auth', {
       this.userEmployeeId = '';
 
       localStorage.removeItem('auth_token');
+      localStorage.removeItem('refresh_token');
       localStorage.removeItem('user_name');
       localStorage.removeItem('user_role');
       localStorage.removeItem('user_id');
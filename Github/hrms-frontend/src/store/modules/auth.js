@@ -94,6 +94,7 @@ export const useAuthStore = defineStore('auth', {
         // 清理所有相关的localStorage项
         const keysToRemove = [
           'auth_token',
+          'refresh_token',
           'user_info',
           'user_role',
           'user_name',
@@ -141,6 +142,7 @@ export const useAuthStore = defineStore('auth', {
       
       const keysToRemove = [
         'auth_token',
+        'refresh_token',
         'user_info',
         'user_role',
         'user_name',
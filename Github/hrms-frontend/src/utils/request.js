@@ -21,6 +21,26 @@ const MAX_REQUESTS_PER_SECOND = 10;
 const MAX_RETRY_COUNT = 3;
 const RETRY_DELAY = 1000;
 
+// 刷新访问令牌：多个请求同时遇到 401 时只发起一次刷新，其余请求等待同一结果
+let refreshPromise = null;
+const refreshAccessToken = () => {
+  if (!refreshPromise) {
+    const refreshToken = localStorage.getItem('refresh_token');
+    // 直接使用 axios，避免经过本实例的拦截器再次附带已过期的访问令牌
+    refreshPromise = axios
+      .post(`${request.defaults.baseURL}/auth/refresh`, { refreshToken })
+      .then((res) => {
+        localStorage.setItem('auth_token', res.data.token);
+        localStorage.setItem('refresh_token', res.data.refreshToken);
+        return res.data.token;
+      })
+      .finally(() => {
+        refreshPromise = null;
+      });
+  }
+  return refreshPromise;
+};
+
 // 请求拦截器
 request.interceptors.request.use(
   (config) => {
@@ -134,9 +154,21 @@ request.interceptors.response.use(
       
       switch (status) {
         case 401:
+          // 访问令牌过期 - 先用刷新令牌换取新令牌并重发原请求，每个请求只尝试一次
+          if (localStorage.getItem('refresh_token') && !config._refreshed && !config.url?.includes('/auth/')) {
+            config._refreshed = true;
+            try {
+              const token = await refreshAccessToken();
+              config.headers.Authorization = `Bearer ${token}`;
+              return request(config);
+            } catch (refreshError) {
+              console.warn('🔄 刷新令牌失败，需要重新登录:', refreshError.message);
+            }
+          }
           // 未授权 - 清除认证信息并跳转到登录页
           if (!window.location.href.includes('/login')) {
             localStorage.removeItem('auth_token');
+            localStorage.removeItem('refresh_token');
             localStorage.removeItem('user_role');
             localStorage.removeItem('user_name');
             localStorage.removeItem('user_info');